@@ -0,0 +1,102 @@
+package dao;
+
+import java.sql.*;
+
+import db.DBConnection;
+import db.PostgreSQLConnection;
+
+/**
+ * Archivo de reservas cerradas en ReservaHistorico y ConsumoAdicionalHistorico
+ * Cada lote se mueve con una sola sentencia que borra las reservas y sus
+ * consumos de las tablas vivas y los inserta en las históricas, así que
+ * nunca queda una reserva a medio archivar. Los lotes se confirman uno a
+ * uno para no retener bloqueos sobre muchas filas a la vez.
+ *
+ * Solo se mueven los consumos de los meses que siguen adjuntos a
+ * ConsumoAdicional. Un mes desprendido con ParticionesConsumo.desprender
+ * se archiva aparte, como tabla completa: ya no depende de Reserva, así
+ * que borrar aquí sus reservas no toca sus filas.
+ */
+public class ArchivoHistoricoDAO {
+    
+    // SKIP LOCKED: las reservas que otra operación tiene bloqueadas quedan para el siguiente lote
+    private static final String SQL_ARCHIVAR_LOTE =
+            "WITH lote AS (" +
+            "    SELECT cedulaPer, numeroHab, fechaLlegada FROM Reserva " +
+            "    WHERE fechaSalida < current_date - make_interval(months => ?) " +
+            "    ORDER BY fechaSalida LIMIT ? FOR UPDATE SKIP LOCKED" +
+            "), consumos AS (" +
+            "    DELETE FROM ConsumoAdicional c USING lote l " +
+            "    WHERE c.cedulaPer = l.cedulaPer AND c.numeroHab = l.numeroHab " +
+            "    AND c.fechaLlegada = l.fechaLlegada " +
+            "    RETURNING c.fechaConsumo, c.horaConsumo, c.fechaLlegada, c.numeroHab, c.cedulaPer, " +
+            "    c.idServicio" +
+            "), reservas AS (" +
+            "    DELETE FROM Reserva r USING lote l " +
+            "    WHERE r.cedulaPer = l.cedulaPer AND r.numeroHab = l.numeroHab " +
+            "    AND r.fechaLlegada = l.fechaLlegada " +
+            "    RETURNING r.cedulaPer, r.numeroHab, r.fechaLlegada, r.fechaSalida, r.tiempoMaxCancel" +
+            "), reservas_historico AS (" +
+            "    INSERT INTO ReservaHistorico (cedulaPer, numeroHab, fechaLlegada, fechaSalida, " +
+            "    tiempoMaxCancel) " +
+            "    SELECT * FROM reservas " +
+            "    ON CONFLICT (cedulaPer, numeroHab, fechaLlegada) DO UPDATE SET " +
+            "    fechaSalida = EXCLUDED.fechaSalida, tiempoMaxCancel = EXCLUDED.tiempoMaxCancel, " +
+            "    archivada = now()" +
+            "), consumos_historico AS (" +
+            "    INSERT INTO ConsumoAdicionalHistorico (fechaConsumo, horaConsumo, fechaLlegada, " +
+            "    numeroHab, cedulaPer, idServicio) " +
+            "    SELECT * FROM consumos ON CONFLICT DO NOTHING RETURNING 1" +
+            ") " +
+            "SELECT cedulaPer, numeroHab, fechaLlegada, (SELECT count(*) FROM consumos_historico) " +
+            "FROM reservas";
+    
+    private final DBConnection connector;
+    private final IndiceOcupacion indice = IndiceOcupacion.getInstance();
+    
+    public ArchivoHistoricoDAO() throws SQLException {
+        this.connector = PostgreSQLConnection.getConnector();
+    }
+    
+    /**
+     * Mueve a las tablas históricas las reservas cuya fecha de salida pasó
+     * hace más de los meses indicados, junto con sus consumos adicionales.
+     * Si se interrumpe, los lotes ya confirmados quedan archivados y el
+     * resto se archiva en la siguiente ejecución.
+     * @param meses antigüedad mínima de la fecha de salida
+     * @param lote número máximo de reservas que se mueven por sentencia
+     * @return número de reservas archivadas, o -1 si hubo un error
+     */
+    public int archivar(int meses, int lote) {
+        int reservas = 0;
+        long consumos = 0;
+        
+        try (Connection connection = connector.getConn();
+             PreparedStatement stmt = connection.prepareStatement(SQL_ARCHIVAR_LOTE)) {
+            stmt.setInt(1, meses);
+            stmt.setInt(2, lote);
+            
+            int movidas;
+            do {
+                movidas = 0;
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        if (movidas == 0) {
+                            // El total de consumos del lote viene repetido en cada fila
+                            consumos += rs.getLong(4);
+                        }
+                        indice.eliminar(rs.getLong(1), rs.getInt(2), rs.getDate(3).toLocalDate());
+                        movidas++;
+                    }
+                }
+                reservas += movidas;
+            } while (movidas > 0);
+            
+        } catch (SQLException e) {
+            System.err.println("Error al archivar reservas: " + e.getMessage());
+            return -1;
+        }
+        System.out.println("Reservas archivadas: " + reservas + " (consumos: " + consumos + ")");
+        return reservas;
+    }
+}
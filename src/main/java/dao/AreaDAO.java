@@ -4,8 +4,13 @@ package dao;
 import modelo.Area;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
+import db.DBConnection;
 import db.PostgreSQLConnection;
 
 /**
@@ -14,10 +19,25 @@ import db.PostgreSQLConnection;
  */
 public class AreaDAO {
     
-    private Connection connection;
+    // Columnas en el orden en que las lee mapResultSetToArea
+    static final String COLUMNAS = "a.idArea, a.nombreArea";
+    
+    // Cache de las áreas, compartida por todas las instancias del DAO
+    private static final CacheReferencia<Long, Area> CACHE =
+            new CacheReferencia<>(1000, AreaDAO::copiar);
+    
+    private final DBConnection connector;
     
     public AreaDAO() throws SQLException {
-        this.connection = PostgreSQLConnection.getConnector().getConn();
+        this.connector = PostgreSQLConnection.getConnector();
+    }
+    
+    /**
+     * Cache en memoria de las áreas (estadísticas y limpieza)
+     * @return cache compartida del DAO
+     */
+    public static CacheReferencia<Long, Area> getCache() {
+        return CACHE;
     }
     
     /**
@@ -28,11 +48,15 @@ public class AreaDAO {
     public boolean insert(Area area) {
         String sql = "INSERT INTO Area (idArea, nombreArea) VALUES (?, ?)";
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = connector.getConn();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setLong(1, area.getIdArea());
             stmt.setString(2, area.getNombreArea());
             
             int rowsAffected = stmt.executeUpdate();
+            if (rowsAffected > 0) {
+                CACHE.guardar(connector, area.getIdArea(), area);
+            }
             return rowsAffected > 0;
             
         } catch (SQLException e) {
@@ -49,11 +73,15 @@ public class AreaDAO {
     public boolean update(Area area) {
         String sql = "UPDATE Area SET nombreArea = ? WHERE idArea = ?";
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = connector.getConn();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setString(1, area.getNombreArea());
             stmt.setLong(2, area.getIdArea());
             
             int rowsAffected = stmt.executeUpdate();
+            if (rowsAffected > 0) {
+                CACHE.guardar(connector, area.getIdArea(), area);
+            }
             return rowsAffected > 0;
             
         } catch (SQLException e) {
@@ -70,10 +98,14 @@ public class AreaDAO {
     public boolean delete(Long idArea) {
         String sql = "DELETE FROM Area WHERE idArea = ?";
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = connector.getConn();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setLong(1, idArea);
             
             int rowsAffected = stmt.executeUpdate();
+            if (rowsAffected > 0) {
+                CACHE.remove(connector, idArea);
+            }
             return rowsAffected > 0;
             
         } catch (SQLException e) {
@@ -88,14 +120,23 @@ public class AreaDAO {
      * @return objeto Area o null si no se encuentra
      */
     public Area findById(Long idArea) {
-        String sql = "SELECT * FROM Area WHERE idArea = ?";
+        Area cacheado = CACHE.get(idArea);
+        if (cacheado != null) {
+            return cacheado;
+        }
+        
+        String sql = "SELECT " + COLUMNAS + " FROM Area a WHERE idArea = ?";
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        long generacion = CACHE.getGeneracion();
+        try (Connection connection = connector.getConn();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setLong(1, idArea);
             
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
-                    return mapResultSetToArea(rs);
+                    Area area = mapResultSetToArea(rs);
+                    CACHE.put(connector, generacion, idArea, area);
+                    return area;
                 }
             }
         } catch (SQLException e) {
@@ -104,20 +145,70 @@ public class AreaDAO {
         return null;
     }
     
+    /**
+     * Busca varias áreas en una sola consulta
+     * @param ids IDs de las áreas a buscar
+     * @return mapa ID -> Area, solo con los que existen
+     */
+    public Map<Long, Area> findByIds(Collection<Long> ids) {
+        Map<Long, Area> resultado = new TreeMap<>();
+        List<Long> faltantes = new ArrayList<>();
+        for (Long id : new LinkedHashSet<>(ids)) {
+            Area cacheado = CACHE.get(id);
+            if (cacheado != null) {
+                resultado.put(id, cacheado);
+            } else {
+                faltantes.add(id);
+            }
+        }
+        if (faltantes.isEmpty()) {
+            return resultado;
+        }
+        String sql = "SELECT " + COLUMNAS + " FROM Area a WHERE idArea = ANY(?) ORDER BY idArea";
+        
+        long generacion = CACHE.getGeneracion();
+        try (Connection connection = connector.getConn();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
+            Array idsArray = connection.createArrayOf("bigint", faltantes.toArray());
+            stmt.setArray(1, idsArray);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Area area = mapResultSetToArea(rs);
+                    resultado.put(area.getIdArea(), area);
+                    CACHE.put(connector, generacion, area.getIdArea(), area);
+                }
+            } finally {
+                idsArray.free();
+            }
+        } catch (SQLException e) {
+            System.err.println("Error al buscar áreas: " + e.getMessage());
+        }
+        return resultado;
+    }
+    
     /**
      * Obtiene todas las áreas
      * @return lista de áreas
      */
     public List<Area> findAll() {
+        List<Area> cacheados = CACHE.getTodos();
+        if (cacheados != null) {
+            return cacheados;
+        }
+        
         List<Area> areas = new ArrayList<>();
-        String sql = "SELECT * FROM Area ORDER BY idArea";
+        String sql = "SELECT " + COLUMNAS + " FROM Area a ORDER BY idArea";
         
-        try (Statement stmt = connection.createStatement();
+        long generacion = CACHE.getGeneracion();
+        try (Connection connection = connector.getConn();
+             Statement stmt = connection.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
             
             while (rs.next()) {
                 areas.add(mapResultSetToArea(rs));
             }
+            CACHE.putTodos(connector, generacion, areas, Area::getIdArea);
             
         } catch (SQLException e) {
             System.err.println("Error al obtener áreas: " + e.getMessage());
@@ -125,6 +216,38 @@ public class AreaDAO {
         return areas;
     }
     
+    /**
+     * Obtiene una página de áreas ordenada por ID, continuando
+     * después de la última fila de la página anterior (paginación por clave)
+     * @param afterIdArea último ID de área de la página anterior, o null para la primera página
+     * @param limit número máximo de áreas a devolver
+     * @return lista de áreas de la página
+     */
+    public List<Area> findPage(Long afterIdArea, int limit) {
+        List<Area> areas = new ArrayList<>();
+        String sql = afterIdArea == null
+                ? "SELECT " + COLUMNAS + " FROM Area a ORDER BY idArea LIMIT ?"
+                : "SELECT " + COLUMNAS + " FROM Area a WHERE idArea > ? ORDER BY idArea LIMIT ?";
+        
+        try (Connection connection = connector.getConn();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
+            int i = 1;
+            if (afterIdArea != null) {
+                stmt.setLong(i++, afterIdArea);
+            }
+            stmt.setInt(i, limit);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    areas.add(mapResultSetToArea(rs));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error al obtener página de áreas: " + e.getMessage());
+        }
+        return areas;
+    }
+    
     /**
      * Busca áreas por nombre
      * @param nombre nombre a buscar
@@ -132,9 +255,10 @@ public class AreaDAO {
      */
     public List<Area> findByNombre(String nombre) {
         List<Area> areas = new ArrayList<>();
-        String sql = "SELECT * FROM Area WHERE nombreArea LIKE ? ORDER BY nombreArea";
+        String sql = "SELECT " + COLUMNAS + " FROM Area a WHERE nombreArea LIKE ? ORDER BY nombreArea";
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = connector.getConn();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setString(1, "%" + nombre + "%");
             
             try (ResultSet rs = stmt.executeQuery()) {
@@ -150,13 +274,20 @@ public class AreaDAO {
     
     /**
      * Mapea un ResultSet a un objeto Area
-     * @param rs ResultSet con los datos
+     * @param rs ResultSet con las columnas de COLUMNAS
      * @return objeto Area
      */
     private Area mapResultSetToArea(ResultSet rs) throws SQLException {
         Area area = new Area();
-        area.setIdArea(rs.getLong("idArea"));
-        area.setNombreArea(rs.getString("nombreArea"));
+        area.setIdArea(rs.getLong(1));
+        area.setNombreArea(rs.getString(2));
         return area;
     }
+    
+    /**
+     * Copia un área para que la cache no comparta objetos con quien la usa
+     */
+    private static Area copiar(Area a) {
+        return new Area(a.getIdArea(), a.getNombreArea());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,81 @@
+package dao;
+
+import modelo.Cliente;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Versión asíncrona de ClienteDAO
+ * Cada operación se ejecuta en el ejecutor compartido con su propia
+ * conexión del pool y devuelve un CompletableFuture, para lanzar varias
+ * consultas independientes a la vez sin bloquear el hilo que las pide.
+ * Las operaciones no participan de una transacción abierta con
+ * TransactionManager en el hilo que las lanza.
+ */
+public class AsyncClienteDAO {
+    
+    private final ClienteDAO dao;
+    
+    public AsyncClienteDAO() throws SQLException {
+        this.dao = new ClienteDAO();
+    }
+    
+    /**
+     * Inserta un cliente (la persona debe existir)
+     * @see ClienteDAO#insert(Cliente)
+     */
+    public CompletableFuture<Boolean> insert(Cliente cliente) {
+        return EjecutorAsync.ejecutar(() -> dao.insert(cliente));
+    }
+    
+    /**
+     * Inserta un cliente completo (persona + cliente + correos)
+     * @see ClienteDAO#insertCompleto(Cliente)
+     */
+    public CompletableFuture<Boolean> insertCompleto(Cliente cliente) {
+        return EjecutorAsync.ejecutar(() -> dao.insertCompleto(cliente));
+    }
+    
+    /**
+     * Elimina un cliente
+     * @see ClienteDAO#delete(Long)
+     */
+    public CompletableFuture<Boolean> delete(Long cedulaPer) {
+        return EjecutorAsync.ejecutar(() -> dao.delete(cedulaPer));
+    }
+    
+    /**
+     * Busca un cliente por su cédula
+     * @see ClienteDAO#findById(Long)
+     */
+    public CompletableFuture<Cliente> findById(Long cedulaPer) {
+        return EjecutorAsync.ejecutar(() -> dao.findById(cedulaPer));
+    }
+    
+    /**
+     * Busca varios clientes por su cédula
+     * @see ClienteDAO#findByIds(Collection)
+     */
+    public CompletableFuture<Map<Long, Cliente>> findByIds(Collection<Long> ids) {
+        return EjecutorAsync.ejecutar(() -> dao.findByIds(ids));
+    }
+    
+    /**
+     * Obtiene todos los clientes
+     * @see ClienteDAO#findAll()
+     */
+    public CompletableFuture<List<Cliente>> findAll() {
+        return EjecutorAsync.ejecutar(() -> dao.findAll());
+    }
+    
+    /**
+     * Obtiene una página de clientes
+     * @see ClienteDAO#findPage(Long, int)
+     */
+    public CompletableFuture<List<Cliente>> findPage(Long afterCedula, int limit) {
+        return EjecutorAsync.ejecutar(() -> dao.findPage(afterCedula, limit));
+    }
+}
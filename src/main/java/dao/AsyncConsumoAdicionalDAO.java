@@ -0,0 +1,137 @@
+package dao;
+
+import modelo.ConsumoAdicional;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Versión asíncrona de ConsumoAdicionalDAO
+ * Cada operación se ejecuta en el ejecutor compartido con su propia
+ * conexión del pool y devuelve un CompletableFuture, para lanzar varias
+ * consultas independientes a la vez sin bloquear el hilo que las pide.
+ * Las operaciones no participan de una transacción abierta con
+ * TransactionManager en el hilo que las lanza.
+ */
+public class AsyncConsumoAdicionalDAO {
+    
+    private final ConsumoAdicionalDAO dao;
+    
+    public AsyncConsumoAdicionalDAO() throws SQLException {
+        this.dao = new ConsumoAdicionalDAO();
+    }
+    
+    /**
+     * Inserta un consumo
+     * @see ConsumoAdicionalDAO#insert(ConsumoAdicional)
+     */
+    public CompletableFuture<Boolean> insert(ConsumoAdicional consumo) {
+        return EjecutorAsync.ejecutar(() -> dao.insert(consumo));
+    }
+    
+    /**
+     * Inserta muchos consumos por lotes
+     * @see ConsumoAdicionalDAO#insertBatch(List)
+     */
+    public CompletableFuture<ResultadoLote> insertBatch(List<ConsumoAdicional> consumos) {
+        return EjecutorAsync.ejecutar(() -> dao.insertBatch(consumos));
+    }
+    
+    /**
+     * Elimina un consumo
+     * @see ConsumoAdicionalDAO#delete(LocalDate, LocalTime, LocalDate, Integer, Long, Long)
+     */
+    public CompletableFuture<Boolean> delete(LocalDate fechaConsumo, LocalTime horaConsumo, LocalDate fechaLlegada, Integer numeroHab, Long cedulaPer, Long idServicio) {
+        return EjecutorAsync.ejecutar(() -> dao.delete(fechaConsumo, horaConsumo, fechaLlegada, numeroHab, cedulaPer, idServicio));
+    }
+    
+    /**
+     * Busca un consumo por su llave
+     * @see ConsumoAdicionalDAO#findById(LocalDate, LocalTime, LocalDate, Integer, Long, Long)
+     */
+    public CompletableFuture<ConsumoAdicional> findById(LocalDate fechaConsumo, LocalTime horaConsumo, LocalDate fechaLlegada, Integer numeroHab, Long cedulaPer, Long idServicio) {
+        return EjecutorAsync.ejecutar(() -> dao.findById(fechaConsumo, horaConsumo, fechaLlegada, numeroHab, cedulaPer, idServicio));
+    }
+    
+    /**
+     * Obtiene todos los consumos
+     * @see ConsumoAdicionalDAO#findAll()
+     */
+    public CompletableFuture<List<ConsumoAdicional>> findAll() {
+        return EjecutorAsync.ejecutar(() -> dao.findAll());
+    }
+    
+    /**
+     * Obtiene los consumos de una reserva
+     * @see ConsumoAdicionalDAO#findByReserva(Long, Integer, LocalDate)
+     */
+    public CompletableFuture<List<ConsumoAdicional>> findByReserva(Long cedulaPer, Integer numeroHab, LocalDate fechaLlegada) {
+        return EjecutorAsync.ejecutar(() -> dao.findByReserva(cedulaPer, numeroHab, fechaLlegada));
+    }
+    
+    /**
+     * Obtiene los consumos de un cliente
+     * @see ConsumoAdicionalDAO#findByCliente(Long)
+     */
+    public CompletableFuture<List<ConsumoAdicional>> findByCliente(Long cedulaPer) {
+        return EjecutorAsync.ejecutar(() -> dao.findByCliente(cedulaPer));
+    }
+    
+    /**
+     * Obtiene los consumos de un servicio
+     * @see ConsumoAdicionalDAO#findByServicio(Long)
+     */
+    public CompletableFuture<List<ConsumoAdicional>> findByServicio(Long idServicio) {
+        return EjecutorAsync.ejecutar(() -> dao.findByServicio(idServicio));
+    }
+    
+    /**
+     * Obtiene los consumos de una fecha
+     * @see ConsumoAdicionalDAO#findByFecha(LocalDate)
+     */
+    public CompletableFuture<List<ConsumoAdicional>> findByFecha(LocalDate fecha) {
+        return EjecutorAsync.ejecutar(() -> dao.findByFecha(fecha));
+    }
+    
+    /**
+     * Obtiene todos los consumos con su servicio
+     * @see ConsumoAdicionalDAO#findAllWithDetails()
+     */
+    public CompletableFuture<List<ConsumoAdicional>> findAllWithDetails() {
+        return EjecutorAsync.ejecutar(() -> dao.findAllWithDetails());
+    }
+    
+    /**
+     * Obtiene una página de consumos
+     * @see ConsumoAdicionalDAO#findPage(ConsumoAdicional, int)
+     */
+    public CompletableFuture<List<ConsumoAdicional>> findPage(ConsumoAdicional after, int limit) {
+        return EjecutorAsync.ejecutar(() -> dao.findPage(after, limit));
+    }
+    
+    /**
+     * Obtiene una página de consumos con su servicio
+     * @see ConsumoAdicionalDAO#findPageWithDetails(ConsumoAdicional, int)
+     */
+    public CompletableFuture<List<ConsumoAdicional>> findPageWithDetails(ConsumoAdicional after, int limit) {
+        return EjecutorAsync.ejecutar(() -> dao.findPageWithDetails(after, limit));
+    }
+    
+    /**
+     * Calcula el total de los consumos de una reserva
+     * @see ConsumoAdicionalDAO#calcularTotalReserva(Long, Integer, LocalDate)
+     */
+    public CompletableFuture<Double> calcularTotalReserva(Long cedulaPer, Integer numeroHab, LocalDate fechaLlegada) {
+        return EjecutorAsync.ejecutar(() -> dao.calcularTotalReserva(cedulaPer, numeroHab, fechaLlegada));
+    }
+    
+    /**
+     * Obtiene las estadísticas de consumo por servicio
+     * @see ConsumoAdicionalDAO#getEstadisticasConsumo()
+     */
+    public CompletableFuture<List<Object[]>> getEstadisticasConsumo() {
+        return EjecutorAsync.ejecutar(() -> dao.getEstadisticasConsumo());
+    }
+}
@@ -0,0 +1,130 @@
+package dao;
+
+import modelo.Habitacion;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Versión asíncrona de HabitacionDAO
+ * Cada operación se ejecuta en el ejecutor compartido con su propia
+ * conexión del pool y devuelve un CompletableFuture, para lanzar varias
+ * consultas independientes a la vez sin bloquear el hilo que las pide.
+ * Las operaciones no participan de una transacción abierta con
+ * TransactionManager en el hilo que las lanza.
+ */
+public class AsyncHabitacionDAO {
+    
+    private final HabitacionDAO dao;
+    
+    public AsyncHabitacionDAO() throws SQLException {
+        this.dao = new HabitacionDAO();
+    }
+    
+    /**
+     * Inserta una habitación
+     * @see HabitacionDAO#insert(Habitacion)
+     */
+    public CompletableFuture<Boolean> insert(Habitacion habitacion) {
+        return EjecutorAsync.ejecutar(() -> dao.insert(habitacion));
+    }
+    
+    /**
+     * Actualiza una habitación
+     * @see HabitacionDAO#update(Habitacion)
+     */
+    public CompletableFuture<Boolean> update(Habitacion habitacion) {
+        return EjecutorAsync.ejecutar(() -> dao.update(habitacion));
+    }
+    
+    /**
+     * Elimina una habitación
+     * @see HabitacionDAO#delete(Integer)
+     */
+    public CompletableFuture<Boolean> delete(Integer numeroHab) {
+        return EjecutorAsync.ejecutar(() -> dao.delete(numeroHab));
+    }
+    
+    /**
+     * Busca una habitación por su número
+     * @see HabitacionDAO#findById(Integer)
+     */
+    public CompletableFuture<Habitacion> findById(Integer numeroHab) {
+        return EjecutorAsync.ejecutar(() -> dao.findById(numeroHab));
+    }
+    
+    /**
+     * Busca varias habitaciones por su número
+     * @see HabitacionDAO#findByIds(Collection)
+     */
+    public CompletableFuture<Map<Integer, Habitacion>> findByIds(Collection<Integer> ids) {
+        return EjecutorAsync.ejecutar(() -> dao.findByIds(ids));
+    }
+    
+    /**
+     * Obtiene todas las habitaciones
+     * @see HabitacionDAO#findAll()
+     */
+    public CompletableFuture<List<Habitacion>> findAll() {
+        return EjecutorAsync.ejecutar(() -> dao.findAll());
+    }
+    
+    /**
+     * Obtiene una página de habitaciones
+     * @see HabitacionDAO#findPage(Integer, int)
+     */
+    public CompletableFuture<List<Habitacion>> findPage(Integer afterNumeroHab, int limit) {
+        return EjecutorAsync.ejecutar(() -> dao.findPage(afterNumeroHab, limit));
+    }
+    
+    /**
+     * Obtiene las habitaciones de una categoría
+     * @see HabitacionDAO#findByCategoria(String)
+     */
+    public CompletableFuture<List<Habitacion>> findByCategoria(String categoria) {
+        return EjecutorAsync.ejecutar(() -> dao.findByCategoria(categoria));
+    }
+    
+    /**
+     * Obtiene las habitaciones disponibles
+     * @see HabitacionDAO#findDisponibles()
+     */
+    public CompletableFuture<List<Habitacion>> findDisponibles() {
+        return EjecutorAsync.ejecutar(() -> dao.findDisponibles());
+    }
+    
+    /**
+     * Obtiene las habitaciones libres en un rango de fechas
+     * @see HabitacionDAO#findDisponiblesEntre(LocalDate, LocalDate, String)
+     */
+    public CompletableFuture<List<Habitacion>> findDisponiblesEntre(LocalDate llegada, LocalDate salida, String categoria) {
+        return EjecutorAsync.ejecutar(() -> dao.findDisponiblesEntre(llegada, salida, categoria));
+    }
+    
+    /**
+     * Cambia el estado de una habitación
+     * @see HabitacionDAO#updateEstado(Integer, String)
+     */
+    public CompletableFuture<Boolean> updateEstado(Integer numeroHab, String nuevoEstado) {
+        return EjecutorAsync.ejecutar(() -> dao.updateEstado(numeroHab, nuevoEstado));
+    }
+    
+    /**
+     * Inserta o actualiza una habitación
+     * @see HabitacionDAO#upsert(Habitacion)
+     */
+    public CompletableFuture<ResultadoUpsert> upsert(Habitacion habitacion) {
+        return EjecutorAsync.ejecutar(() -> dao.upsert(habitacion));
+    }
+    
+    /**
+     * Inserta o actualiza muchas habitaciones
+     * @see HabitacionDAO#upsertBatch(List)
+     */
+    public CompletableFuture<List<ResultadoUpsert>> upsertBatch(List<Habitacion> habitaciones) {
+        return EjecutorAsync.ejecutar(() -> dao.upsertBatch(habitaciones));
+    }
+}
@@ -0,0 +1,136 @@
+package dao;
+
+import modelo.Reserva;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Versión asíncrona de ReservaDAO
+ * Cada operación se ejecuta en el ejecutor compartido con su propia
+ * conexión del pool y devuelve un CompletableFuture, para lanzar varias
+ * consultas independientes a la vez sin bloquear el hilo que las pide.
+ * Las operaciones no participan de una transacción abierta con
+ * TransactionManager en el hilo que las lanza.
+ */
+public class AsyncReservaDAO {
+    
+    private final ReservaDAO dao;
+    
+    public AsyncReservaDAO() throws SQLException {
+        this.dao = new ReservaDAO();
+    }
+    
+    /**
+     * Inserta una reserva
+     * @see ReservaDAO#insert(Reserva)
+     */
+    public CompletableFuture<Boolean> insert(Reserva reserva) {
+        return EjecutorAsync.ejecutar(() -> dao.insert(reserva));
+    }
+    
+    /**
+     * Inserta muchas reservas por lotes
+     * @see ReservaDAO#insertBatch(List)
+     */
+    public CompletableFuture<ResultadoLote> insertBatch(List<Reserva> reservas) {
+        return EjecutorAsync.ejecutar(() -> dao.insertBatch(reservas));
+    }
+    
+    /**
+     * Actualiza una reserva, incluida su llave
+     * @see ReservaDAO#update(Reserva, Long, Integer, LocalDate)
+     */
+    public CompletableFuture<Boolean> update(Reserva reserva, Long oldCedulaPer, Integer oldNumeroHab, LocalDate oldFechaLlegada) {
+        return EjecutorAsync.ejecutar(() -> dao.update(reserva, oldCedulaPer, oldNumeroHab, oldFechaLlegada));
+    }
+    
+    /**
+     * Actualiza la fecha de salida y el tiempo de cancelación
+     * @see ReservaDAO#updateFechas(Long, Integer, LocalDate, LocalDate, Integer)
+     */
+    public CompletableFuture<Boolean> updateFechas(Long cedulaPer, Integer numeroHab, LocalDate fechaLlegada, LocalDate nuevaFechaSalida, Integer nuevoTiempoCancel) {
+        return EjecutorAsync.ejecutar(() -> dao.updateFechas(cedulaPer, numeroHab, fechaLlegada, nuevaFechaSalida, nuevoTiempoCancel));
+    }
+    
+    /**
+     * Elimina una reserva
+     * @see ReservaDAO#delete(Long, Integer, LocalDate)
+     */
+    public CompletableFuture<Boolean> delete(Long cedulaPer, Integer numeroHab, LocalDate fechaLlegada) {
+        return EjecutorAsync.ejecutar(() -> dao.delete(cedulaPer, numeroHab, fechaLlegada));
+    }
+    
+    /**
+     * Indica si una habitación tiene reservas que se cruzan con el rango
+     * @see ReservaDAO#hayConflicto(Integer, LocalDate, LocalDate)
+     */
+    public CompletableFuture<Boolean> hayConflicto(Integer numeroHab, LocalDate llegada, LocalDate salida) {
+        return EjecutorAsync.ejecutar(() -> dao.hayConflicto(numeroHab, llegada, salida));
+    }
+    
+    /**
+     * Busca una reserva por su llave
+     * @see ReservaDAO#findById(Long, Integer, LocalDate)
+     */
+    public CompletableFuture<Reserva> findById(Long cedulaPer, Integer numeroHab, LocalDate fechaLlegada) {
+        return EjecutorAsync.ejecutar(() -> dao.findById(cedulaPer, numeroHab, fechaLlegada));
+    }
+    
+    /**
+     * Obtiene todas las reservas
+     * @see ReservaDAO#findAll()
+     */
+    public CompletableFuture<List<Reserva>> findAll() {
+        return EjecutorAsync.ejecutar(() -> dao.findAll());
+    }
+    
+    /**
+     * Obtiene las reservas de un cliente
+     * @see ReservaDAO#findByCliente(Long)
+     */
+    public CompletableFuture<List<Reserva>> findByCliente(Long cedulaPer) {
+        return EjecutorAsync.ejecutar(() -> dao.findByCliente(cedulaPer));
+    }
+    
+    /**
+     * Obtiene las reservas de una habitación
+     * @see ReservaDAO#findByHabitacion(Integer)
+     */
+    public CompletableFuture<List<Reserva>> findByHabitacion(Integer numeroHab) {
+        return EjecutorAsync.ejecutar(() -> dao.findByHabitacion(numeroHab));
+    }
+    
+    /**
+     * Obtiene las reservas activas
+     * @see ReservaDAO#findReservasActivas()
+     */
+    public CompletableFuture<List<Reserva>> findReservasActivas() {
+        return EjecutorAsync.ejecutar(() -> dao.findReservasActivas());
+    }
+    
+    /**
+     * Obtiene todas las reservas con cliente y habitación
+     * @see ReservaDAO#findAllWithDetails()
+     */
+    public CompletableFuture<List<Reserva>> findAllWithDetails() {
+        return EjecutorAsync.ejecutar(() -> dao.findAllWithDetails());
+    }
+    
+    /**
+     * Obtiene una página de reservas
+     * @see ReservaDAO#findPage(LocalDate, Long, Integer, int)
+     */
+    public CompletableFuture<List<Reserva>> findPage(LocalDate afterFechaLlegada, Long afterCedulaPer, Integer afterNumeroHab, int limit) {
+        return EjecutorAsync.ejecutar(() -> dao.findPage(afterFechaLlegada, afterCedulaPer, afterNumeroHab, limit));
+    }
+    
+    /**
+     * Obtiene una página de reservas con cliente y habitación
+     * @see ReservaDAO#findPageWithDetails(LocalDate, Long, Integer, int)
+     */
+    public CompletableFuture<List<Reserva>> findPageWithDetails(LocalDate afterFechaLlegada, Long afterCedulaPer, Integer afterNumeroHab, int limit) {
+        return EjecutorAsync.ejecutar(() -> dao.findPageWithDetails(afterFechaLlegada, afterCedulaPer, afterNumeroHab, limit));
+    }
+}
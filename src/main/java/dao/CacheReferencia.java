@@ -0,0 +1,284 @@
+package dao;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+import db.DBConnection;
+import db.TransactionManager;
+
+/**
+ * Cache LRU acotada para tablas de referencia pequeñas (Habitacion, Servicio, Area)
+ * Guarda copias de las entidades y entrega copias, para que modificar un
+ * objeto devuelto no altere la cache. Los DAOs la mantienen al día en cada
+ * escritura (write-through). Los cambios hechos desde otras terminales se
+ * ven cuando vence la entrada (MINUTOS_VIGENCIA después de leerla) o al
+ * llamar a limpiar().
+ *
+ * Cada escritura aumenta una generación: el DAO la toma antes de consultar
+ * y put/putTodos descartan el resultado si entretanto hubo una escritura,
+ * para no guardar datos leídos antes de ella.
+ *
+ * Dentro de una transacción de TransactionManager las escrituras, y las
+ * lecturas que pueden ver datos aún sin confirmar, se aplican a la cache
+ * recién al confirmarse; si se deshace, la cache no cambia.
+ */
+public final class CacheReferencia<K, V> {
+    
+    // Tiempo que una entidad leída se sirve desde memoria
+    static final long MINUTOS_VIGENCIA = 5;
+    
+    private final int capacidad;
+    private final long vigencia;
+    private final UnaryOperator<V> copia;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    
+    // Orden de acceso: la entrada más antigua es la menos usada recientemente
+    private final LinkedHashMap<K, Entrada<V>> entradas = new LinkedHashMap<>(16, 0.75f, true);
+    
+    // Resultado completo de findAll, null mientras no esté cargado, y cuándo vence
+    private List<V> todos;
+    private long todosVence;
+    
+    private long generacion;
+    
+    CacheReferencia(int capacidad, UnaryOperator<V> copia) {
+        this.capacidad = capacidad;
+        this.vigencia = TimeUnit.MINUTES.toNanos(MINUTOS_VIGENCIA);
+        this.copia = copia;
+    }
+    
+    /**
+     * Busca una entidad por su clave
+     * @param clave clave de la entidad
+     * @return copia de la entidad o null si no está en la cache
+     */
+    synchronized V get(K clave) {
+        Entrada<V> entrada = entradas.get(clave);
+        if (entrada != null && vencida(entrada.vence)) {
+            entradas.remove(clave);
+            entrada = null;
+        }
+        if (entrada == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return copia.apply(entrada.valor);
+    }
+    
+    /**
+     * Generación actual; el DAO la toma antes de consultar la base de datos
+     * y la entrega a put o putTodos
+     * @return número de escrituras aplicadas hasta ahora
+     */
+    synchronized long getGeneracion() {
+        return generacion;
+    }
+    
+    /**
+     * Guarda una entidad leída de la base de datos, al confirmarse la
+     * transacción de la lectura si hay una abierta
+     * @param pool pool de la conexión con la que se leyó
+     * @param generacion generación tomada antes de la lectura
+     * @param clave clave de la entidad
+     * @param valor entidad a guardar (se guarda una copia)
+     */
+    void put(DBConnection pool, long generacion, K clave, V valor) {
+        V guardado = copia.apply(valor);
+        TransactionManager.alConfirmar(pool, () -> aplicarLeido(generacion, clave, guardado));
+    }
+    
+    /**
+     * Guarda una entidad recién insertada o actualizada en la base de datos,
+     * al confirmarse la escritura
+     * @param pool pool de la conexión con la que se escribió
+     * @param clave clave de la entidad
+     * @param valor entidad escrita (se guarda una copia)
+     */
+    void guardar(DBConnection pool, K clave, V valor) {
+        V guardado = copia.apply(valor);
+        TransactionManager.alConfirmar(pool, () -> aplicarGuardar(clave, guardado));
+    }
+    
+    /**
+     * Modifica la entidad guardada, si está en la cache, al confirmarse la escritura
+     * @param pool pool de la conexión con la que se escribió
+     * @param clave clave de la entidad
+     * @param cambio modificación a aplicar
+     */
+    void actualizar(DBConnection pool, K clave, Consumer<V> cambio) {
+        TransactionManager.alConfirmar(pool, () -> aplicarActualizar(clave, cambio));
+    }
+    
+    /**
+     * Quita una entidad de la cache al confirmarse su eliminación
+     * @param pool pool de la conexión con la que se eliminó
+     * @param clave clave de la entidad
+     */
+    void remove(DBConnection pool, K clave) {
+        TransactionManager.alConfirmar(pool, () -> aplicarRemove(clave));
+    }
+    
+    /**
+     * Obtiene el resultado completo de findAll si está cargado
+     * @return copias de todas las entidades o null si no está en la cache
+     */
+    synchronized List<V> getTodos() {
+        if (todos != null && vencida(todosVence)) {
+            todos = null;
+        }
+        if (todos == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        List<V> resultado = new ArrayList<>(todos.size());
+        for (V valor : todos) {
+            resultado.add(copia.apply(valor));
+        }
+        return resultado;
+    }
+    
+    /**
+     * Guarda el resultado completo de findAll, al confirmarse la transacción
+     * de la lectura si hay una abierta. Si la tabla no cabe en la cache solo
+     * se guardan las entidades individuales más recientes.
+     * @param pool pool de la conexión con la que se leyó
+     * @param generacion generación tomada antes de la lectura
+     * @param valores todas las entidades de la tabla, en el orden de findAll
+     * @param clave función que obtiene la clave de cada entidad
+     */
+    void putTodos(DBConnection pool, long generacion, List<V> valores, Function<V, K> clave) {
+        List<V> copias = new ArrayList<>(valores.size());
+        for (V valor : valores) {
+            copias.add(copia.apply(valor));
+        }
+        TransactionManager.alConfirmar(pool, () -> aplicarPutTodos(generacion, copias, clave));
+    }
+    
+    /**
+     * Vacía la cache por completo
+     */
+    public synchronized void limpiar() {
+        entradas.clear();
+        todos = null;
+        generacion++;
+    }
+    
+    /**
+     * Número de búsquedas resueltas desde memoria
+     * @return aciertos acumulados
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+    
+    /**
+     * Número de búsquedas que tuvieron que ir a la base de datos
+     * @return fallos acumulados
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+    
+    /**
+     * Número de entidades guardadas
+     * @return tamaño actual de la cache
+     */
+    public synchronized int getTamano() {
+        return entradas.size();
+    }
+    
+    public int getCapacidad() {
+        return capacidad;
+    }
+    
+    @Override
+    public String toString() {
+        return "CacheReferencia{tamano=" + getTamano() + ", capacidad=" + capacidad +
+               ", hits=" + getHits() + ", misses=" + getMisses() + "}";
+    }
+    
+    private synchronized void aplicarPut(K clave, V guardado) {
+        entradas.put(clave, new Entrada<>(guardado, System.nanoTime() + vigencia));
+        desalojar();
+    }
+    
+    private synchronized void aplicarLeido(long generacion, K clave, V guardado) {
+        if (generacion == this.generacion) {
+            aplicarPut(clave, guardado);
+        }
+    }
+    
+    private synchronized void aplicarGuardar(K clave, V guardado) {
+        aplicarPut(clave, guardado);
+        todos = null;
+        generacion++;
+    }
+    
+    private synchronized void aplicarActualizar(K clave, Consumer<V> cambio) {
+        Entrada<V> entrada = entradas.get(clave);
+        if (entrada != null) {
+            cambio.accept(entrada.valor);
+        }
+        todos = null;
+        generacion++;
+    }
+    
+    private synchronized void aplicarRemove(K clave) {
+        entradas.remove(clave);
+        todos = null;
+        generacion++;
+    }
+    
+    private synchronized void aplicarPutTodos(long generacion, List<V> copias, Function<V, K> clave) {
+        if (generacion != this.generacion) {
+            return;
+        }
+        long vence = System.nanoTime() + vigencia;
+        for (V guardado : copias) {
+            entradas.put(clave.apply(guardado), new Entrada<>(guardado, vence));
+        }
+        todos = copias.size() <= capacidad ? copias : null;
+        todosVence = vence;
+        desalojar();
+    }
+    
+    private static boolean vencida(long vence) {
+        return System.nanoTime() - vence > 0;
+    }
+    
+    /**
+     * Expulsa las entradas menos usadas que exceden la capacidad
+     */
+    private void desalojar() {
+        Iterator<Map.Entry<K, Entrada<V>>> it = entradas.entrySet().iterator();
+        while (entradas.size() > capacidad && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+    
+    /**
+     * Entidad guardada y el instante (System.nanoTime) en que vence
+     */
+    private static final class Entrada<V> {
+        
+        private final V valor;
+        private final long vence;
+        
+        Entrada(V valor, long vence) {
+            this.valor = valor;
+            this.vence = vence;
+        }
+    }
+}
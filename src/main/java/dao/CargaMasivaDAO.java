@@ -0,0 +1,145 @@
+package dao;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.sql.*;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+
+import db.DBConnection;
+import db.PostgreSQLConnection;
+
+/**
+ * Carga masiva de huéspedes con COPY
+ * El archivo se copia tal cual a una tabla temporal y desde allí se
+ * combinan Persona, Cliente, Correo y TelefonoPer con una sentencia por
+ * tabla, en lugar de una inserción por fila.
+ */
+public class CargaMasivaDAO {
+    
+    private static final String SQL_STAGING =
+            "CREATE TEMP TABLE carga_huesped (" +
+            "linea bigint GENERATED ALWAYS AS IDENTITY, " +
+            "cedulaPer text, primerNom text, segundoNom text, primerApell text, segundoApell text, " +
+            "calle text, carrera text, numero text, complemento text, correos text, telefonos text, " +
+            "error text) ON COMMIT DROP";
+    
+    private static final String SQL_COPY =
+            "COPY carga_huesped (cedulaPer, primerNom, segundoNom, primerApell, segundoApell, " +
+            "calle, carrera, numero, complemento, correos, telefonos) " +
+            "FROM STDIN WITH (FORMAT csv, HEADER true)";
+    
+    // Validaciones en orden (mensaje, condición): cada fila guarda el primer error que encuentra
+    private static final String[][] VALIDACIONES = {
+        {"cédula inválida", "cedulaPer IS NULL OR trim(cedulaPer) !~ '^[0-9]{1,18}$'"},
+        {"primer nombre vacío", "coalesce(trim(primerNom), '') = ''"},
+        {"primer apellido vacío", "coalesce(trim(primerApell), '') = ''"},
+        {"correo inválido", "EXISTS (SELECT 1 FROM unnest(string_to_array(correos, ';')) AS x " +
+                            "WHERE trim(x) <> '' AND trim(x) !~ '^[^@[:space:]]+@[^@[:space:]]+$')"},
+        {"teléfono inválido", "EXISTS (SELECT 1 FROM unnest(string_to_array(telefonos, ';')) AS x " +
+                              "WHERE trim(x) <> '' AND trim(x) !~ '^[0-9]{1,18}$')"}
+    };
+    
+    // Si una cédula se repite en el archivo solo vale su última línea
+    private static final String SQL_REPETIDAS =
+            "UPDATE carga_huesped c SET error = 'cédula repetida, se usa la línea ' || u.ultima " +
+            "FROM (SELECT trim(cedulaPer) AS cedula, max(linea) AS ultima FROM carga_huesped " +
+            "      WHERE error IS NULL GROUP BY trim(cedulaPer) HAVING count(*) > 1) u " +
+            "WHERE c.error IS NULL AND trim(c.cedulaPer) = u.cedula AND c.linea <> u.ultima";
+    
+    private static final String SQL_MERGE_PERSONA =
+            "INSERT INTO Persona (cedulaPer, primerNom, segundoNom, primerApell, segundoApell, " +
+            "calle, carrera, numero, complemento) " +
+            "SELECT trim(cedulaPer)::bigint, trim(primerNom), nullif(trim(segundoNom), ''), " +
+            "trim(primerApell), nullif(trim(segundoApell), ''), nullif(trim(calle), ''), " +
+            "nullif(trim(carrera), ''), nullif(trim(numero), ''), nullif(trim(complemento), '') " +
+            "FROM carga_huesped WHERE error IS NULL " +
+            "ON CONFLICT (cedulaPer) DO UPDATE SET primerNom = EXCLUDED.primerNom, " +
+            "segundoNom = EXCLUDED.segundoNom, primerApell = EXCLUDED.primerApell, " +
+            "segundoApell = EXCLUDED.segundoApell, calle = EXCLUDED.calle, " +
+            "carrera = EXCLUDED.carrera, numero = EXCLUDED.numero, complemento = EXCLUDED.complemento";
+    
+    private static final String SQL_MERGE_CLIENTE =
+            "INSERT INTO Cliente (cedulaPer) " +
+            "SELECT trim(cedulaPer)::bigint FROM carga_huesped WHERE error IS NULL " +
+            "ON CONFLICT DO NOTHING";
+    
+    private static final String SQL_MERGE_CORREO =
+            "INSERT INTO Correo (cedulaPer, correo) " +
+            "SELECT DISTINCT trim(c.cedulaPer)::bigint, trim(x) " +
+            "FROM carga_huesped c CROSS JOIN LATERAL unnest(string_to_array(c.correos, ';')) AS x " +
+            "WHERE c.error IS NULL AND trim(x) <> '' " +
+            "ON CONFLICT DO NOTHING";
+    
+    private static final String SQL_MERGE_TELEFONO =
+            "INSERT INTO TelefonoPer (cedulaPer, telefonoPer) " +
+            "SELECT DISTINCT trim(c.cedulaPer)::bigint, trim(x)::bigint " +
+            "FROM carga_huesped c CROSS JOIN LATERAL unnest(string_to_array(c.telefonos, ';')) AS x " +
+            "WHERE c.error IS NULL AND trim(x) <> '' " +
+            "ON CONFLICT DO NOTHING";
+    
+    private final DBConnection connector;
+    
+    public CargaMasivaDAO() throws SQLException {
+        this.connector = PostgreSQLConnection.getConnector();
+    }
+    
+    /**
+     * Importa huéspedes (personas que quedan registradas como clientes) desde un CSV
+     * El archivo debe tener encabezado y las columnas:
+     * cedulaPer, primerNom, segundoNom, primerApell, segundoApell, calle,
+     * carrera, numero, complemento, correos, telefonos. Los correos y
+     * teléfonos de una persona van separados por ';' dentro de su columna.
+     * Las personas existentes se actualizan; sus correos y teléfonos se agregan.
+     * Todo se guarda en una sola transacción: si el archivo está mal formado
+     * no se importa nada.
+     * @param csv contenido del archivo
+     * @return huéspedes importados y filas rechazadas (por número de línea
+     *         de datos, sin contar el encabezado), o null si la importación falló
+     */
+    public ResultadoLote importarHuespedes(Reader csv) {
+        ResultadoLote resultado = new ResultadoLote();
+        
+        try (Connection connection = connector.getConn()) {
+            connection.setAutoCommit(false);
+            
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute(SQL_STAGING);
+                
+                CopyManager copy = connection.unwrap(PGConnection.class).getCopyAPI();
+                copy.copyIn(SQL_COPY, csv);
+                stmt.execute("ANALYZE carga_huesped");
+                
+                for (String[] validacion : VALIDACIONES) {
+                    stmt.executeUpdate("UPDATE carga_huesped SET error = '" + validacion[0] + "' " +
+                                       "WHERE error IS NULL AND (" + validacion[1] + ")");
+                }
+                stmt.executeUpdate(SQL_REPETIDAS);
+                
+                resultado.registrarExitos(stmt.executeUpdate(SQL_MERGE_PERSONA));
+                stmt.executeUpdate(SQL_MERGE_CLIENTE);
+                stmt.executeUpdate(SQL_MERGE_CORREO);
+                stmt.executeUpdate(SQL_MERGE_TELEFONO);
+                
+                try (ResultSet rs = stmt.executeQuery(
+                        "SELECT linea, error FROM carga_huesped WHERE error IS NOT NULL ORDER BY linea")) {
+                    while (rs.next()) {
+                        resultado.registrarFallo(rs.getInt(1), rs.getString(2));
+                    }
+                }
+                
+                connection.commit();
+                
+            } catch (SQLException | IOException e) {
+                connection.rollback();
+                System.err.println("Error al importar huéspedes: " + e.getMessage());
+                return null;
+            }
+        } catch (SQLException e) {
+            System.err.println("Error al importar huéspedes: " + e.getMessage());
+            return null;
+        }
+        return resultado;
+    }
+}
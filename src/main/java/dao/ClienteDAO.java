@@ -2,11 +2,19 @@ package dao;
 
 
 import modelo.Cliente;
+import modelo.ClienteResumen;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
+import db.DBConnection;
 import db.PostgreSQLConnection;
+import db.TransactionManager;
+import db.TransactionManager.Propagacion;
 
 /**
  * DAO para la tabla Cliente
@@ -14,10 +22,36 @@ import db.PostgreSQLConnection;
  */
 public class ClienteDAO {
     
-    private Connection connection;
+    private static final String SQL_CLIENTES = "SELECT " + PersonaDAO.COLUMNAS + " " +
+                     "FROM Persona p " +
+                     "INNER JOIN Cliente c ON p.cedulaPer = c.cedulaPer ";
+    
+    // Listado resumido con los correos unidos, en el orden en que lo lee mapResultSetToResumen
+    private static final String SQL_RESUMEN = "SELECT p.cedulaPer, p.primerNom || ' ' || p.primerApell, " +
+                     "coalesce(string_agg(co.correo, ', ' ORDER BY co.correo), '') " +
+                     "FROM Persona p " +
+                     "INNER JOIN Cliente c ON p.cedulaPer = c.cedulaPer " +
+                     "LEFT JOIN Correo co ON c.cedulaPer = co.cedulaPer " +
+                     "GROUP BY p.cedulaPer ORDER BY p.cedulaPer";
+    
+    // Páginas del listado resumido: primero se eligen las cédulas de la página
+    // y solo se unen los correos de esos clientes
+    private static final String SQL_PAGINA_RESUMEN_INICIO =
+                     "SELECT p.cedulaPer, p.primerNom || ' ' || p.primerApell, " +
+                     "coalesce(string_agg(co.correo, ', ' ORDER BY co.correo), '') " +
+                     "FROM (SELECT cedulaPer FROM Cliente ";
+    private static final String SQL_PAGINA_RESUMEN_FIN =
+                     ") c " +
+                     "INNER JOIN Persona p ON p.cedulaPer = c.cedulaPer " +
+                     "LEFT JOIN Correo co ON c.cedulaPer = co.cedulaPer " +
+                     "GROUP BY p.cedulaPer ORDER BY p.cedulaPer";
+    
+    private final DBConnection connector;
+    private final PersonaDAO personaDAO;
     
     public ClienteDAO() throws SQLException {
-        this.connection = PostgreSQLConnection.getConnector().getConn();
+        this.connector = PostgreSQLConnection.getConnector();
+        this.personaDAO = new PersonaDAO();
     }
     
     /**
@@ -27,19 +61,8 @@ public class ClienteDAO {
      * @return true si se insertó correctamente
      */
     public boolean insert(Cliente cliente) {
-        String sql = "INSERT INTO Cliente (cedulaPer) VALUES (?)";
-        
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setLong(1, cliente.getCedulaPer());
-            
-            int rowsAffected = stmt.executeUpdate();
-            
-            // Insertar correos si existen
-            if (rowsAffected > 0 && cliente.getCorreos() != null) {
-                insertCorreos(cliente.getCedulaPer(), cliente.getCorreos());
-            }
-            
-            return rowsAffected > 0;
+        try (Connection connection = connector.getConn()) {
+            return insert(connection, cliente);
             
         } catch (SQLException e) {
             System.err.println("Error al insertar cliente: " + e.getMessage());
@@ -54,38 +77,18 @@ public class ClienteDAO {
      */
     public boolean insertCompleto(Cliente cliente) {
         try {
-            connection.setAutoCommit(false);
-            
-            // Insertar persona
-            PersonaDAO personaDAO = new PersonaDAO();
-            if (!personaDAO.insert(cliente)) {
-                connection.rollback();
-                return false;
-            }
-            
-            // Insertar cliente
-            if (!insert(cliente)) {
-                connection.rollback();
-                return false;
-            }
-            
-            connection.commit();
-            return true;
+            return TransactionManager.ejecutar(connector, Propagacion.REQUIRED, () -> {
+                // Los dos DAOs usan la conexión de la transacción
+                if (!personaDAO.insert(cliente) || !insert(cliente)) {
+                    TransactionManager.setRollbackOnly();
+                    return false;
+                }
+                return true;
+            });
             
         } catch (SQLException e) {
-            try {
-                connection.rollback();
-            } catch (SQLException ex) {
-                System.err.println("Error en rollback: " + ex.getMessage());
-            }
             System.err.println("Error al insertar cliente completo: " + e.getMessage());
             return false;
-        } finally {
-            try {
-                connection.setAutoCommit(true);
-            } catch (SQLException e) {
-                System.err.println("Error al restaurar autocommit: " + e.getMessage());
-            }
         }
     }
     
@@ -97,7 +100,8 @@ public class ClienteDAO {
     public boolean delete(Long cedulaPer) {
         String sql = "DELETE FROM Cliente WHERE cedulaPer = ?";
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = connector.getConn();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setLong(1, cedulaPer);
             
             int rowsAffected = stmt.executeUpdate();
@@ -115,46 +119,76 @@ public class ClienteDAO {
      * @return objeto Cliente o null si no se encuentra
      */
     public Cliente findById(Long cedulaPer) {
-        String sql = "SELECT p.*, c.cedulaPer as cliente_cedula " +
-                     "FROM Persona p " +
-                     "INNER JOIN Cliente c ON p.cedulaPer = c.cedulaPer " +
-                     "WHERE c.cedulaPer = ?";
+        String sql = SQL_CLIENTES + "WHERE c.cedulaPer = ?";
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = connector.getConn();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setLong(1, cedulaPer);
             
+            Cliente cliente = null;
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
-                    Cliente cliente = mapResultSetToCliente(rs);
-                    cliente.setCorreos(getCorreos(cedulaPer));
-                    return cliente;
+                    cliente = mapResultSetToCliente(rs);
                 }
             }
+            if (cliente != null) {
+                cargarCorreos(connection, List.of(cliente));
+            }
+            return cliente;
         } catch (SQLException e) {
             System.err.println("Error al buscar cliente: " + e.getMessage());
         }
         return null;
     }
     
+    /**
+     * Busca varios clientes en una sola consulta
+     * @param ids cédulas de los clientes a buscar
+     * @return mapa cédula -> Cliente, solo con los que existen
+     */
+    public Map<Long, Cliente> findByIds(Collection<Long> ids) {
+        Map<Long, Cliente> resultado = new LinkedHashMap<>();
+        if (ids.isEmpty()) {
+            return resultado;
+        }
+        String sql = SQL_CLIENTES + "WHERE c.cedulaPer = ANY(?) ORDER BY c.cedulaPer";
+        
+        try (Connection connection = connector.getConn();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
+            Array idsArray = connection.createArrayOf("bigint", ids.toArray());
+            stmt.setArray(1, idsArray);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Cliente cliente = mapResultSetToCliente(rs);
+                    resultado.put(cliente.getCedulaPer(), cliente);
+                }
+            } finally {
+                idsArray.free();
+            }
+            cargarCorreos(connection, new ArrayList<>(resultado.values()));
+        } catch (SQLException e) {
+            System.err.println("Error al buscar clientes: " + e.getMessage());
+        }
+        return resultado;
+    }
+    
     /**
      * Obtiene todos los clientes
      * @return lista de clientes
      */
     public List<Cliente> findAll() {
         List<Cliente> clientes = new ArrayList<>();
-        String sql = "SELECT p.*, c.cedulaPer as cliente_cedula " +
-                     "FROM Persona p " +
-                     "INNER JOIN Cliente c ON p.cedulaPer = c.cedulaPer " +
-                     "ORDER BY p.cedulaPer";
+        String sql = SQL_CLIENTES + "ORDER BY p.cedulaPer";
         
-        try (Statement stmt = connection.createStatement();
+        try (Connection connection = connector.getConn();
+             Statement stmt = connection.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
             
             while (rs.next()) {
-                Cliente cliente = mapResultSetToCliente(rs);
-                cliente.setCorreos(getCorreos(cliente.getCedulaPer()));
-                clientes.add(cliente);
+                clientes.add(mapResultSetToCliente(rs));
             }
+            cargarCorreos(connection, clientes);
             
         } catch (SQLException e) {
             System.err.println("Error al obtener clientes: " + e.getMessage());
@@ -162,12 +196,187 @@ public class ClienteDAO {
         return clientes;
     }
     
+    /**
+     * Obtiene el listado resumido de clientes, con sus correos unidos en una
+     * sola columna por la misma consulta
+     * @return lista de filas resumidas, en el mismo orden que findAll
+     */
+    public List<ClienteResumen> findAllResumen() {
+        List<ClienteResumen> clientes = new ArrayList<>();
+        
+        try (Connection connection = connector.getConn();
+             Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery(SQL_RESUMEN)) {
+            
+            while (rs.next()) {
+                clientes.add(mapResultSetToResumen(rs));
+            }
+            
+        } catch (SQLException e) {
+            System.err.println("Error al obtener resumen de clientes: " + e.getMessage());
+        }
+        return clientes;
+    }
+    
+    /**
+     * Recorre el listado resumido de clientes con un cursor del servidor,
+     * entregando las filas a medida que llegan
+     * @param consumidor acción a ejecutar con cada fila, en el orden de findAllResumen
+     * @return true si se recorrieron todas las filas
+     */
+    public boolean streamAllResumen(Consumer<? super ClienteResumen> consumidor) {
+        try {
+            ConsultaCursor.recorrer(connector, SQL_RESUMEN, ClienteDAO::mapResultSetToResumen, consumidor);
+            return true;
+            
+        } catch (SQLException e) {
+            System.err.println("Error al recorrer resumen de clientes: " + e.getMessage());
+            return false;
+        }
+    }
+    
+    /**
+     * Cuenta los clientes registrados
+     * @return número de clientes, o -1 si hubo un error
+     */
+    public long count() {
+        try (Connection connection = connector.getConn();
+             Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT count(*) FROM Cliente")) {
+            
+            rs.next();
+            return rs.getLong(1);
+            
+        } catch (SQLException e) {
+            System.err.println("Error al contar clientes: " + e.getMessage());
+            return -1;
+        }
+    }
+    
+    /**
+     * Obtiene una página del listado resumido ordenada por cédula, continuando
+     * después de la última fila de la página anterior (paginación por clave)
+     * @param afterCedula última cédula de la página anterior, o null para la primera página
+     * @param limit número máximo de filas a devolver
+     * @return filas resumidas de la página
+     */
+    public List<ClienteResumen> findPageResumen(Long afterCedula, int limit) {
+        List<ClienteResumen> clientes = new ArrayList<>();
+        String sql = afterCedula == null
+                ? SQL_PAGINA_RESUMEN_INICIO + "ORDER BY cedulaPer LIMIT ?" + SQL_PAGINA_RESUMEN_FIN
+                : SQL_PAGINA_RESUMEN_INICIO + "WHERE cedulaPer > ? ORDER BY cedulaPer LIMIT ?"
+                  + SQL_PAGINA_RESUMEN_FIN;
+        
+        try (Connection connection = connector.getConn();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
+            int i = 1;
+            if (afterCedula != null) {
+                stmt.setLong(i++, afterCedula);
+            }
+            stmt.setInt(i, limit);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    clientes.add(mapResultSetToResumen(rs));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error al obtener página de clientes: " + e.getMessage());
+        }
+        return clientes;
+    }
+    
+    /**
+     * Obtiene una página del listado resumido por posición. En posiciones
+     * altas es más lenta que findPageResumen, que conviene usar cuando se
+     * conoce la última fila de la página anterior.
+     * @param offset número de filas que se saltan
+     * @param limit número máximo de filas a devolver
+     * @return filas resumidas de la página
+     */
+    public List<ClienteResumen> findPageResumenAt(long offset, int limit) {
+        List<ClienteResumen> clientes = new ArrayList<>();
+        String sql = SQL_PAGINA_RESUMEN_INICIO + "ORDER BY cedulaPer LIMIT ? OFFSET ?" + SQL_PAGINA_RESUMEN_FIN;
+        
+        try (Connection connection = connector.getConn();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setInt(1, limit);
+            stmt.setLong(2, offset);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    clientes.add(mapResultSetToResumen(rs));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error al obtener página de clientes: " + e.getMessage());
+        }
+        return clientes;
+    }
+    
+    /**
+     * Obtiene una página de clientes ordenada por cédula, continuando
+     * después de la última fila de la página anterior (paginación por clave)
+     * @param afterCedula última cédula de la página anterior, o null para la primera página
+     * @param limit número máximo de clientes a devolver
+     * @return lista de clientes de la página
+     */
+    public List<Cliente> findPage(Long afterCedula, int limit) {
+        List<Cliente> clientes = new ArrayList<>();
+        String sql = afterCedula == null
+                ? SQL_CLIENTES + "ORDER BY p.cedulaPer LIMIT ?"
+                : SQL_CLIENTES + "WHERE p.cedulaPer > ? ORDER BY p.cedulaPer LIMIT ?";
+        
+        try (Connection connection = connector.getConn();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
+            int i = 1;
+            if (afterCedula != null) {
+                stmt.setLong(i++, afterCedula);
+            }
+            stmt.setInt(i, limit);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    clientes.add(mapResultSetToCliente(rs));
+                }
+            }
+            cargarCorreos(connection, clientes);
+        } catch (SQLException e) {
+            System.err.println("Error al obtener página de clientes: " + e.getMessage());
+        }
+        return clientes;
+    }
+    
+    /**
+     * Inserta un cliente y sus correos usando la conexión recibida
+     * @param connection conexión sobre la que se ejecuta la operación
+     * @param cliente objeto Cliente a insertar
+     * @return true si se insertó correctamente
+     */
+    private boolean insert(Connection connection, Cliente cliente) throws SQLException {
+        String sql = "INSERT INTO Cliente (cedulaPer) VALUES (?)";
+        
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setLong(1, cliente.getCedulaPer());
+            
+            int rowsAffected = stmt.executeUpdate();
+            
+            // Insertar correos si existen
+            if (rowsAffected > 0 && cliente.getCorreos() != null) {
+                insertCorreos(connection, cliente.getCedulaPer(), cliente.getCorreos());
+            }
+            
+            return rowsAffected > 0;
+        }
+    }
+    
     /**
      * Inserta correos para un cliente
+     * @param connection conexión sobre la que se ejecuta la operación
      * @param cedulaPer cédula del cliente
      * @param correos lista de correos
      */
-    private void insertCorreos(Long cedulaPer, List<String> correos) {
+    private void insertCorreos(Connection connection, Long cedulaPer, List<String> correos) {
         String sql = "INSERT INTO Correo (cedulaPer, correo) VALUES (?, ?)";
         
         try (PreparedStatement stmt = connection.prepareStatement(sql)) {
@@ -182,26 +391,28 @@ public class ClienteDAO {
     }
     
     /**
-     * Obtiene los correos de un cliente
-     * @param cedulaPer cédula del cliente
-     * @return lista de correos
+     * Asigna sus correos a una lista de clientes con la carga por lotes de
+     * CorreoDAO (una consulta por cada lote de cédulas, no una por cliente)
+     * @param connection conexión sobre la que se ejecutan las consultas
+     * @param clientes clientes a completar
      */
-    private List<String> getCorreos(Long cedulaPer) {
-        List<String> correos = new ArrayList<>();
-        String sql = "SELECT correo FROM Correo WHERE cedulaPer = ?";
+    private void cargarCorreos(Connection connection, List<Cliente> clientes) throws SQLException {
+        List<Long> cedulas = new ArrayList<>(clientes.size());
+        for (Cliente cliente : clientes) {
+            cedulas.add(cliente.getCedulaPer());
+        }
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setLong(1, cedulaPer);
-            
-            try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    correos.add(rs.getString("correo"));
-                }
-            }
-        } catch (SQLException e) {
-            System.err.println("Error al obtener correos: " + e.getMessage());
+        Map<Long, List<String>> correos = CorreoDAO.findByClientes(connection, cedulas);
+        for (Cliente cliente : clientes) {
+            cliente.setCorreos(correos.get(cliente.getCedulaPer()));
         }
-        return correos;
+    }
+    
+    /**
+     * Mapea una fila de SQL_RESUMEN
+     */
+    private static ClienteResumen mapResultSetToResumen(ResultSet rs) throws SQLException {
+        return new ClienteResumen(rs.getLong(1), rs.getString(2), rs.getString(3));
     }
     
     /**
@@ -211,15 +422,7 @@ public class ClienteDAO {
      */
     private Cliente mapResultSetToCliente(ResultSet rs) throws SQLException {
         Cliente cliente = new Cliente();
-        cliente.setCedulaPer(rs.getLong("cedulaPer"));
-        cliente.setPrimerNom(rs.getString("primerNom"));
-        cliente.setSegundoNom(rs.getString("segundoNom"));
-        cliente.setPrimerApell(rs.getString("primerApell"));
-        cliente.setSegundoApell(rs.getString("segundoApell"));
-        cliente.setCalle(rs.getString("calle"));
-        cliente.setCarrera(rs.getString("carrera"));
-        cliente.setNumero(rs.getString("numero"));
-        cliente.setComplemento(rs.getString("complemento"));
+        PersonaDAO.cargarPersona(rs, cliente);
         return cliente;
     }
 }
\ No newline at end of file
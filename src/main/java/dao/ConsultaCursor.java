@@ -0,0 +1,57 @@
+package dao;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.function.Consumer;
+
+import db.DBConnection;
+
+/**
+ * Ejecuta consultas con un cursor del servidor (fetchSize + sin autocommit)
+ * para que las filas se mapeen y entreguen a medida que llegan, sin
+ * materializar el resultado completo en memoria
+ */
+final class ConsultaCursor {
+    
+    // Filas que se traen del servidor en cada viaje
+    static final int TAMANO_FETCH = 500;
+    
+    private ConsultaCursor() {
+    }
+    
+    /**
+     * Recorre el resultado de una consulta entregando cada fila mapeada al consumidor
+     * @param connector origen de las conexiones
+     * @param sql consulta a ejecutar
+     * @param mapper conversión de cada fila
+     * @param consumidor acción a ejecutar con cada objeto
+     * @return número de filas procesadas
+     * @throws SQLException si hay un error en la consulta
+     */
+    static <T> long recorrer(DBConnection connector, String sql, RowMapper<T> mapper,
+                             Consumer<? super T> consumidor) throws SQLException {
+        long filas = 0;
+        
+        try (Connection connection = connector.getConn()) {
+            // pgjdbc solo usa cursores dentro de una transacción
+            connection.setAutoCommit(false);
+            
+            try (Statement stmt = connection.createStatement(ResultSet.TYPE_FORWARD_ONLY,
+                                                             ResultSet.CONCUR_READ_ONLY)) {
+                stmt.setFetchSize(TAMANO_FETCH);
+                
+                try (ResultSet rs = stmt.executeQuery(sql)) {
+                    while (rs.next()) {
+                        consumidor.accept(mapper.map(rs));
+                        filas++;
+                    }
+                }
+            }
+            
+            connection.commit();
+        }
+        return filas;
+    }
+}
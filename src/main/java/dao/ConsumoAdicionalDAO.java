@@ -3,12 +3,17 @@ package dao;
 
 import modelo.ConsumoAdicional;
 import modelo.Servicio;
+import java.math.BigDecimal;
 import java.sql.*;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
+import db.DBConnection;
 import db.PostgreSQLConnection;
 
 /**
@@ -17,10 +22,41 @@ import db.PostgreSQLConnection;
  */
 public class ConsumoAdicionalDAO {
     
-    private Connection connection;
+    private static final String SQL_INSERT =
+                     "INSERT INTO ConsumoAdicional (fechaConsumo, horaConsumo, fechaLlegada, " +
+                     "numeroHab, cedulaPer, idServicio) VALUES (?, ?, ?, ?, ?, ?)";
+    
+    // Columnas en el orden en que las lee mapResultSetToConsumoAdicional
+    static final String COLUMNAS = "c.fechaConsumo, c.horaConsumo, c.fechaLlegada, c.numeroHab, c.cedulaPer, c.idServicio";
+    
+    private static final String SQL_DETAILS =
+                     "SELECT " + COLUMNAS + ", s.nomServicio, s.contenidoServicio, s.costoServicio " +
+                     "FROM ConsumoAdicional c " +
+                     "INNER JOIN Servicio s ON c.idServicio = s.idServicio ";
+    
+    private static final String SQL_ALL_WITH_DETAILS =
+                     SQL_DETAILS + "ORDER BY c.fechaConsumo DESC, c.horaConsumo DESC";
+    
+    // Paginación por clave: el orden de findAll completado con la llave primaria
+    private static final String PAGE_AFTER =
+                     "WHERE (c.fechaConsumo, c.horaConsumo, c.fechaLlegada, c.numeroHab, c.cedulaPer) " +
+                     "< (?, ?, ?, ?, ?) ";
+    private static final String PAGE_ORDER =
+                     "ORDER BY c.fechaConsumo DESC, c.horaConsumo DESC, c.fechaLlegada DESC, " +
+                     "c.numeroHab DESC, c.cedulaPer DESC LIMIT ?";
+    
+    private static final String SQL_ESTADISTICAS =
+                     "SELECT s.idServicio, s.nomServicio, COUNT(*) as cantidad, " +
+                     "SUM(s.costoServicio) as total " +
+                     "FROM ConsumoAdicional c " +
+                     "INNER JOIN Servicio s ON c.idServicio = s.idServicio ";
+    
+    private final DBConnection connector;
+    private final ServicioDAO servicioDAO;
     
     public ConsumoAdicionalDAO() throws SQLException {
-        this.connection = PostgreSQLConnection.getConnector().getConn();
+        this.connector = PostgreSQLConnection.getConnector();
+        this.servicioDAO = new ServicioDAO();
     }
     
     /**
@@ -29,16 +65,9 @@ public class ConsumoAdicionalDAO {
      * @return true si se insertó correctamente
      */
     public boolean insert(ConsumoAdicional consumo) {
-        String sql = "INSERT INTO ConsumoAdicional (fechaConsumo, horaConsumo, fechaLlegada, " +
-                     "numeroHab, cedulaPer, idServicio) VALUES (?, ?, ?, ?, ?, ?)";
-        
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setDate(1, Date.valueOf(consumo.getFechaConsumo()));
-            stmt.setTime(2, Time.valueOf(consumo.getHoraConsumo()));
-            stmt.setDate(3, Date.valueOf(consumo.getFechaLlegada()));
-            stmt.setInt(4, consumo.getNumeroHab());
-            stmt.setLong(5, consumo.getCedulaPer());
-            stmt.setLong(6, consumo.getIdServicio());
+        try (Connection connection = connector.getConn();
+             PreparedStatement stmt = connection.prepareStatement(SQL_INSERT)) {
+            vincularInsert(stmt, consumo);
             
             int rowsAffected = stmt.executeUpdate();
             return rowsAffected > 0;
@@ -49,6 +78,18 @@ public class ConsumoAdicionalDAO {
         }
     }
     
+    /**
+     * Inserta muchos consumos (p. ej. la descarga del punto de venta al
+     * cierre de turno) en lotes de 1000 filas por transacción. Las filas
+     * con error se informan en el resultado sin impedir que se guarden las demás.
+     * @param consumos consumos a insertar
+     * @return consumos guardados y fallidos (por posición en la lista)
+     */
+    public ResultadoLote insertBatch(List<ConsumoAdicional> consumos) {
+        return InsercionPorLotes.insertar(connector, SQL_INSERT, consumos,
+                                          ConsumoAdicionalDAO::vincularInsert, consumo -> { });
+    }
+    
     /**
      * Elimina un consumo adicional específico
      * @param fechaConsumo fecha del consumo
@@ -64,7 +105,8 @@ public class ConsumoAdicionalDAO {
         String sql = "DELETE FROM ConsumoAdicional WHERE fechaConsumo = ? AND horaConsumo = ? " +
                      "AND fechaLlegada = ? AND numeroHab = ? AND cedulaPer = ? AND idServicio = ?";
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = connector.getConn();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setDate(1, Date.valueOf(fechaConsumo));
             stmt.setTime(2, Time.valueOf(horaConsumo));
             stmt.setDate(3, Date.valueOf(fechaLlegada));
@@ -88,10 +130,12 @@ public class ConsumoAdicionalDAO {
     public ConsumoAdicional findById(LocalDate fechaConsumo, LocalTime horaConsumo, 
                                      LocalDate fechaLlegada, Integer numeroHab, 
                                      Long cedulaPer, Long idServicio) {
-        String sql = "SELECT * FROM ConsumoAdicional WHERE fechaConsumo = ? AND horaConsumo = ? " +
+        String sql = "SELECT " + COLUMNAS + " FROM ConsumoAdicional c " +
+                     "WHERE fechaConsumo = ? AND horaConsumo = ? " +
                      "AND fechaLlegada = ? AND numeroHab = ? AND cedulaPer = ? AND idServicio = ?";
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = connector.getConn();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setDate(1, Date.valueOf(fechaConsumo));
             stmt.setTime(2, Time.valueOf(horaConsumo));
             stmt.setDate(3, Date.valueOf(fechaLlegada));
@@ -116,9 +160,11 @@ public class ConsumoAdicionalDAO {
      */
     public List<ConsumoAdicional> findAll() {
         List<ConsumoAdicional> consumos = new ArrayList<>();
-        String sql = "SELECT * FROM ConsumoAdicional ORDER BY fechaConsumo DESC, horaConsumo DESC";
+        String sql = "SELECT " + COLUMNAS + " FROM ConsumoAdicional c " +
+                     "ORDER BY fechaConsumo DESC, horaConsumo DESC";
         
-        try (Statement stmt = connection.createStatement();
+        try (Connection connection = connector.getConn();
+             Statement stmt = connection.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
             
             while (rs.next()) {
@@ -141,10 +187,12 @@ public class ConsumoAdicionalDAO {
     public List<ConsumoAdicional> findByReserva(Long cedulaPer, Integer numeroHab, 
                                                 LocalDate fechaLlegada) {
         List<ConsumoAdicional> consumos = new ArrayList<>();
-        String sql = "SELECT * FROM ConsumoAdicional WHERE cedulaPer = ? AND numeroHab = ? " +
+        String sql = "SELECT " + COLUMNAS + " FROM ConsumoAdicional c " +
+                     "WHERE cedulaPer = ? AND numeroHab = ? " +
                      "AND fechaLlegada = ? ORDER BY fechaConsumo, horaConsumo";
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = connector.getConn();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setLong(1, cedulaPer);
             stmt.setInt(2, numeroHab);
             stmt.setDate(3, Date.valueOf(fechaLlegada));
@@ -167,10 +215,11 @@ public class ConsumoAdicionalDAO {
      */
     public List<ConsumoAdicional> findByCliente(Long cedulaPer) {
         List<ConsumoAdicional> consumos = new ArrayList<>();
-        String sql = "SELECT * FROM ConsumoAdicional WHERE cedulaPer = ? " +
+        String sql = "SELECT " + COLUMNAS + " FROM ConsumoAdicional c WHERE cedulaPer = ? " +
                      "ORDER BY fechaConsumo DESC, horaConsumo DESC";
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = connector.getConn();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setLong(1, cedulaPer);
             
             try (ResultSet rs = stmt.executeQuery()) {
@@ -191,10 +240,11 @@ public class ConsumoAdicionalDAO {
      */
     public List<ConsumoAdicional> findByServicio(Long idServicio) {
         List<ConsumoAdicional> consumos = new ArrayList<>();
-        String sql = "SELECT * FROM ConsumoAdicional WHERE idServicio = ? " +
+        String sql = "SELECT " + COLUMNAS + " FROM ConsumoAdicional c WHERE idServicio = ? " +
                      "ORDER BY fechaConsumo DESC, horaConsumo DESC";
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = connector.getConn();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setLong(1, idServicio);
             
             try (ResultSet rs = stmt.executeQuery()) {
@@ -215,10 +265,11 @@ public class ConsumoAdicionalDAO {
      */
     public List<ConsumoAdicional> findByFecha(LocalDate fecha) {
         List<ConsumoAdicional> consumos = new ArrayList<>();
-        String sql = "SELECT * FROM ConsumoAdicional WHERE fechaConsumo = ? " +
+        String sql = "SELECT " + COLUMNAS + " FROM ConsumoAdicional c WHERE fechaConsumo = ? " +
                      "ORDER BY horaConsumo";
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = connector.getConn();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setDate(1, Date.valueOf(fecha));
             
             try (ResultSet rs = stmt.executeQuery()) {
@@ -238,26 +289,14 @@ public class ConsumoAdicionalDAO {
      */
     public List<ConsumoAdicional> findAllWithDetails() {
         List<ConsumoAdicional> consumos = new ArrayList<>();
-        String sql = "SELECT c.*, s.nomServicio, s.contenidoServicio, s.costoServicio " +
-                     "FROM ConsumoAdicional c " +
-                     "INNER JOIN Servicio s ON c.idServicio = s.idServicio " +
-                     "ORDER BY c.fechaConsumo DESC, c.horaConsumo DESC";
+        String sql = SQL_ALL_WITH_DETAILS;
         
-        try (Statement stmt = connection.createStatement();
+        try (Connection connection = connector.getConn();
+             Statement stmt = connection.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
             
             while (rs.next()) {
-                ConsumoAdicional consumo = mapResultSetToConsumoAdicional(rs);
-                
-                // Crear objeto Servicio relacionado
-                Servicio servicio = new Servicio();
-                servicio.setIdServicio(rs.getLong("idServicio"));
-                servicio.setNomServicio(rs.getString("nomServicio"));
-                servicio.setContenidoServicio(rs.getString("contenidoServicio"));
-                servicio.setCostoServicio(rs.getBigDecimal("costoServicio"));
-                
-                consumo.setServicio(servicio);
-                consumos.add(consumo);
+                consumos.add(mapResultSetToConsumoConServicio(rs));
             }
             
         } catch (SQLException e) {
@@ -266,33 +305,100 @@ public class ConsumoAdicionalDAO {
         return consumos;
     }
     
+    /**
+     * Obtiene una página de consumos en el orden de findAll (fecha y hora
+     * descendentes), continuando después del último consumo de la página anterior
+     * @param after último consumo de la página anterior, o null para la primera página
+     * @param limit número máximo de consumos a devolver
+     * @return lista de consumos de la página
+     */
+    public List<ConsumoAdicional> findPage(ConsumoAdicional after, int limit) {
+        return findPage("SELECT " + COLUMNAS + " FROM ConsumoAdicional c ", after, limit, false);
+    }
+    
+    /**
+     * Obtiene una página de consumos con información del servicio, con el
+     * mismo orden y claves que findPage
+     * @param after último consumo de la página anterior, o null para la primera página
+     * @param limit número máximo de consumos a devolver
+     * @return lista de consumos con el servicio relacionado
+     */
+    public List<ConsumoAdicional> findPageWithDetails(ConsumoAdicional after, int limit) {
+        return findPage(SQL_DETAILS, after, limit, true);
+    }
+    
+    private List<ConsumoAdicional> findPage(String select, ConsumoAdicional after, int limit,
+                                            boolean conDetalles) {
+        List<ConsumoAdicional> consumos = new ArrayList<>();
+        String sql = after == null
+                ? select + PAGE_ORDER
+                : select + PAGE_AFTER + PAGE_ORDER;
+        
+        try (Connection connection = connector.getConn();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
+            int i = 1;
+            if (after != null) {
+                stmt.setDate(i++, Date.valueOf(after.getFechaConsumo()));
+                stmt.setTime(i++, Time.valueOf(after.getHoraConsumo()));
+                stmt.setDate(i++, Date.valueOf(after.getFechaLlegada()));
+                stmt.setInt(i++, after.getNumeroHab());
+                stmt.setLong(i++, after.getCedulaPer());
+            }
+            stmt.setInt(i, limit);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    consumos.add(conDetalles ? mapResultSetToConsumoConServicio(rs)
+                                             : mapResultSetToConsumoAdicional(rs));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error al obtener página de consumos: " + e.getMessage());
+        }
+        return consumos;
+    }
+    
     /**
      * Calcula el total de consumos de una reserva
+     * Solo se cuentan los consumos por servicio; los precios se toman de la
+     * cache de servicios en lugar de unir con la tabla Servicio.
      * @param cedulaPer cédula del cliente
      * @param numeroHab número de habitación
      * @param fechaLlegada fecha de llegada
      * @return total de consumos
      */
     public double calcularTotalReserva(Long cedulaPer, Integer numeroHab, LocalDate fechaLlegada) {
-        String sql = "SELECT SUM(s.costoServicio) as total " +
-                     "FROM ConsumoAdicional c " +
-                     "INNER JOIN Servicio s ON c.idServicio = s.idServicio " +
-                     "WHERE c.cedulaPer = ? AND c.numeroHab = ? AND c.fechaLlegada = ?";
+        String sql = "SELECT idServicio, COUNT(*) as cantidad " +
+                     "FROM ConsumoAdicional " +
+                     "WHERE cedulaPer = ? AND numeroHab = ? AND fechaLlegada = ? " +
+                     "GROUP BY idServicio";
+        Map<Long, Long> cantidades = new HashMap<>();
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = connector.getConn();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setLong(1, cedulaPer);
             stmt.setInt(2, numeroHab);
             stmt.setDate(3, Date.valueOf(fechaLlegada));
             
             try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getDouble("total");
+                while (rs.next()) {
+                    cantidades.put(rs.getLong(1), rs.getLong(2));
                 }
             }
         } catch (SQLException e) {
             System.err.println("Error al calcular total de reserva: " + e.getMessage());
+            return 0.0;
+        }
+        
+        Map<Long, Servicio> servicios = servicioDAO.findByIds(cantidades.keySet());
+        BigDecimal total = BigDecimal.ZERO;
+        for (Map.Entry<Long, Long> entry : cantidades.entrySet()) {
+            Servicio servicio = servicios.get(entry.getKey());
+            if (servicio != null && servicio.getCostoServicio() != null) {
+                total = total.add(servicio.getCostoServicio().multiply(BigDecimal.valueOf(entry.getValue())));
+            }
         }
-        return 0.0;
+        return total.doubleValue();
     }
     
     /**
@@ -301,24 +407,13 @@ public class ConsumoAdicionalDAO {
      */
     public List<Object[]> getEstadisticasConsumo() {
         List<Object[]> estadisticas = new ArrayList<>();
-        String sql = "SELECT s.idServicio, s.nomServicio, COUNT(*) as cantidad, " +
-                     "SUM(s.costoServicio) as total " +
-                     "FROM ConsumoAdicional c " +
-                     "INNER JOIN Servicio s ON c.idServicio = s.idServicio " +
-                     "GROUP BY s.idServicio, s.nomServicio " +
-                     "ORDER BY cantidad DESC";
+        String sql = SQL_ESTADISTICAS + "GROUP BY s.idServicio, s.nomServicio ORDER BY cantidad DESC";
         
-        try (Statement stmt = connection.createStatement();
+        try (Connection connection = connector.getConn();
+             Statement stmt = connection.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
             
-            while (rs.next()) {
-                Object[] stats = new Object[4];
-                stats[0] = rs.getLong("idServicio");
-                stats[1] = rs.getString("nomServicio");
-                stats[2] = rs.getInt("cantidad");
-                stats[3] = rs.getDouble("total");
-                estadisticas.add(stats);
-            }
+            leerEstadisticas(rs, estadisticas);
             
         } catch (SQLException e) {
             System.err.println("Error al obtener estadísticas: " + e.getMessage());
@@ -326,19 +421,129 @@ public class ConsumoAdicionalDAO {
         return estadisticas;
     }
     
+    /**
+     * Obtiene estadísticas de consumo por servicio entre dos fechas. Solo
+     * se leen las particiones mensuales de ese rango.
+     * @param desde primera fecha de consumo (incluida)
+     * @param hasta última fecha de consumo (incluida)
+     * @return ID de servicio, nombre, cantidad de consumos y total
+     */
+    public List<Object[]> getEstadisticasConsumo(LocalDate desde, LocalDate hasta) {
+        List<Object[]> estadisticas = new ArrayList<>();
+        String sql = SQL_ESTADISTICAS + "WHERE c.fechaConsumo >= ? AND c.fechaConsumo < ? " +
+                     "GROUP BY s.idServicio, s.nomServicio ORDER BY cantidad DESC";
+        
+        try (Connection connection = connector.getConn();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setDate(1, Date.valueOf(desde));
+            stmt.setDate(2, Date.valueOf(hasta.plusDays(1)));
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                leerEstadisticas(rs, estadisticas);
+            }
+        } catch (SQLException e) {
+            System.err.println("Error al obtener estadísticas: " + e.getMessage());
+        }
+        return estadisticas;
+    }
+    
+    /**
+     * Recorre todos los consumos adicionales con un cursor del servidor,
+     * entregándolos al consumidor a medida que llegan
+     * @param consumidor acción a ejecutar con cada consumo
+     * @return true si se recorrieron todos los consumos
+     */
+    public boolean streamAll(Consumer<? super ConsumoAdicional> consumidor) {
+        String sql = "SELECT " + COLUMNAS + " FROM ConsumoAdicional c " +
+                     "ORDER BY fechaConsumo DESC, horaConsumo DESC";
+        
+        try {
+            ConsultaCursor.recorrer(connector, sql, this::mapResultSetToConsumoAdicional, consumidor);
+            return true;
+            
+        } catch (SQLException e) {
+            System.err.println("Error al recorrer consumos adicionales: " + e.getMessage());
+            return false;
+        }
+    }
+    
+    /**
+     * Recorre los consumos con información completa del servicio usando
+     * un cursor del servidor
+     * @param consumidor acción a ejecutar con cada consumo
+     * @return true si se recorrieron todos los consumos
+     */
+    public boolean streamAllWithDetails(Consumer<? super ConsumoAdicional> consumidor) {
+        try {
+            ConsultaCursor.recorrer(connector, SQL_ALL_WITH_DETAILS,
+                                    this::mapResultSetToConsumoConServicio, consumidor);
+            return true;
+            
+        } catch (SQLException e) {
+            System.err.println("Error al recorrer consumos con detalles: " + e.getMessage());
+            return false;
+        }
+    }
+    
+    /**
+     * Agrega a la lista las filas de una consulta de estadísticas
+     */
+    private static void leerEstadisticas(ResultSet rs, List<Object[]> estadisticas) throws SQLException {
+        while (rs.next()) {
+            Object[] stats = new Object[4];
+            stats[0] = rs.getLong(1);
+            stats[1] = rs.getString(2);
+            stats[2] = rs.getInt(3);
+            stats[3] = rs.getDouble(4);
+            estadisticas.add(stats);
+        }
+    }
+    
+    /**
+     * Asigna los parámetros de SQL_INSERT
+     */
+    private static void vincularInsert(PreparedStatement stmt, ConsumoAdicional consumo) throws SQLException {
+        stmt.setDate(1, Date.valueOf(consumo.getFechaConsumo()));
+        stmt.setTime(2, Time.valueOf(consumo.getHoraConsumo()));
+        stmt.setDate(3, Date.valueOf(consumo.getFechaLlegada()));
+        stmt.setInt(4, consumo.getNumeroHab());
+        stmt.setLong(5, consumo.getCedulaPer());
+        stmt.setLong(6, consumo.getIdServicio());
+    }
+    
     /**
      * Mapea un ResultSet a un objeto ConsumoAdicional
-     * @param rs ResultSet con los datos
+     * @param rs ResultSet con las columnas de COLUMNAS
      * @return objeto ConsumoAdicional
      */
     private ConsumoAdicional mapResultSetToConsumoAdicional(ResultSet rs) throws SQLException {
         ConsumoAdicional consumo = new ConsumoAdicional();
-        consumo.setFechaConsumo(rs.getDate("fechaConsumo").toLocalDate());
-        consumo.setHoraConsumo(rs.getTime("horaConsumo").toLocalTime());
-        consumo.setFechaLlegada(rs.getDate("fechaLlegada").toLocalDate());
-        consumo.setNumeroHab(rs.getInt("numeroHab"));
-        consumo.setCedulaPer(rs.getLong("cedulaPer"));
-        consumo.setIdServicio(rs.getLong("idServicio"));
+        consumo.setFechaConsumo(rs.getDate(1).toLocalDate());
+        consumo.setHoraConsumo(rs.getTime(2).toLocalTime());
+        consumo.setFechaLlegada(rs.getDate(3).toLocalDate());
+        consumo.setNumeroHab(rs.getInt(4));
+        consumo.setCedulaPer(rs.getLong(5));
+        consumo.setIdServicio(rs.getLong(6));
+        return consumo;
+    }
+    
+    /**
+     * Mapea un ResultSet de la consulta con detalles a un ConsumoAdicional
+     * con su objeto Servicio
+     * @param rs ResultSet con los datos
+     * @return objeto ConsumoAdicional con el servicio relacionado
+     */
+    private ConsumoAdicional mapResultSetToConsumoConServicio(ResultSet rs) throws SQLException {
+        ConsumoAdicional consumo = mapResultSetToConsumoAdicional(rs);
+        
+        // Crear objeto Servicio relacionado
+        Servicio servicio = new Servicio();
+        servicio.setIdServicio(consumo.getIdServicio());
+        servicio.setNomServicio(rs.getString(7));
+        servicio.setContenidoServicio(rs.getString(8));
+        servicio.setCostoServicio(rs.getBigDecimal(9));
+        
+        consumo.setServicio(servicio);
         return consumo;
     }
 }
\ No newline at end of file
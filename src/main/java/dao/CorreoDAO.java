@@ -3,9 +3,15 @@ package dao;
 import modelo.Correo;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
+import db.DBConnection;
 import db.PostgreSQLConnection;
+import db.TransactionManager;
+import db.TransactionManager.Propagacion;
 
 /**
  * DAO para la tabla Correo
@@ -13,10 +19,32 @@ import db.PostgreSQLConnection;
  */
 public class CorreoDAO {
     
-    private Connection connection;
+    // Cédulas consultadas por viaje en la carga por lotes
+    static final int TAMANO_LOTE = 1000;
+    
+    // Columnas en el orden en que las lee mapResultSetToCorreo
+    static final String COLUMNAS = "cedulaPer, correo";
+    
+    private static final String SQL_UPSERT = "INSERT INTO Correo (cedulaPer, correo) " +
+                     "SELECT * FROM unnest(?::bigint[], ?::text[]) " +
+                     "ON CONFLICT DO NOTHING RETURNING cedulaPer, correo, true AS insertado";
+    
+    private static final String[] TIPOS_UPSERT = {"bigint", "text"};
+    
+    // Sincroniza la lista completa en una sola sentencia: borra lo que ya no
+    // está, inserta lo nuevo y no toca las filas que se mantienen
+    private static final String SQL_SINCRONIZAR =
+            "WITH nuevos AS (SELECT DISTINCT x AS correo FROM unnest(?::text[]) AS x WHERE x IS NOT NULL), " +
+            "borrados AS (DELETE FROM Correo t WHERE t.cedulaPer = ? " +
+            "             AND NOT EXISTS (SELECT 1 FROM nuevos n WHERE n.correo = t.correo) RETURNING 1), " +
+            "insertados AS (INSERT INTO Correo (cedulaPer, correo) SELECT ?, correo FROM nuevos " +
+            "               ON CONFLICT DO NOTHING RETURNING 1) " +
+            "SELECT (SELECT count(*) FROM borrados) AS borrados, (SELECT count(*) FROM insertados) AS insertados";
+    
+    private final DBConnection connector;
     
     public CorreoDAO() throws SQLException {
-        this.connection = PostgreSQLConnection.getConnector().getConn();
+        this.connector = PostgreSQLConnection.getConnector();
     }
     
     /**
@@ -27,7 +55,8 @@ public class CorreoDAO {
     public boolean insert(Correo correo) {
         String sql = "INSERT INTO Correo (cedulaPer, correo) VALUES (?, ?)";
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = connector.getConn();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setLong(1, correo.getCedulaPer());
             stmt.setString(2, correo.getCorreo());
             
@@ -49,33 +78,24 @@ public class CorreoDAO {
     public boolean insertMultiple(Long cedulaPer, List<String> correos) {
         String sql = "INSERT INTO Correo (cedulaPer, correo) VALUES (?, ?)";
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            connection.setAutoCommit(false);
-            
-            for (String correo : correos) {
-                stmt.setLong(1, cedulaPer);
-                stmt.setString(2, correo);
-                stmt.addBatch();
-            }
-            
-            stmt.executeBatch();
-            connection.commit();
-            return true;
+        try {
+            return TransactionManager.ejecutar(connector, Propagacion.REQUIRED, () -> {
+                try (Connection connection = connector.getConn();
+                     PreparedStatement stmt = connection.prepareStatement(sql)) {
+                    for (String correo : correos) {
+                        stmt.setLong(1, cedulaPer);
+                        stmt.setString(2, correo);
+                        stmt.addBatch();
+                    }
+                    
+                    stmt.executeBatch();
+                    return true;
+                }
+            });
             
         } catch (SQLException e) {
-            try {
-                connection.rollback();
-            } catch (SQLException ex) {
-                System.err.println("Error en rollback: " + ex.getMessage());
-            }
             System.err.println("Error al insertar múltiples correos: " + e.getMessage());
             return false;
-        } finally {
-            try {
-                connection.setAutoCommit(true);
-            } catch (SQLException e) {
-                System.err.println("Error al restaurar autocommit: " + e.getMessage());
-            }
         }
     }
     
@@ -88,7 +108,8 @@ public class CorreoDAO {
     public boolean delete(Long cedulaPer, String correo) {
         String sql = "DELETE FROM Correo WHERE cedulaPer = ? AND correo = ?";
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = connector.getConn();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setLong(1, cedulaPer);
             stmt.setString(2, correo);
             
@@ -109,7 +130,8 @@ public class CorreoDAO {
     public boolean deleteAllByCliente(Long cedulaPer) {
         String sql = "DELETE FROM Correo WHERE cedulaPer = ?";
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = connector.getConn();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setLong(1, cedulaPer);
             
             int rowsAffected = stmt.executeUpdate();
@@ -130,12 +152,13 @@ public class CorreoDAO {
         List<String> correos = new ArrayList<>();
         String sql = "SELECT correo FROM Correo WHERE cedulaPer = ? ORDER BY correo";
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = connector.getConn();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setLong(1, cedulaPer);
             
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
-                    correos.add(rs.getString("correo"));
+                    correos.add(rs.getString(1));
                 }
             }
         } catch (SQLException e) {
@@ -144,6 +167,60 @@ public class CorreoDAO {
         return correos;
     }
     
+    /**
+     * Obtiene los correos de varios clientes con una consulta por cada lote de
+     * cédulas, en lugar de una consulta por cliente
+     * @param cedulas cédulas de los clientes
+     * @return mapa cédula -> correos (lista vacía si no tiene)
+     */
+    public Map<Long, List<String>> findByClientes(Collection<Long> cedulas) {
+        try (Connection connection = connector.getConn()) {
+            return findByClientes(connection, cedulas);
+            
+        } catch (SQLException e) {
+            System.err.println("Error al buscar correos de clientes: " + e.getMessage());
+            return new LinkedHashMap<>();
+        }
+    }
+    
+    /**
+     * Carga por lotes de correos usando la conexión recibida
+     * @param connection conexión sobre la que se ejecutan las consultas
+     * @param cedulas cédulas de los clientes
+     * @return mapa cédula -> correos, en el orden de las cédulas recibidas
+     */
+    static Map<Long, List<String>> findByClientes(Connection connection, Collection<Long> cedulas)
+            throws SQLException {
+        Map<Long, List<String>> resultado = new LinkedHashMap<>();
+        for (Long cedula : cedulas) {
+            resultado.putIfAbsent(cedula, new ArrayList<>());
+        }
+        if (resultado.isEmpty()) {
+            return resultado;
+        }
+        
+        String sql = "SELECT " + COLUMNAS + " FROM Correo " +
+                     "WHERE cedulaPer = ANY(?) ORDER BY cedulaPer, correo";
+        List<Long> pendientes = new ArrayList<>(resultado.keySet());
+        
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            for (int desde = 0; desde < pendientes.size(); desde += TAMANO_LOTE) {
+                List<Long> lote = pendientes.subList(desde, Math.min(desde + TAMANO_LOTE, pendientes.size()));
+                Array cedulasArray = connection.createArrayOf("bigint", lote.toArray());
+                stmt.setArray(1, cedulasArray);
+                
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        resultado.get(rs.getLong(1)).add(rs.getString(2));
+                    }
+                } finally {
+                    cedulasArray.free();
+                }
+            }
+        }
+        return resultado;
+    }
+    
     /**
      * Busca todos los registros de correos de un cliente
      * @param cedulaPer cédula del cliente
@@ -151,9 +228,10 @@ public class CorreoDAO {
      */
     public List<Correo> findCorreosCompletos(Long cedulaPer) {
         List<Correo> correos = new ArrayList<>();
-        String sql = "SELECT * FROM Correo WHERE cedulaPer = ? ORDER BY correo";
+        String sql = "SELECT " + COLUMNAS + " FROM Correo WHERE cedulaPer = ? ORDER BY correo";
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = connector.getConn();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setLong(1, cedulaPer);
             
             try (ResultSet rs = stmt.executeQuery()) {
@@ -173,9 +251,10 @@ public class CorreoDAO {
      */
     public List<Correo> findAll() {
         List<Correo> correos = new ArrayList<>();
-        String sql = "SELECT * FROM Correo ORDER BY cedulaPer, correo";
+        String sql = "SELECT " + COLUMNAS + " FROM Correo ORDER BY cedulaPer, correo";
         
-        try (Statement stmt = connection.createStatement();
+        try (Connection connection = connector.getConn();
+             Statement stmt = connection.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
             
             while (rs.next()) {
@@ -188,6 +267,41 @@ public class CorreoDAO {
         return correos;
     }
     
+    /**
+     * Obtiene una página de correos ordenada por cédula y correo,
+     * continuando después del último registro de la página anterior
+     * @param afterCedula cédula del último registro de la página anterior, o null para la primera página
+     * @param afterCorreo correo del último registro de la página anterior
+     * @param limit número máximo de registros a devolver
+     * @return lista de correos de la página
+     */
+    public List<Correo> findPage(Long afterCedula, String afterCorreo, int limit) {
+        List<Correo> correos = new ArrayList<>();
+        String sql = afterCedula == null
+                ? "SELECT " + COLUMNAS + " FROM Correo ORDER BY cedulaPer, correo LIMIT ?"
+                : "SELECT " + COLUMNAS + " FROM Correo " +
+                  "WHERE (cedulaPer, correo) > (?, ?) ORDER BY cedulaPer, correo LIMIT ?";
+        
+        try (Connection connection = connector.getConn();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
+            int i = 1;
+            if (afterCedula != null) {
+                stmt.setLong(i++, afterCedula);
+                stmt.setString(i++, afterCorreo);
+            }
+            stmt.setInt(i, limit);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    correos.add(mapResultSetToCorreo(rs));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error al obtener página de correos: " + e.getMessage());
+        }
+        return correos;
+    }
+    
     /**
      * Verifica si un correo existe para un cliente
      * @param cedulaPer cédula del cliente
@@ -197,7 +311,8 @@ public class CorreoDAO {
     public boolean exists(Long cedulaPer, String correo) {
         String sql = "SELECT COUNT(*) FROM Correo WHERE cedulaPer = ? AND correo = ?";
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = connector.getConn();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setLong(1, cedulaPer);
             stmt.setString(2, correo);
             
@@ -213,40 +328,31 @@ public class CorreoDAO {
     }
     
     /**
-     * Actualiza los correos de un cliente (elimina los existentes e inserta los nuevos)
+     * Actualiza los correos de un cliente para que queden exactamente los de la lista.
+     * Solo se borran los que ya no están y se insertan los nuevos, en una
+     * sola sentencia (atómica aunque no haya transacción abierta).
      * @param cedulaPer cédula del cliente
-     * @param nuevosCorreos lista de nuevos correos
+     * @param nuevosCorreos lista completa de correos
      * @return true si se actualizó correctamente
      */
     public boolean updateCorreos(Long cedulaPer, List<String> nuevosCorreos) {
-        try {
-            connection.setAutoCommit(false);
+        try (Connection connection = connector.getConn();
+             PreparedStatement stmt = connection.prepareStatement(SQL_SINCRONIZAR)) {
+            Array correosArray = connection.createArrayOf("text", nuevosCorreos.toArray());
+            stmt.setArray(1, correosArray);
+            stmt.setLong(2, cedulaPer);
+            stmt.setLong(3, cedulaPer);
             
-            // Eliminar correos existentes
-            deleteAllByCliente(cedulaPer);
-            
-            // Insertar nuevos correos
-            if (!nuevosCorreos.isEmpty()) {
-                insertMultiple(cedulaPer, nuevosCorreos);
+            try (ResultSet rs = stmt.executeQuery()) {
+                rs.next();
+            } finally {
+                correosArray.free();
             }
-            
-            connection.commit();
             return true;
             
         } catch (SQLException e) {
-            try {
-                connection.rollback();
-            } catch (SQLException ex) {
-                System.err.println("Error en rollback: " + ex.getMessage());
-            }
             System.err.println("Error al actualizar correos: " + e.getMessage());
             return false;
-        } finally {
-            try {
-                connection.setAutoCommit(true);
-            } catch (SQLException e) {
-                System.err.println("Error al restaurar autocommit: " + e.getMessage());
-            }
         }
     }
     
@@ -259,12 +365,13 @@ public class CorreoDAO {
         List<Long> cedulas = new ArrayList<>();
         String sql = "SELECT DISTINCT cedulaPer FROM Correo WHERE correo LIKE ? ORDER BY cedulaPer";
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = connector.getConn();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setString(1, "%@" + dominio);
             
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
-                    cedulas.add(rs.getLong("cedulaPer"));
+                    cedulas.add(rs.getLong(1));
                 }
             }
         } catch (SQLException e) {
@@ -273,15 +380,47 @@ public class CorreoDAO {
         return cedulas;
     }
     
+    /**
+     * Inserta un correo o, si ya existe, lo deja como está,
+     * en una sola sentencia (INSERT ... ON CONFLICT)
+     * @param correo objeto Correo a guardar
+     * @return INSERTADO, o SIN_CAMBIOS si ya existía; null si hubo un error
+     */
+    public ResultadoUpsert upsert(Correo correo) {
+        List<ResultadoUpsert> resultados = upsertBatch(List.of(correo));
+        return resultados != null ? resultados.get(0) : null;
+    }
+    
+    /**
+     * Guarda muchos correos con upsert, en lotes de 1000 filas por sentencia
+     * y en una sola transacción
+     * @param correos lista de objetos Correo a guardar
+     * @return resultado de cada fila en el orden de la lista, o null si hubo
+     *         un error (en ese caso no se guarda ninguna)
+     */
+    public List<ResultadoUpsert> upsertBatch(List<Correo> correos) {
+        try {
+            return UpsertPorArreglos.ejecutar(
+                    connector, SQL_UPSERT, TIPOS_UPSERT, correos,
+                    c -> new Object[]{c.getCedulaPer(), c.getCorreo()},
+                    c -> List.of(c.getCedulaPer(), c.getCorreo()),
+                    rs -> List.of(rs.getLong(1), rs.getString(2)));
+            
+        } catch (SQLException e) {
+            System.err.println("Error al guardar correos: " + e.getMessage());
+            return null;
+        }
+    }
+    
     /**
      * Mapea un ResultSet a un objeto Correo
-     * @param rs ResultSet con los datos
+     * @param rs ResultSet con las columnas de COLUMNAS
      * @return objeto Correo
      */
     private Correo mapResultSetToCorreo(ResultSet rs) throws SQLException {
         Correo correo = new Correo();
-        correo.setCedulaPer(rs.getLong("cedulaPer"));
-        correo.setCorreo(rs.getString("correo"));
+        correo.setCedulaPer(rs.getLong(1));
+        correo.setCorreo(rs.getString(2));
         return correo;
     }
 }
\ No newline at end of file
@@ -0,0 +1,61 @@
+package dao;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import db.PostgreSQLConnection;
+
+/**
+ * Ejecutor compartido por las fachadas asíncronas de los DAOs
+ * Si la JVM tiene hilos virtuales usa un hilo virtual por tarea; si no,
+ * un pool fijo de hilos daemon del mismo tamaño que el pool de conexiones,
+ * ya que cada tarea ocupa una conexión mientras se ejecuta. En los dos
+ * casos se ejecutan a la vez como máximo tantas tareas como conexiones
+ * tiene el pool; las demás esperan su turno en vez de agotar el tiempo
+ * de espera del pool y fallar.
+ */
+final class EjecutorAsync {
+    
+    // Tareas en ejecución a la vez, igual al máximo del pool de conexiones
+    private static final Semaphore CONEXIONES = new Semaphore(PostgreSQLConnection.POOL_MAX, true);
+    
+    private static final ExecutorService EJECUTOR = crear();
+    
+    private EjecutorAsync() {
+    }
+    
+    /**
+     * Ejecuta una operación de un DAO en el ejecutor compartido
+     * @param operacion operación a ejecutar
+     * @return futuro con el resultado de la operación
+     */
+    static <T> CompletableFuture<T> ejecutar(Supplier<T> operacion) {
+        return CompletableFuture.supplyAsync(() -> {
+            CONEXIONES.acquireUninterruptibly();
+            try {
+                return operacion.get();
+            } finally {
+                CONEXIONES.release();
+            }
+        }, EJECUTOR);
+    }
+    
+    private static ExecutorService crear() {
+        try {
+            Method fabrica = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) fabrica.invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            AtomicInteger contador = new AtomicInteger();
+            return Executors.newFixedThreadPool(PostgreSQLConnection.POOL_MAX, r -> {
+                Thread hilo = new Thread(r, "dao-async-" + contador.incrementAndGet());
+                hilo.setDaemon(true);
+                return hilo;
+            });
+        }
+    }
+}
@@ -2,11 +2,21 @@ package dao;
 
 import modelo.Area;
 import modelo.Empleado;
+import modelo.EmpleadoResumen;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 
+import db.DBConnection;
 import db.PostgreSQLConnection;
+import db.TransactionManager;
+import db.TransactionManager.Propagacion;
 
 /**
  * DAO para la tabla Empleado
@@ -14,10 +24,33 @@ import db.PostgreSQLConnection;
  */
 public class EmpleadoDAO {
     
-    private Connection connection;
+    // Columnas de Persona y luego las de Empleado, en el orden que lee mapResultSetToEmpleado
+    private static final String SQL_EMPLEADOS = "SELECT " + PersonaDAO.COLUMNAS + ", e.cargo, e.idArea " +
+                     "FROM Persona p " +
+                     "INNER JOIN Empleado e ON p.cedulaPer = e.cedulaPer ";
+    
+    private static final String SQL_ALL_WITH_DETAILS =
+                     "SELECT " + PersonaDAO.COLUMNAS + ", e.cargo, e.idArea, a.nombreArea " +
+                     "FROM Persona p " +
+                     "INNER JOIN Empleado e ON p.cedulaPer = e.cedulaPer " +
+                     "INNER JOIN Area a ON e.idArea = a.idArea " +
+                     "ORDER BY p.primerApell, p.primerNom";
+    
+    // Listado resumido, en el orden en que lo lee mapResultSetToResumen
+    private static final String SQL_RESUMEN =
+                     "SELECT p.cedulaPer, p.primerNom || ' ' || p.primerApell, e.cargo, e.idArea " +
+                     "FROM Persona p " +
+                     "INNER JOIN Empleado e ON p.cedulaPer = e.cedulaPer " +
+                     "ORDER BY p.cedulaPer";
+    
+    private final DBConnection connector;
+    private final PersonaDAO personaDAO;
+    private final AreaDAO areaDAO;
     
     public EmpleadoDAO() throws SQLException {
-        this.connection = PostgreSQLConnection.getConnector().getConn();
+        this.connector = PostgreSQLConnection.getConnector();
+        this.personaDAO = new PersonaDAO();
+        this.areaDAO = new AreaDAO();
     }
     
     /**
@@ -27,15 +60,8 @@ public class EmpleadoDAO {
      * @return true si se insertó correctamente
      */
     public boolean insert(Empleado empleado) {
-        String sql = "INSERT INTO Empleado (cedulaPer, cargo, idArea) VALUES (?, ?, ?)";
-        
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setLong(1, empleado.getCedulaPer());
-            stmt.setString(2, empleado.getCargo());
-            stmt.setLong(3, empleado.getIdArea());
-            
-            int rowsAffected = stmt.executeUpdate();
-            return rowsAffected > 0;
+        try (Connection connection = connector.getConn()) {
+            return insert(connection, empleado);
             
         } catch (SQLException e) {
             System.err.println("Error al insertar empleado: " + e.getMessage());
@@ -50,38 +76,37 @@ public class EmpleadoDAO {
      */
     public boolean insertCompleto(Empleado empleado) {
         try {
-            connection.setAutoCommit(false);
-            
-            // Insertar persona
-            PersonaDAO personaDAO = new PersonaDAO();
-            if (!personaDAO.insert(empleado)) {
-                connection.rollback();
-                return false;
-            }
-            
-            // Insertar empleado
-            if (!insert(empleado)) {
-                connection.rollback();
-                return false;
-            }
-            
-            connection.commit();
-            return true;
+            return TransactionManager.ejecutar(connector, Propagacion.REQUIRED, () -> {
+                // Los dos DAOs usan la conexión de la transacción
+                if (!personaDAO.insert(empleado) || !insert(empleado)) {
+                    TransactionManager.setRollbackOnly();
+                    return false;
+                }
+                return true;
+            });
             
         } catch (SQLException e) {
-            try {
-                connection.rollback();
-            } catch (SQLException ex) {
-                System.err.println("Error en rollback: " + ex.getMessage());
-            }
             System.err.println("Error al insertar empleado completo: " + e.getMessage());
             return false;
-        } finally {
-            try {
-                connection.setAutoCommit(true);
-            } catch (SQLException e) {
-                System.err.println("Error al restaurar autocommit: " + e.getMessage());
-            }
+        }
+    }
+    
+    /**
+     * Inserta un empleado usando la conexión recibida
+     * @param connection conexión sobre la que se ejecuta la operación
+     * @param empleado objeto Empleado a insertar
+     * @return true si se insertó correctamente
+     */
+    private boolean insert(Connection connection, Empleado empleado) throws SQLException {
+        String sql = "INSERT INTO Empleado (cedulaPer, cargo, idArea) VALUES (?, ?, ?)";
+        
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setLong(1, empleado.getCedulaPer());
+            stmt.setString(2, empleado.getCargo());
+            stmt.setLong(3, empleado.getIdArea());
+            
+            int rowsAffected = stmt.executeUpdate();
+            return rowsAffected > 0;
         }
     }
     
@@ -93,7 +118,8 @@ public class EmpleadoDAO {
     public boolean update(Empleado empleado) {
         String sql = "UPDATE Empleado SET cargo = ?, idArea = ? WHERE cedulaPer = ?";
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = connector.getConn();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setString(1, empleado.getCargo());
             stmt.setLong(2, empleado.getIdArea());
             stmt.setLong(3, empleado.getCedulaPer());
@@ -115,7 +141,8 @@ public class EmpleadoDAO {
     public boolean delete(Long cedulaPer) {
         String sql = "DELETE FROM Empleado WHERE cedulaPer = ?";
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = connector.getConn();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setLong(1, cedulaPer);
             
             int rowsAffected = stmt.executeUpdate();
@@ -133,12 +160,10 @@ public class EmpleadoDAO {
      * @return objeto Empleado o null si no se encuentra
      */
     public Empleado findById(Long cedulaPer) {
-        String sql = "SELECT p.*, e.cargo, e.idArea " +
-                     "FROM Persona p " +
-                     "INNER JOIN Empleado e ON p.cedulaPer = e.cedulaPer " +
-                     "WHERE e.cedulaPer = ?";
+        String sql = SQL_EMPLEADOS + "WHERE e.cedulaPer = ?";
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = connector.getConn();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setLong(1, cedulaPer);
             
             try (ResultSet rs = stmt.executeQuery()) {
@@ -152,18 +177,47 @@ public class EmpleadoDAO {
         return null;
     }
     
+    /**
+     * Busca varios empleados en una sola consulta
+     * @param ids cédulas de los empleados a buscar
+     * @return mapa cédula -> Empleado, solo con los que existen
+     */
+    public Map<Long, Empleado> findByIds(Collection<Long> ids) {
+        Map<Long, Empleado> resultado = new LinkedHashMap<>();
+        if (ids.isEmpty()) {
+            return resultado;
+        }
+        String sql = SQL_EMPLEADOS + "WHERE e.cedulaPer = ANY(?) ORDER BY e.cedulaPer";
+        
+        try (Connection connection = connector.getConn();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
+            Array idsArray = connection.createArrayOf("bigint", ids.toArray());
+            stmt.setArray(1, idsArray);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Empleado empleado = mapResultSetToEmpleado(rs);
+                    resultado.put(empleado.getCedulaPer(), empleado);
+                }
+            } finally {
+                idsArray.free();
+            }
+        } catch (SQLException e) {
+            System.err.println("Error al buscar empleados: " + e.getMessage());
+        }
+        return resultado;
+    }
+    
     /**
      * Obtiene todos los empleados
      * @return lista de empleados
      */
     public List<Empleado> findAll() {
         List<Empleado> empleados = new ArrayList<>();
-        String sql = "SELECT p.*, e.cargo, e.idArea " +
-                     "FROM Persona p " +
-                     "INNER JOIN Empleado e ON p.cedulaPer = e.cedulaPer " +
-                     "ORDER BY p.cedulaPer";
+        String sql = SQL_EMPLEADOS + "ORDER BY p.cedulaPer";
         
-        try (Statement stmt = connection.createStatement();
+        try (Connection connection = connector.getConn();
+             Statement stmt = connection.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
             
             while (rs.next()) {
@@ -176,6 +230,76 @@ public class EmpleadoDAO {
         return empleados;
     }
     
+    /**
+     * Obtiene el listado resumido de empleados
+     * @return lista de filas resumidas, en el mismo orden que findAll
+     */
+    public List<EmpleadoResumen> findAllResumen() {
+        List<EmpleadoResumen> empleados = new ArrayList<>();
+        
+        try (Connection connection = connector.getConn();
+             Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery(SQL_RESUMEN)) {
+            
+            while (rs.next()) {
+                empleados.add(mapResultSetToResumen(rs));
+            }
+            
+        } catch (SQLException e) {
+            System.err.println("Error al obtener resumen de empleados: " + e.getMessage());
+        }
+        return empleados;
+    }
+    
+    /**
+     * Recorre el listado resumido de empleados con un cursor del servidor,
+     * entregando las filas a medida que llegan
+     * @param consumidor acción a ejecutar con cada fila, en el orden de findAllResumen
+     * @return true si se recorrieron todas las filas
+     */
+    public boolean streamAllResumen(Consumer<? super EmpleadoResumen> consumidor) {
+        try {
+            ConsultaCursor.recorrer(connector, SQL_RESUMEN, EmpleadoDAO::mapResultSetToResumen, consumidor);
+            return true;
+            
+        } catch (SQLException e) {
+            System.err.println("Error al recorrer resumen de empleados: " + e.getMessage());
+            return false;
+        }
+    }
+    
+    /**
+     * Obtiene una página de empleados ordenada por cédula, continuando
+     * después de la última fila de la página anterior (paginación por clave)
+     * @param afterCedula última cédula de la página anterior, o null para la primera página
+     * @param limit número máximo de empleados a devolver
+     * @return lista de empleados de la página
+     */
+    public List<Empleado> findPage(Long afterCedula, int limit) {
+        List<Empleado> empleados = new ArrayList<>();
+        String sql = afterCedula == null
+                ? SQL_EMPLEADOS + "ORDER BY p.cedulaPer LIMIT ?"
+                : SQL_EMPLEADOS + "WHERE p.cedulaPer > ? ORDER BY p.cedulaPer LIMIT ?";
+        
+        try (Connection connection = connector.getConn();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
+            int i = 1;
+            if (afterCedula != null) {
+                stmt.setLong(i++, afterCedula);
+            }
+            stmt.setInt(i, limit);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    empleados.add(mapResultSetToEmpleado(rs));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error al obtener página de empleados: " + e.getMessage());
+        }
+        return empleados;
+    }
+    
     /**
      * Busca empleados por cargo
      * @param cargo cargo a buscar
@@ -183,13 +307,11 @@ public class EmpleadoDAO {
      */
     public List<Empleado> findByCargo(String cargo) {
         List<Empleado> empleados = new ArrayList<>();
-        String sql = "SELECT p.*, e.cargo, e.idArea " +
-                     "FROM Persona p " +
-                     "INNER JOIN Empleado e ON p.cedulaPer = e.cedulaPer " +
-                     "WHERE e.cargo = ? " +
+        String sql = SQL_EMPLEADOS + "WHERE e.cargo = ? " +
                      "ORDER BY p.primerApell, p.primerNom";
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = connector.getConn();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setString(1, cargo);
             
             try (ResultSet rs = stmt.executeQuery()) {
@@ -210,13 +332,11 @@ public class EmpleadoDAO {
      */
     public List<Empleado> findByArea(Long idArea) {
         List<Empleado> empleados = new ArrayList<>();
-        String sql = "SELECT p.*, e.cargo, e.idArea " +
-                     "FROM Persona p " +
-                     "INNER JOIN Empleado e ON p.cedulaPer = e.cedulaPer " +
-                     "WHERE e.idArea = ? " +
+        String sql = SQL_EMPLEADOS + "WHERE e.idArea = ? " +
                      "ORDER BY p.primerApell, p.primerNom";
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = connector.getConn();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setLong(1, idArea);
             
             try (ResultSet rs = stmt.executeQuery()) {
@@ -236,33 +356,58 @@ public class EmpleadoDAO {
      */
     public List<Empleado> findAllWithDetails() {
         List<Empleado> empleados = new ArrayList<>();
-        String sql = "SELECT p.*, e.cargo, e.idArea, a.nombreArea " +
-                     "FROM Persona p " +
-                     "INNER JOIN Empleado e ON p.cedulaPer = e.cedulaPer " +
-                     "INNER JOIN Area a ON e.idArea = a.idArea " +
-                     "ORDER BY p.primerApell, p.primerNom";
+        String sql = SQL_EMPLEADOS + "ORDER BY p.primerApell, p.primerNom";
         
-        try (Statement stmt = connection.createStatement();
+        try (Connection connection = connector.getConn();
+             Statement stmt = connection.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
             
             while (rs.next()) {
-                Empleado empleado = mapResultSetToEmpleado(rs);
-                
-                // Crear objeto Area relacionado
-                Area area = new Area();
-                area.setIdArea(rs.getLong("idArea"));
-                area.setNombreArea(rs.getString("nombreArea"));
-                
-                empleado.setArea(area);
-                empleados.add(empleado);
+                empleados.add(mapResultSetToEmpleado(rs));
             }
             
         } catch (SQLException e) {
             System.err.println("Error al obtener empleados con detalles: " + e.getMessage());
+            return empleados;
+        }
+        
+        // Las áreas se resuelven desde la cache de AreaDAO
+        Set<Long> idsArea = new HashSet<>();
+        for (Empleado empleado : empleados) {
+            idsArea.add(empleado.getIdArea());
+        }
+        Map<Long, Area> areas = areaDAO.findByIds(idsArea);
+        for (Empleado empleado : empleados) {
+            empleado.setArea(areas.get(empleado.getIdArea()));
         }
         return empleados;
     }
     
+    /**
+     * Recorre los empleados con información del área usando un cursor del
+     * servidor, entregándolos al consumidor a medida que llegan
+     * @param consumidor acción a ejecutar con cada empleado
+     * @return true si se recorrieron todos los empleados
+     */
+    public boolean streamAllWithDetails(Consumer<? super Empleado> consumidor) {
+        try {
+            ConsultaCursor.recorrer(connector, SQL_ALL_WITH_DETAILS,
+                                    this::mapResultSetToEmpleadoConArea, consumidor);
+            return true;
+            
+        } catch (SQLException e) {
+            System.err.println("Error al recorrer empleados con detalles: " + e.getMessage());
+            return false;
+        }
+    }
+    
+    /**
+     * Mapea una fila de SQL_RESUMEN
+     */
+    private static EmpleadoResumen mapResultSetToResumen(ResultSet rs) throws SQLException {
+        return new EmpleadoResumen(rs.getLong(1), rs.getString(2), rs.getString(3), rs.getLong(4));
+    }
+    
     /**
      * Mapea un ResultSet a un objeto Empleado
      * @param rs ResultSet con los datos
@@ -270,17 +415,26 @@ public class EmpleadoDAO {
      */
     private Empleado mapResultSetToEmpleado(ResultSet rs) throws SQLException {
         Empleado empleado = new Empleado();
-        empleado.setCedulaPer(rs.getLong("cedulaPer"));
-        empleado.setPrimerNom(rs.getString("primerNom"));
-        empleado.setSegundoNom(rs.getString("segundoNom"));
-        empleado.setPrimerApell(rs.getString("primerApell"));
-        empleado.setSegundoApell(rs.getString("segundoApell"));
-        empleado.setCalle(rs.getString("calle"));
-        empleado.setCarrera(rs.getString("carrera"));
-        empleado.setNumero(rs.getString("numero"));
-        empleado.setComplemento(rs.getString("complemento"));
-        empleado.setCargo(rs.getString("cargo"));
-        empleado.setIdArea(rs.getLong("idArea"));
+        PersonaDAO.cargarPersona(rs, empleado);
+        empleado.setCargo(rs.getString(10));
+        empleado.setIdArea(rs.getLong(11));
+        return empleado;
+    }
+    
+    /**
+     * Mapea un ResultSet de la consulta con detalles a un Empleado con su Area
+     * @param rs ResultSet con los datos
+     * @return objeto Empleado con el área relacionada
+     */
+    private Empleado mapResultSetToEmpleadoConArea(ResultSet rs) throws SQLException {
+        Empleado empleado = mapResultSetToEmpleado(rs);
+        
+        // Crear objeto Area relacionado
+        Area area = new Area();
+        area.setIdArea(empleado.getIdArea());
+        area.setNombreArea(rs.getString(12));
+        
+        empleado.setArea(area);
         return empleado;
     }
 }
\ No newline at end of file
@@ -0,0 +1,161 @@
+package dao;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+
+import db.DBConnection;
+import db.PostgreSQLConnection;
+
+/**
+ * Exportación de reportes con COPY ... TO STDOUT
+ * El servidor genera el archivo y las filas se escriben directamente en el
+ * OutputStream, sin crear objetos Java ni cargar el resultado en memoria.
+ * Por defecto se leen solo las tablas vivas; las reservas y consumos que
+ * ArchivoHistoricoDAO movió a las históricas se incluyen con las variantes
+ * includeHistory. Los meses desprendidos con ParticionesConsumo.desprender
+ * no se exportan: son tablas aparte.
+ */
+public class ExportacionDAO {
+    
+    /**
+     * Formato del archivo exportado (ambos con encabezado)
+     */
+    public enum Formato {
+        CSV("FORMAT csv, HEADER true"),
+        TSV("FORMAT csv, HEADER true, DELIMITER E'\\t'");
+        
+        private final String opciones;
+        
+        Formato(String opciones) {
+            this.opciones = opciones;
+        }
+    }
+    
+    // %s es la tabla de la que se lee: la viva o la histórica
+    private static final String SQL_RESERVAS =
+                     "SELECT r.cedulaPer, p.primerNom, p.segundoNom, p.primerApell, p.segundoApell, " +
+                     "r.numeroHab, h.categoria, h.precioNoche, r.fechaLlegada, r.fechaSalida, r.tiempoMaxCancel " +
+                     "FROM %s r " +
+                     "INNER JOIN Persona p ON r.cedulaPer = p.cedulaPer " +
+                     "INNER JOIN Habitacion h ON r.numeroHab = h.numeroHab";
+    
+    private static final String SQL_CONSUMOS =
+                     "SELECT c.fechaConsumo, c.horaConsumo, c.cedulaPer, c.numeroHab, c.fechaLlegada, " +
+                     "c.idServicio, s.nomServicio, s.costoServicio " +
+                     "FROM %s c " +
+                     "INNER JOIN Servicio s ON c.idServicio = s.idServicio";
+    
+    private final DBConnection connector;
+    
+    public ExportacionDAO() throws SQLException {
+        this.connector = PostgreSQLConnection.getConnector();
+    }
+    
+    /**
+     * Exporta las reservas con datos del cliente y la habitación
+     * @param desde primera fecha de llegada a incluir, o null sin límite
+     * @param hasta última fecha de llegada a incluir, o null sin límite
+     * @param destino flujo donde se escribe el archivo (no se cierra)
+     * @param formato CSV o TSV
+     * @return número de reservas exportadas, o -1 si hubo un error
+     */
+    public long exportarReservas(LocalDate desde, LocalDate hasta, OutputStream destino, Formato formato) {
+        return exportarReservas(desde, hasta, destino, formato, false);
+    }
+    
+    /**
+     * Exporta las reservas con datos del cliente y la habitación,
+     * opcionalmente también las archivadas
+     * @param desde primera fecha de llegada a incluir, o null sin límite
+     * @param hasta última fecha de llegada a incluir, o null sin límite
+     * @param destino flujo donde se escribe el archivo (no se cierra)
+     * @param formato CSV o TSV
+     * @param includeHistory true para incluir las reservas de ReservaHistorico
+     * @return número de reservas exportadas, o -1 si hubo un error
+     */
+    public long exportarReservas(LocalDate desde, LocalDate hasta, OutputStream destino, Formato formato,
+                                 boolean includeHistory) {
+        String sql = consulta(SQL_RESERVAS, "Reserva", "ReservaHistorico", includeHistory,
+                              filtroFechas("r.fechaLlegada", desde, hasta)) +
+                     " ORDER BY fechaLlegada, cedulaPer, numeroHab";
+        return exportar(sql, destino, formato, "reservas");
+    }
+    
+    /**
+     * Exporta los consumos adicionales con datos del servicio
+     * @param desde primera fecha de consumo a incluir, o null sin límite
+     * @param hasta última fecha de consumo a incluir, o null sin límite
+     * @param destino flujo donde se escribe el archivo (no se cierra)
+     * @param formato CSV o TSV
+     * @return número de consumos exportados, o -1 si hubo un error
+     */
+    public long exportarConsumos(LocalDate desde, LocalDate hasta, OutputStream destino, Formato formato) {
+        return exportarConsumos(desde, hasta, destino, formato, false);
+    }
+    
+    /**
+     * Exporta los consumos adicionales con datos del servicio, opcionalmente
+     * también los archivados
+     * @param desde primera fecha de consumo a incluir, o null sin límite
+     * @param hasta última fecha de consumo a incluir, o null sin límite
+     * @param destino flujo donde se escribe el archivo (no se cierra)
+     * @param formato CSV o TSV
+     * @param includeHistory true para incluir los consumos de ConsumoAdicionalHistorico
+     * @return número de consumos exportados, o -1 si hubo un error
+     */
+    public long exportarConsumos(LocalDate desde, LocalDate hasta, OutputStream destino, Formato formato,
+                                 boolean includeHistory) {
+        String sql = consulta(SQL_CONSUMOS, "ConsumoAdicional", "ConsumoAdicionalHistorico", includeHistory,
+                              filtroFechas("c.fechaConsumo", desde, hasta)) +
+                     " ORDER BY fechaConsumo, horaConsumo";
+        return exportar(sql, destino, formato, "consumos");
+    }
+    
+    private long exportar(String consulta, OutputStream destino, Formato formato, String nombre) {
+        String sql = "COPY (" + consulta + ") TO STDOUT WITH (" + formato.opciones + ")";
+        
+        try (Connection connection = connector.getConn()) {
+            CopyManager copy = connection.unwrap(PGConnection.class).getCopyAPI();
+            return copy.copyOut(sql, destino);
+            
+        } catch (SQLException | IOException e) {
+            System.err.println("Error al exportar " + nombre + ": " + e.getMessage());
+            return -1;
+        }
+    }
+    
+    /**
+     * Consulta sobre la tabla viva con el filtro indicado; con includeHistory
+     * se le une la misma consulta sobre la tabla histórica
+     */
+    private static String consulta(String plantilla, String tabla, String historica, boolean includeHistory,
+                                   String filtro) {
+        String sql = String.format(plantilla, tabla) + filtro;
+        if (includeHistory) {
+            sql += " UNION ALL " + String.format(plantilla, historica) + filtro;
+        }
+        return sql;
+    }
+    
+    /**
+     * Condición sobre una columna de fecha. COPY no admite parámetros, así
+     * que las fechas se escriben como literales ISO (LocalDate.toString()).
+     */
+    private static String filtroFechas(String columna, LocalDate desde, LocalDate hasta) {
+        StringBuilder filtro = new StringBuilder();
+        if (desde != null) {
+            filtro.append(" WHERE ").append(columna).append(" >= DATE '").append(desde).append("'");
+        }
+        if (hasta != null) {
+            filtro.append(desde != null ? " AND " : " WHERE ")
+                  .append(columna).append(" <= DATE '").append(hasta).append("'");
+        }
+        return filtro.toString();
+    }
+}
@@ -3,9 +3,16 @@ package dao;
 
 import modelo.Habitacion;
 import java.sql.*;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 
+import db.DBConnection;
 import db.PostgreSQLConnection;
 
 /**
@@ -14,10 +21,36 @@ import db.PostgreSQLConnection;
  */
 public class HabitacionDAO {
     
-    private Connection connection;
+    // Columnas en el orden en que las lee mapResultSetToHabitacion
+    static final String COLUMNAS = "h.numeroHab, h.categoria, h.estadoHab, h.precioNoche";
+    
+    private static final String SQL_UPSERT = "INSERT INTO Habitacion (numeroHab, categoria, estadoHab, precioNoche) " +
+                     "SELECT * FROM unnest(?::integer[], ?::text[], ?::text[], ?::numeric[]) " +
+                     "ON CONFLICT (numeroHab) DO UPDATE SET categoria = EXCLUDED.categoria, " +
+                     "estadoHab = EXCLUDED.estadoHab, precioNoche = EXCLUDED.precioNoche " +
+                     // Solo se escribe si algún dato cambió
+                     "WHERE (Habitacion.categoria, Habitacion.estadoHab, Habitacion.precioNoche) " +
+                     "IS DISTINCT FROM (EXCLUDED.categoria, EXCLUDED.estadoHab, EXCLUDED.precioNoche) " +
+                     "RETURNING numeroHab, (xmax = 0) AS insertado";
+    
+    private static final String[] TIPOS_UPSERT = {"integer", "text", "text", "numeric"};
+    
+    // Cache de las habitaciones, compartida por todas las instancias del DAO
+    private static final CacheReferencia<Integer, Habitacion> CACHE =
+            new CacheReferencia<>(1000, HabitacionDAO::copiar);
+    
+    private final DBConnection connector;
     
     public HabitacionDAO() throws SQLException {
-        this.connection = PostgreSQLConnection.getConnector().getConn();
+        this.connector = PostgreSQLConnection.getConnector();
+    }
+    
+    /**
+     * Cache en memoria de las habitaciones (estadísticas y limpieza)
+     * @return cache compartida del DAO
+     */
+    public static CacheReferencia<Integer, Habitacion> getCache() {
+        return CACHE;
     }
     
     /**
@@ -29,13 +62,17 @@ public class HabitacionDAO {
         String sql = "INSERT INTO Habitacion (numeroHab, categoria, estadoHab, precioNoche) " +
                      "VALUES (?, ?, ?, ?)";
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = connector.getConn();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setInt(1, habitacion.getNumeroHab());
             stmt.setString(2, habitacion.getCategoria());
             stmt.setString(3, habitacion.getEstadoHab());
             stmt.setBigDecimal(4, habitacion.getPrecioNoche());
             
             int rowsAffected = stmt.executeUpdate();
+            if (rowsAffected > 0) {
+                CACHE.guardar(connector, habitacion.getNumeroHab(), habitacion);
+            }
             return rowsAffected > 0;
             
         } catch (SQLException e) {
@@ -53,13 +90,17 @@ public class HabitacionDAO {
         String sql = "UPDATE Habitacion SET categoria = ?, estadoHab = ?, " +
                      "precioNoche = ? WHERE numeroHab = ?";
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = connector.getConn();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setString(1, habitacion.getCategoria());
             stmt.setString(2, habitacion.getEstadoHab());
             stmt.setBigDecimal(3, habitacion.getPrecioNoche());
             stmt.setInt(4, habitacion.getNumeroHab());
             
             int rowsAffected = stmt.executeUpdate();
+            if (rowsAffected > 0) {
+                CACHE.guardar(connector, habitacion.getNumeroHab(), habitacion);
+            }
             return rowsAffected > 0;
             
         } catch (SQLException e) {
@@ -76,10 +117,14 @@ public class HabitacionDAO {
     public boolean delete(Integer numeroHab) {
         String sql = "DELETE FROM Habitacion WHERE numeroHab = ?";
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = connector.getConn();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setInt(1, numeroHab);
             
             int rowsAffected = stmt.executeUpdate();
+            if (rowsAffected > 0) {
+                CACHE.remove(connector, numeroHab);
+            }
             return rowsAffected > 0;
             
         } catch (SQLException e) {
@@ -94,14 +139,23 @@ public class HabitacionDAO {
      * @return objeto Habitacion o null si no se encuentra
      */
     public Habitacion findById(Integer numeroHab) {
-        String sql = "SELECT * FROM Habitacion WHERE numeroHab = ?";
+        Habitacion cacheado = CACHE.get(numeroHab);
+        if (cacheado != null) {
+            return cacheado;
+        }
+        
+        String sql = "SELECT " + COLUMNAS + " FROM Habitacion h WHERE numeroHab = ?";
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        long generacion = CACHE.getGeneracion();
+        try (Connection connection = connector.getConn();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setInt(1, numeroHab);
             
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
-                    return mapResultSetToHabitacion(rs);
+                    Habitacion habitacion = mapResultSetToHabitacion(rs);
+                    CACHE.put(connector, generacion, numeroHab, habitacion);
+                    return habitacion;
                 }
             }
         } catch (SQLException e) {
@@ -110,20 +164,71 @@ public class HabitacionDAO {
         return null;
     }
     
+    /**
+     * Busca varias habitaciones en una sola consulta
+     * @param ids números de las habitaciones a buscar
+     * @return mapa número -> Habitacion, solo con los que existen
+     */
+    public Map<Integer, Habitacion> findByIds(Collection<Integer> ids) {
+        Map<Integer, Habitacion> resultado = new TreeMap<>();
+        List<Integer> faltantes = new ArrayList<>();
+        for (Integer id : new LinkedHashSet<>(ids)) {
+            Habitacion cacheado = CACHE.get(id);
+            if (cacheado != null) {
+                resultado.put(id, cacheado);
+            } else {
+                faltantes.add(id);
+            }
+        }
+        if (faltantes.isEmpty()) {
+            return resultado;
+        }
+        String sql = "SELECT " + COLUMNAS + " FROM Habitacion h " +
+                     "WHERE numeroHab = ANY(?) ORDER BY numeroHab";
+        
+        long generacion = CACHE.getGeneracion();
+        try (Connection connection = connector.getConn();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
+            Array idsArray = connection.createArrayOf("integer", faltantes.toArray());
+            stmt.setArray(1, idsArray);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Habitacion habitacion = mapResultSetToHabitacion(rs);
+                    resultado.put(habitacion.getNumeroHab(), habitacion);
+                    CACHE.put(connector, generacion, habitacion.getNumeroHab(), habitacion);
+                }
+            } finally {
+                idsArray.free();
+            }
+        } catch (SQLException e) {
+            System.err.println("Error al buscar habitaciones: " + e.getMessage());
+        }
+        return resultado;
+    }
+    
     /**
      * Obtiene todas las habitaciones
      * @return lista de habitaciones
      */
     public List<Habitacion> findAll() {
+        List<Habitacion> cacheados = CACHE.getTodos();
+        if (cacheados != null) {
+            return cacheados;
+        }
+        
         List<Habitacion> habitaciones = new ArrayList<>();
-        String sql = "SELECT * FROM Habitacion ORDER BY numeroHab";
+        String sql = "SELECT " + COLUMNAS + " FROM Habitacion h ORDER BY numeroHab";
         
-        try (Statement stmt = connection.createStatement();
+        long generacion = CACHE.getGeneracion();
+        try (Connection connection = connector.getConn();
+             Statement stmt = connection.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
             
             while (rs.next()) {
                 habitaciones.add(mapResultSetToHabitacion(rs));
             }
+            CACHE.putTodos(connector, generacion, habitaciones, Habitacion::getNumeroHab);
             
         } catch (SQLException e) {
             System.err.println("Error al obtener habitaciones: " + e.getMessage());
@@ -131,6 +236,39 @@ public class HabitacionDAO {
         return habitaciones;
     }
     
+    /**
+     * Obtiene una página de habitaciones ordenada por número, continuando
+     * después de la última fila de la página anterior (paginación por clave)
+     * @param afterNumeroHab último número de habitación de la página anterior, o null para la primera página
+     * @param limit número máximo de habitaciones a devolver
+     * @return lista de habitaciones de la página
+     */
+    public List<Habitacion> findPage(Integer afterNumeroHab, int limit) {
+        List<Habitacion> habitaciones = new ArrayList<>();
+        String sql = afterNumeroHab == null
+                ? "SELECT " + COLUMNAS + " FROM Habitacion h ORDER BY numeroHab LIMIT ?"
+                : "SELECT " + COLUMNAS + " FROM Habitacion h " +
+                  "WHERE numeroHab > ? ORDER BY numeroHab LIMIT ?";
+        
+        try (Connection connection = connector.getConn();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
+            int i = 1;
+            if (afterNumeroHab != null) {
+                stmt.setInt(i++, afterNumeroHab);
+            }
+            stmt.setInt(i, limit);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    habitaciones.add(mapResultSetToHabitacion(rs));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error al obtener página de habitaciones: " + e.getMessage());
+        }
+        return habitaciones;
+    }
+    
     /**
      * Busca habitaciones por categoría
      * @param categoria categoría a buscar
@@ -138,9 +276,10 @@ public class HabitacionDAO {
      */
     public List<Habitacion> findByCategoria(String categoria) {
         List<Habitacion> habitaciones = new ArrayList<>();
-        String sql = "SELECT * FROM Habitacion WHERE categoria = ? ORDER BY numeroHab";
+        String sql = "SELECT " + COLUMNAS + " FROM Habitacion h WHERE categoria = ? ORDER BY numeroHab";
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = connector.getConn();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setString(1, categoria);
             
             try (ResultSet rs = stmt.executeQuery()) {
@@ -160,9 +299,11 @@ public class HabitacionDAO {
      */
     public List<Habitacion> findDisponibles() {
         List<Habitacion> habitaciones = new ArrayList<>();
-        String sql = "SELECT * FROM Habitacion WHERE estadoHab = 'Disponible' ORDER BY numeroHab";
+        String sql = "SELECT " + COLUMNAS + " FROM Habitacion h " +
+                     "WHERE estadoHab = 'Disponible' ORDER BY numeroHab";
         
-        try (Statement stmt = connection.createStatement();
+        try (Connection connection = connector.getConn();
+             Statement stmt = connection.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
             
             while (rs.next()) {
@@ -175,6 +316,63 @@ public class HabitacionDAO {
         return habitaciones;
     }
     
+    /**
+     * Busca las habitaciones sin reservas que se crucen con un rango de fechas
+     * Dos estancias se cruzan si una llega antes de que la otra salga; la
+     * noche de salida queda libre para una nueva llegada. Si el índice de
+     * ocupación ya está cargado se responde desde memoria; si no, la consulta
+     * usa el índice de Reserva por (numeroHab, fechaLlegada, fechaSalida).
+     * @param llegada fecha de llegada deseada
+     * @param salida fecha de salida deseada (posterior a la llegada)
+     * @param categoria categoría a buscar, o null para todas
+     * @return lista de habitaciones libres en todo el rango
+     */
+    public List<Habitacion> findDisponiblesEntre(LocalDate llegada, LocalDate salida, String categoria) {
+        List<Habitacion> habitaciones = new ArrayList<>();
+        if (!salida.isAfter(llegada)) {
+            System.err.println("Error al buscar disponibilidad: la salida debe ser posterior a la llegada");
+            return habitaciones;
+        }
+        
+        IndiceOcupacion indice = IndiceOcupacion.getInstance();
+        if (indice.isCargado()) {
+            Set<Integer> ocupadas = indice.ocupadas(llegada, salida);
+            for (Habitacion habitacion : findAll()) {
+                if ((categoria == null || categoria.equals(habitacion.getCategoria()))
+                        && !ocupadas.contains(habitacion.getNumeroHab())) {
+                    habitaciones.add(habitacion);
+                }
+            }
+            return habitaciones;
+        }
+        
+        String sql = "SELECT " + COLUMNAS + " FROM Habitacion h " +
+                     "WHERE " + (categoria != null ? "h.categoria = ? AND " : "") +
+                     "NOT EXISTS (SELECT 1 FROM Reserva r " +
+                     "WHERE r.numeroHab = h.numeroHab " +
+                     "AND r.fechaLlegada < ? AND r.fechaSalida > ?) " +
+                     "ORDER BY h.numeroHab";
+        
+        try (Connection connection = connector.getConn();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
+            int i = 1;
+            if (categoria != null) {
+                stmt.setString(i++, categoria);
+            }
+            stmt.setDate(i++, Date.valueOf(salida));
+            stmt.setDate(i, Date.valueOf(llegada));
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    habitaciones.add(mapResultSetToHabitacion(rs));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error al buscar habitaciones disponibles: " + e.getMessage());
+        }
+        return habitaciones;
+    }
+    
     /**
      * Actualiza el estado de una habitación
      * @param numeroHab número de la habitación
@@ -184,11 +382,15 @@ public class HabitacionDAO {
     public boolean updateEstado(Integer numeroHab, String nuevoEstado) {
         String sql = "UPDATE Habitacion SET estadoHab = ? WHERE numeroHab = ?";
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = connector.getConn();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setString(1, nuevoEstado);
             stmt.setInt(2, numeroHab);
             
             int rowsAffected = stmt.executeUpdate();
+            if (rowsAffected > 0) {
+                CACHE.actualizar(connector, numeroHab, h -> h.setEstadoHab(nuevoEstado));
+            }
             return rowsAffected > 0;
             
         } catch (SQLException e) {
@@ -197,17 +399,59 @@ public class HabitacionDAO {
         }
     }
     
+    /**
+     * Inserta una habitación o, si ya existe, actualiza sus datos,
+     * en una sola sentencia (INSERT ... ON CONFLICT)
+     * @param habitacion objeto Habitacion a guardar
+     * @return INSERTADO, ACTUALIZADO o SIN_CAMBIOS; null si hubo un error
+     */
+    public ResultadoUpsert upsert(Habitacion habitacion) {
+        List<ResultadoUpsert> resultados = upsertBatch(List.of(habitacion));
+        return resultados != null ? resultados.get(0) : null;
+    }
+    
+    /**
+     * Guarda muchas habitaciones con upsert, en lotes de 1000 filas por sentencia
+     * y en una sola transacción
+     * @param habitaciones lista de objetos Habitacion a guardar
+     * @return resultado de cada fila en el orden de la lista, o null si hubo
+     *         un error (en ese caso no se guarda ninguna)
+     */
+    public List<ResultadoUpsert> upsertBatch(List<Habitacion> habitaciones) {
+        try {
+            List<ResultadoUpsert> resultados = UpsertPorArreglos.ejecutar(
+                    connector, SQL_UPSERT, TIPOS_UPSERT, habitaciones,
+                    h -> new Object[]{h.getNumeroHab(), h.getCategoria(), h.getEstadoHab(), h.getPrecioNoche()},
+                    Habitacion::getNumeroHab, rs -> rs.getInt(1));
+            for (Habitacion habitacion : habitaciones) {
+                CACHE.guardar(connector, habitacion.getNumeroHab(), habitacion);
+            }
+            return resultados;
+            
+        } catch (SQLException e) {
+            System.err.println("Error al guardar habitaciones: " + e.getMessage());
+            return null;
+        }
+    }
+    
     /**
      * Mapea un ResultSet a un objeto Habitacion
-     * @param rs ResultSet con los datos
+     * @param rs ResultSet con las columnas de COLUMNAS
      * @return objeto Habitacion
      */
     private Habitacion mapResultSetToHabitacion(ResultSet rs) throws SQLException {
         Habitacion habitacion = new Habitacion();
-        habitacion.setNumeroHab(rs.getInt("numeroHab"));
-        habitacion.setCategoria(rs.getString("categoria"));
-        habitacion.setEstadoHab(rs.getString("estadoHab"));
-        habitacion.setPrecioNoche(rs.getBigDecimal("precioNoche"));
+        habitacion.setNumeroHab(rs.getInt(1));
+        habitacion.setCategoria(rs.getString(2));
+        habitacion.setEstadoHab(rs.getString(3));
+        habitacion.setPrecioNoche(rs.getBigDecimal(4));
         return habitacion;
     }
+    
+    /**
+     * Copia una habitación para que la cache no comparta objetos con quien la usa
+     */
+    private static Habitacion copiar(Habitacion h) {
+        return new Habitacion(h.getNumeroHab(), h.getCategoria(), h.getEstadoHab(), h.getPrecioNoche());
+    }
 }
\ No newline at end of file
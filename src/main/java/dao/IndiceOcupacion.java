@@ -0,0 +1,333 @@
+package dao;
+
+import modelo.Reserva;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import db.PostgreSQLConnection;
+import db.TransactionManager;
+
+/**
+ * Índice en memoria de la ocupación de cada habitación
+ * Guarda, por número de habitación, los rangos [llegada, salida) de sus
+ * reservas como días epoch ordenados por llegada, para responder consultas
+ * de disponibilidad y conflicto sin ir a la base de datos. Se carga la
+ * primera vez que se consulta y ReservaDAO lo mantiene al día en cada
+ * escritura; dentro de una transacción el cambio se aplica recién al
+ * confirmarse (TransactionManager.alConfirmar), y si se deshace no llega.
+ *
+ * Solo responde por las escrituras de este proceso: las reservas que
+ * guardan otras terminales se ven después de recargar(), que se puede
+ * llamar a mano o programar con programarRecarga().
+ */
+public final class IndiceOcupacion {
+    
+    private static final IndiceOcupacion INSTANCE = new IndiceOcupacion();
+    
+    // Periodo sugerido de recarga para ver las reservas de otras terminales
+    public static final long MINUTOS_RECARGA = 5;
+    
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Map<Integer, Ocupacion> porHabitacion = new HashMap<>();
+    private boolean cargado;
+    
+    // Recarga periódica, creada al llamar a programarRecarga()
+    private ScheduledExecutorService recargas;
+    private ScheduledFuture<?> recargaProgramada;
+    
+    // Cambios recibidos mientras se recarga, para aplicarlos sobre la nueva carga
+    private List<Reserva> altasPendientes;
+    private List<Reserva> bajasPendientes;
+    
+    private IndiceOcupacion() {
+    }
+    
+    public static IndiceOcupacion getInstance() {
+        return INSTANCE;
+    }
+    
+    /**
+     * Vuelve a leer todas las reservas de la base de datos
+     * @return true si se cargó correctamente
+     */
+    public synchronized boolean recargar() {
+        lock.writeLock().lock();
+        try {
+            altasPendientes = new ArrayList<>();
+            bajasPendientes = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        
+        Map<Integer, Ocupacion> nuevo = new HashMap<>();
+        boolean ok;
+        try {
+            ok = new ReservaDAO().streamAll(reserva -> agregar(nuevo, reserva));
+        } catch (SQLException e) {
+            System.err.println("Error al cargar índice de ocupación: " + e.getMessage());
+            ok = false;
+        }
+        
+        lock.writeLock().lock();
+        try {
+            if (ok) {
+                for (Reserva reserva : bajasPendientes) {
+                    quitar(nuevo, reserva.getNumeroHab(), reserva.getCedulaPer(), reserva.getFechaLlegada());
+                }
+                for (Reserva reserva : altasPendientes) {
+                    agregar(nuevo, reserva);
+                }
+                porHabitacion = nuevo;
+                cargado = true;
+            }
+            altasPendientes = null;
+            bajasPendientes = null;
+            return ok;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Recarga el índice cada cierto tiempo, para ver las reservas que
+     * escriben otros procesos. Llamarlo de nuevo cambia el periodo.
+     * @param minutos minutos entre el fin de una recarga y el inicio de la siguiente
+     */
+    public synchronized void programarRecarga(long minutos) {
+        if (recargas == null) {
+            recargas = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread hilo = new Thread(r, "recarga-indice-ocupacion");
+                hilo.setDaemon(true);
+                return hilo;
+            });
+        }
+        if (recargaProgramada != null) {
+            recargaProgramada.cancel(false);
+        }
+        recargaProgramada = recargas.scheduleWithFixedDelay(this::recargar, minutos, minutos, TimeUnit.MINUTES);
+    }
+    
+    /**
+     * Indica si una habitación está libre en todo el rango [llegada, salida)
+     * @param numeroHab número de la habitación
+     * @param llegada fecha de llegada
+     * @param salida fecha de salida
+     * @return true si ninguna reserva se cruza con el rango; false también
+     *         si el índice no se pudo cargar
+     */
+    public boolean estaDisponible(Integer numeroHab, LocalDate llegada, LocalDate salida) {
+        if (!asegurarCargado()) {
+            return false;
+        }
+        lock.readLock().lock();
+        try {
+            Ocupacion ocupacion = porHabitacion.get(numeroHab);
+            return ocupacion == null || !ocupacion.seCruza(llegada.toEpochDay(), salida.toEpochDay());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Obtiene las habitaciones con alguna reserva que se cruza con el rango
+     * @param llegada fecha de llegada
+     * @param salida fecha de salida
+     * @return números de las habitaciones ocupadas, o null si el índice no
+     *         se pudo cargar
+     */
+    public Set<Integer> ocupadas(LocalDate llegada, LocalDate salida) {
+        if (!asegurarCargado()) {
+            return null;
+        }
+        long inicio = llegada.toEpochDay();
+        long fin = salida.toEpochDay();
+        Set<Integer> ocupadas = new TreeSet<>();
+        
+        lock.readLock().lock();
+        try {
+            for (Map.Entry<Integer, Ocupacion> entry : porHabitacion.entrySet()) {
+                if (entry.getValue().seCruza(inicio, fin)) {
+                    ocupadas.add(entry.getKey());
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return ocupadas;
+    }
+    
+    /**
+     * Indica si el índice ya tiene cargadas las reservas
+     */
+    public boolean isCargado() {
+        lock.readLock().lock();
+        try {
+            return cargado;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Registra una reserva recién guardada en la base de datos, al confirmarse
+     * la transacción si hay una abierta
+     */
+    void registrar(Reserva reserva) {
+        Reserva copia = new Reserva(reserva.getCedulaPer(), reserva.getNumeroHab(), reserva.getFechaLlegada(),
+                                    reserva.getFechaSalida(), reserva.getTiempoMaxCancel());
+        TransactionManager.alConfirmar(PostgreSQLConnection.getConnector(), () -> aplicarAlta(copia));
+    }
+    
+    /**
+     * Quita una reserva eliminada (o cuya llave cambió) en la base de datos,
+     * al confirmarse la transacción si hay una abierta
+     */
+    void eliminar(Long cedulaPer, Integer numeroHab, LocalDate fechaLlegada) {
+        TransactionManager.alConfirmar(PostgreSQLConnection.getConnector(),
+                () -> aplicarBaja(cedulaPer, numeroHab, fechaLlegada));
+    }
+    
+    private void aplicarAlta(Reserva reserva) {
+        lock.writeLock().lock();
+        try {
+            if (altasPendientes != null) {
+                altasPendientes.add(reserva);
+            }
+            if (cargado) {
+                agregar(porHabitacion, reserva);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    private void aplicarBaja(Long cedulaPer, Integer numeroHab, LocalDate fechaLlegada) {
+        lock.writeLock().lock();
+        try {
+            if (bajasPendientes != null) {
+                bajasPendientes.add(new Reserva(cedulaPer, numeroHab, fechaLlegada, null, null));
+                altasPendientes.removeIf(r -> r.getCedulaPer().equals(cedulaPer)
+                                              && r.getNumeroHab().equals(numeroHab)
+                                              && r.getFechaLlegada().equals(fechaLlegada));
+            }
+            if (cargado) {
+                quitar(porHabitacion, numeroHab, cedulaPer, fechaLlegada);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    private boolean asegurarCargado() {
+        if (isCargado()) {
+            return true;
+        }
+        synchronized (this) {
+            return isCargado() || recargar();
+        }
+    }
+    
+    private static void agregar(Map<Integer, Ocupacion> indice, Reserva reserva) {
+        indice.computeIfAbsent(reserva.getNumeroHab(), k -> new Ocupacion())
+              .agregar(new Estancia(reserva.getCedulaPer(),
+                                    reserva.getFechaLlegada().toEpochDay(),
+                                    reserva.getFechaSalida().toEpochDay()));
+    }
+    
+    private static void quitar(Map<Integer, Ocupacion> indice, Integer numeroHab,
+                               Long cedulaPer, LocalDate fechaLlegada) {
+        Ocupacion ocupacion = indice.get(numeroHab);
+        if (ocupacion != null) {
+            ocupacion.quitar(cedulaPer, fechaLlegada.toEpochDay());
+            if (ocupacion.estancias.isEmpty()) {
+                indice.remove(numeroHab);
+            }
+        }
+    }
+    
+    /**
+     * Rango [inicio, fin) en días epoch de una reserva
+     */
+    private static final class Estancia {
+        
+        private final Long cedulaPer;
+        private final long inicio;
+        private final long fin;
+        
+        Estancia(Long cedulaPer, long inicio, long fin) {
+            this.cedulaPer = cedulaPer;
+            this.inicio = inicio;
+            this.fin = fin;
+        }
+    }
+    
+    /**
+     * Estancias de una habitación ordenadas por inicio
+     * Como ninguna estancia dura más que maxDuracion, las que pueden cruzarse
+     * con [a, b) empiezan después de a - maxDuracion: basta una búsqueda
+     * binaria y recorrer hasta b.
+     */
+    private static final class Ocupacion {
+        
+        private final List<Estancia> estancias = new ArrayList<>();
+        private long maxDuracion;
+        
+        void agregar(Estancia estancia) {
+            quitar(estancia.cedulaPer, estancia.inicio);
+            int pos = primeraDesde(estancia.inicio);
+            estancias.add(pos, estancia);
+            maxDuracion = Math.max(maxDuracion, estancia.fin - estancia.inicio);
+        }
+        
+        void quitar(Long cedulaPer, long inicio) {
+            for (int i = primeraDesde(inicio); i < estancias.size() && estancias.get(i).inicio == inicio; i++) {
+                if (estancias.get(i).cedulaPer.equals(cedulaPer)) {
+                    estancias.remove(i);
+                    return;
+                }
+            }
+        }
+        
+        boolean seCruza(long inicio, long fin) {
+            for (int i = primeraDesde(inicio - maxDuracion + 1); i < estancias.size(); i++) {
+                Estancia estancia = estancias.get(i);
+                if (estancia.inicio >= fin) {
+                    return false;
+                }
+                if (estancia.fin > inicio) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        
+        /**
+         * Posición de la primera estancia con inicio >= valor
+         */
+        private int primeraDesde(long valor) {
+            int bajo = 0;
+            int alto = estancias.size();
+            while (bajo < alto) {
+                int medio = (bajo + alto) >>> 1;
+                if (estancias.get(medio).inicio < valor) {
+                    bajo = medio + 1;
+                } else {
+                    alto = medio;
+                }
+            }
+            return bajo;
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+import db.DBConnection;
+import db.TransactionManager;
+import db.TransactionManager.Propagacion;
+
+/**
+ * Inserción de muchas filas con batching JDBC
+ * Las filas se envían en lotes de TAMANO_LOTE, cada uno en su propia
+ * transacción. Si un lote falla se repite fila por fila con savepoints,
+ * de modo que solo las filas con error quedan fuera y se informan en el
+ * ResultadoLote.
+ *
+ * Dentro de una transacción de TransactionManager los lotes no se
+ * confirman por separado: cada uno corre en un savepoint (NESTED) y lo
+ * insertado se confirma o se deshace junto con la transacción.
+ */
+final class InsercionPorLotes {
+    
+    // Filas por lote (y por transacción)
+    static final int TAMANO_LOTE = 1000;
+    
+    /**
+     * Asigna los parámetros de una fila a la sentencia
+     */
+    @FunctionalInterface
+    interface Vinculador<T> {
+        void vincular(PreparedStatement stmt, T fila) throws SQLException;
+    }
+    
+    private InsercionPorLotes() {
+    }
+    
+    /**
+     * Inserta todas las filas
+     * @param connector origen de las conexiones
+     * @param sql sentencia INSERT con parámetros
+     * @param filas filas a insertar
+     * @param vinculador asignación de parámetros de cada fila
+     * @param alInsertar acción a ejecutar con cada fila confirmada (o guardada
+     *        en la transacción abierta)
+     * @return filas guardadas y fallidas (por posición en la lista)
+     */
+    static <T> ResultadoLote insertar(DBConnection connector, String sql, List<T> filas,
+                                      Vinculador<T> vinculador, Consumer<T> alInsertar) {
+        ResultadoLote resultado = new ResultadoLote();
+        boolean enTransaccion = TransactionManager.isActiva();
+        
+        for (int desde = 0; desde < filas.size(); desde += TAMANO_LOTE) {
+            int hasta = Math.min(desde + TAMANO_LOTE, filas.size());
+            
+            try {
+                List<Integer> confirmadas = enTransaccion
+                        ? insertarLoteAnidado(connector, sql, filas, desde, hasta, vinculador, resultado)
+                        : insertarLote(connector, sql, filas, desde, hasta, vinculador, resultado);
+                
+                resultado.registrarExitos(confirmadas.size());
+                for (int i : confirmadas) {
+                    alInsertar.accept(filas.get(i));
+                }
+            } catch (SQLException e) {
+                System.err.println("Error al insertar lote: " + e.getMessage());
+                for (int i = desde; i < hasta; i++) {
+                    resultado.registrarFallo(i, e.getMessage());
+                }
+            }
+        }
+        return resultado;
+    }
+    
+    /**
+     * Inserta un lote en su propia transacción
+     * @return posiciones de las filas confirmadas
+     */
+    private static <T> List<Integer> insertarLote(DBConnection connector, String sql, List<T> filas,
+                                                  int desde, int hasta, Vinculador<T> vinculador,
+                                                  ResultadoLote resultado) throws SQLException {
+        try (Connection connection = connector.getConn();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
+            connection.setAutoCommit(false);
+            
+            try {
+                for (int i = desde; i < hasta; i++) {
+                    vinculador.vincular(stmt, filas.get(i));
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+                connection.commit();
+                return posiciones(desde, hasta);
+            } catch (SQLException | RuntimeException e) {
+                System.err.println("Error al insertar lote, se reintenta fila por fila: " + e.getMessage());
+                connection.rollback();
+                stmt.clearBatch();
+                return insertarUnaPorUna(connection, stmt, filas, desde, hasta, vinculador, resultado);
+            }
+        }
+    }
+    
+    /**
+     * Inserta un lote dentro de la transacción abierta del hilo. El lote
+     * corre en un savepoint: si falla solo se deshace ese savepoint, y la
+     * repetición fila por fila corre en otro, sin confirmar nada por su cuenta.
+     * @return posiciones de las filas guardadas en la transacción
+     */
+    private static <T> List<Integer> insertarLoteAnidado(DBConnection connector, String sql, List<T> filas,
+                                                         int desde, int hasta, Vinculador<T> vinculador,
+                                                         ResultadoLote resultado) throws SQLException {
+        try {
+            return TransactionManager.ejecutar(connector, Propagacion.NESTED, () -> {
+                try (Connection connection = connector.getConn();
+                     PreparedStatement stmt = connection.prepareStatement(sql)) {
+                    for (int i = desde; i < hasta; i++) {
+                        vinculador.vincular(stmt, filas.get(i));
+                        stmt.addBatch();
+                    }
+                    stmt.executeBatch();
+                    return posiciones(desde, hasta);
+                }
+            });
+        } catch (SQLException | RuntimeException e) {
+            System.err.println("Error al insertar lote, se reintenta fila por fila: " + e.getMessage());
+        }
+        
+        return TransactionManager.ejecutar(connector, Propagacion.NESTED, () -> {
+            try (Connection connection = connector.getConn();
+                 PreparedStatement stmt = connection.prepareStatement(sql)) {
+                return insertarUnaPorUna(connection, stmt, filas, desde, hasta, vinculador, resultado);
+            }
+        });
+    }
+    
+    private static List<Integer> posiciones(int desde, int hasta) {
+        List<Integer> posiciones = new ArrayList<>(hasta - desde);
+        for (int i = desde; i < hasta; i++) {
+            posiciones.add(i);
+        }
+        return posiciones;
+    }
+    
+    /**
+     * Repite un lote fallido fila por fila, descartando con un savepoint
+     * solo las filas que dan error
+     * @return posiciones de las filas confirmadas
+     */
+    private static <T> List<Integer> insertarUnaPorUna(Connection connection, PreparedStatement stmt,
+                                                       List<T> filas, int desde, int hasta,
+                                                       Vinculador<T> vinculador,
+                                                       ResultadoLote resultado) throws SQLException {
+        List<Integer> insertadas = new ArrayList<>();
+        Map<Integer, String> fallidas = new TreeMap<>();
+        
+        for (int i = desde; i < hasta; i++) {
+            Savepoint savepoint = connection.setSavepoint();
+            try {
+                stmt.clearParameters();
+                vinculador.vincular(stmt, filas.get(i));
+                stmt.executeUpdate();
+                connection.releaseSavepoint(savepoint);
+                insertadas.add(i);
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback(savepoint);
+                fallidas.put(i, e.getMessage());
+            }
+        }
+        // Dentro de una transacción de TransactionManager este commit no tiene efecto
+        connection.commit();
+        
+        // Los fallos solo se informan si la transacción se confirmó
+        for (Map.Entry<Integer, String> fallo : fallidas.entrySet()) {
+            resultado.registrarFallo(fallo.getKey(), fallo.getValue());
+        }
+        return insertadas;
+    }
+}
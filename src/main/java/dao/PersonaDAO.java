@@ -1,10 +1,16 @@
 package dao;
 
 import modelo.Persona;
+import modelo.PersonaResumen;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
+import db.DBConnection;
 import db.PostgreSQLConnection;
 
 /**
@@ -13,10 +19,37 @@ import db.PostgreSQLConnection;
  */
 public class PersonaDAO {
     
-    private Connection connection;
+    // Columnas en el orden en que las lee mapResultSetToPersona
+    static final String COLUMNAS = "p.cedulaPer, p.primerNom, p.segundoNom, p.primerApell, p.segundoApell, p.calle, p.carrera, p.numero, p.complemento";
+    
+    private static final String SQL_UPSERT = "INSERT INTO Persona (cedulaPer, primerNom, segundoNom, " +
+                     "primerApell, segundoApell, calle, carrera, numero, complemento) " +
+                     "SELECT * FROM unnest(?::bigint[], ?::text[], ?::text[], ?::text[], ?::text[], " +
+                     "?::text[], ?::text[], ?::text[], ?::text[]) " +
+                     "ON CONFLICT (cedulaPer) DO UPDATE SET primerNom = EXCLUDED.primerNom, " +
+                     "segundoNom = EXCLUDED.segundoNom, primerApell = EXCLUDED.primerApell, " +
+                     "segundoApell = EXCLUDED.segundoApell, calle = EXCLUDED.calle, " +
+                     "carrera = EXCLUDED.carrera, numero = EXCLUDED.numero, complemento = EXCLUDED.complemento " +
+                     // Solo se escribe si algún dato cambió
+                     "WHERE (Persona.primerNom, Persona.segundoNom, Persona.primerApell, Persona.segundoApell, " +
+                     "Persona.calle, Persona.carrera, Persona.numero, Persona.complemento) IS DISTINCT FROM " +
+                     "(EXCLUDED.primerNom, EXCLUDED.segundoNom, EXCLUDED.primerApell, EXCLUDED.segundoApell, " +
+                     "EXCLUDED.calle, EXCLUDED.carrera, EXCLUDED.numero, EXCLUDED.complemento) " +
+                     "RETURNING cedulaPer, (xmax = 0) AS insertado";
+    
+    // Listado resumido, en el orden en que lo lee mapResultSetToResumen
+    private static final String SQL_SELECT_RESUMEN =
+                     "SELECT cedulaPer, primerNom, segundoNom, primerApell, segundoApell, " +
+                     "concat_ws(' ', calle, carrera, numero) " +
+                     "FROM Persona ";
+    private static final String SQL_RESUMEN = SQL_SELECT_RESUMEN + "ORDER BY cedulaPer";
+    
+    private static final String[] TIPOS_UPSERT = {"bigint", "text", "text", "text", "text", "text", "text", "text", "text"};
+    
+    private final DBConnection connector;
     
     public PersonaDAO() throws SQLException {
-        this.connection = PostgreSQLConnection.getConnector().getConn();
+        this.connector = PostgreSQLConnection.getConnector();
     }
     
     /**
@@ -29,7 +62,8 @@ public class PersonaDAO {
                      "primerApell, segundoApell, calle, carrera, numero, complemento) " +
                      "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = connector.getConn();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setLong(1, persona.getCedulaPer());
             stmt.setString(2, persona.getPrimerNom());
             stmt.setString(3, persona.getSegundoNom());
@@ -59,7 +93,8 @@ public class PersonaDAO {
                      "primerApell = ?, segundoApell = ?, calle = ?, carrera = ?, " +
                      "numero = ?, complemento = ? WHERE cedulaPer = ?";
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = connector.getConn();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setString(1, persona.getPrimerNom());
             stmt.setString(2, persona.getSegundoNom());
             stmt.setString(3, persona.getPrimerApell());
@@ -87,7 +122,8 @@ public class PersonaDAO {
     public boolean delete(Long cedulaPer) {
         String sql = "DELETE FROM Persona WHERE cedulaPer = ?";
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = connector.getConn();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setLong(1, cedulaPer);
             
             int rowsAffected = stmt.executeUpdate();
@@ -105,9 +141,10 @@ public class PersonaDAO {
      * @return objeto Persona o null si no se encuentra
      */
     public Persona findById(Long cedulaPer) {
-        String sql = "SELECT * FROM Persona WHERE cedulaPer = ?";
+        String sql = "SELECT " + COLUMNAS + " FROM Persona p WHERE cedulaPer = ?";
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = connector.getConn();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setLong(1, cedulaPer);
             
             try (ResultSet rs = stmt.executeQuery()) {
@@ -121,15 +158,47 @@ public class PersonaDAO {
         return null;
     }
     
+    /**
+     * Busca varias personas en una sola consulta
+     * @param ids cédulas de las personas a buscar
+     * @return mapa cédula -> Persona, solo con los que existen
+     */
+    public Map<Long, Persona> findByIds(Collection<Long> ids) {
+        Map<Long, Persona> resultado = new LinkedHashMap<>();
+        if (ids.isEmpty()) {
+            return resultado;
+        }
+        String sql = "SELECT " + COLUMNAS + " FROM Persona p WHERE cedulaPer = ANY(?) ORDER BY cedulaPer";
+        
+        try (Connection connection = connector.getConn();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
+            Array idsArray = connection.createArrayOf("bigint", ids.toArray());
+            stmt.setArray(1, idsArray);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Persona persona = mapResultSetToPersona(rs);
+                    resultado.put(persona.getCedulaPer(), persona);
+                }
+            } finally {
+                idsArray.free();
+            }
+        } catch (SQLException e) {
+            System.err.println("Error al buscar personas: " + e.getMessage());
+        }
+        return resultado;
+    }
+    
     /**
      * Obtiene todas las personas
      * @return lista de personas
      */
     public List<Persona> findAll() {
         List<Persona> personas = new ArrayList<>();
-        String sql = "SELECT * FROM Persona ORDER BY cedulaPer";
+        String sql = "SELECT " + COLUMNAS + " FROM Persona p ORDER BY cedulaPer";
         
-        try (Statement stmt = connection.createStatement();
+        try (Connection connection = connector.getConn();
+             Statement stmt = connection.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
             
             while (rs.next()) {
@@ -142,6 +211,154 @@ public class PersonaDAO {
         return personas;
     }
     
+    /**
+     * Obtiene el listado resumido de personas (sin complemento y con la dirección armada)
+     * @return lista de filas resumidas, en el mismo orden que findAll
+     */
+    public List<PersonaResumen> findAllResumen() {
+        List<PersonaResumen> personas = new ArrayList<>();
+        
+        try (Connection connection = connector.getConn();
+             Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery(SQL_RESUMEN)) {
+            
+            while (rs.next()) {
+                personas.add(mapResultSetToResumen(rs));
+            }
+            
+        } catch (SQLException e) {
+            System.err.println("Error al obtener resumen de personas: " + e.getMessage());
+        }
+        return personas;
+    }
+    
+    /**
+     * Recorre el listado resumido de personas con un cursor del servidor,
+     * entregando las filas a medida que llegan
+     * @param consumidor acción a ejecutar con cada fila, en el orden de findAllResumen
+     * @return true si se recorrieron todas las filas
+     */
+    public boolean streamAllResumen(Consumer<? super PersonaResumen> consumidor) {
+        try {
+            ConsultaCursor.recorrer(connector, SQL_RESUMEN, PersonaDAO::mapResultSetToResumen, consumidor);
+            return true;
+            
+        } catch (SQLException e) {
+            System.err.println("Error al recorrer resumen de personas: " + e.getMessage());
+            return false;
+        }
+    }
+    
+    /**
+     * Obtiene una página de personas ordenada por cédula, continuando
+     * después de la última fila de la página anterior (paginación por clave)
+     * @param afterCedula última cédula de la página anterior, o null para la primera página
+     * @param limit número máximo de personas a devolver
+     * @return lista de personas de la página
+     */
+    public List<Persona> findPage(Long afterCedula, int limit) {
+        List<Persona> personas = new ArrayList<>();
+        String sql = afterCedula == null
+                ? "SELECT " + COLUMNAS + " FROM Persona p ORDER BY cedulaPer LIMIT ?"
+                : "SELECT " + COLUMNAS + " FROM Persona p WHERE cedulaPer > ? ORDER BY cedulaPer LIMIT ?";
+        
+        try (Connection connection = connector.getConn();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
+            int i = 1;
+            if (afterCedula != null) {
+                stmt.setLong(i++, afterCedula);
+            }
+            stmt.setInt(i, limit);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    personas.add(mapResultSetToPersona(rs));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error al obtener página de personas: " + e.getMessage());
+        }
+        return personas;
+    }
+    
+    /**
+     * Cuenta las personas registradas
+     * @return número de personas, o -1 si hubo un error
+     */
+    public long count() {
+        try (Connection connection = connector.getConn();
+             Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT count(*) FROM Persona")) {
+            
+            rs.next();
+            return rs.getLong(1);
+            
+        } catch (SQLException e) {
+            System.err.println("Error al contar personas: " + e.getMessage());
+            return -1;
+        }
+    }
+    
+    /**
+     * Obtiene una página del listado resumido ordenada por cédula, continuando
+     * después de la última fila de la página anterior (paginación por clave)
+     * @param afterCedula última cédula de la página anterior, o null para la primera página
+     * @param limit número máximo de filas a devolver
+     * @return filas resumidas de la página
+     */
+    public List<PersonaResumen> findPageResumen(Long afterCedula, int limit) {
+        List<PersonaResumen> personas = new ArrayList<>();
+        String sql = afterCedula == null
+                ? SQL_SELECT_RESUMEN + "ORDER BY cedulaPer LIMIT ?"
+                : SQL_SELECT_RESUMEN + "WHERE cedulaPer > ? ORDER BY cedulaPer LIMIT ?";
+        
+        try (Connection connection = connector.getConn();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
+            int i = 1;
+            if (afterCedula != null) {
+                stmt.setLong(i++, afterCedula);
+            }
+            stmt.setInt(i, limit);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    personas.add(mapResultSetToResumen(rs));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error al obtener página de personas: " + e.getMessage());
+        }
+        return personas;
+    }
+    
+    /**
+     * Obtiene una página del listado resumido por posición. En posiciones
+     * altas es más lenta que findPageResumen, que conviene usar cuando se
+     * conoce la última fila de la página anterior.
+     * @param offset número de filas que se saltan
+     * @param limit número máximo de filas a devolver
+     * @return filas resumidas de la página
+     */
+    public List<PersonaResumen> findPageResumenAt(long offset, int limit) {
+        List<PersonaResumen> personas = new ArrayList<>();
+        String sql = SQL_SELECT_RESUMEN + "ORDER BY cedulaPer LIMIT ? OFFSET ?";
+        
+        try (Connection connection = connector.getConn();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setInt(1, limit);
+            stmt.setLong(2, offset);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    personas.add(mapResultSetToResumen(rs));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error al obtener página de personas: " + e.getMessage());
+        }
+        return personas;
+    }
+    
     /**
      * Busca personas por apellido
      * @param apellido apellido a buscar
@@ -149,9 +366,10 @@ public class PersonaDAO {
      */
     public List<Persona> findByApellido(String apellido) {
         List<Persona> personas = new ArrayList<>();
-        String sql = "SELECT * FROM Persona WHERE primerApell LIKE ? OR segundoApell LIKE ?";
+        String sql = "SELECT " + COLUMNAS + " FROM Persona p WHERE primerApell LIKE ? OR segundoApell LIKE ?";
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = connector.getConn();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             String pattern = "%" + apellido + "%";
             stmt.setString(1, pattern);
             stmt.setString(2, pattern);
@@ -167,22 +385,91 @@ public class PersonaDAO {
         return personas;
     }
     
+    /**
+     * Recorre todas las personas con un cursor del servidor, entregándolas
+     * al consumidor a medida que llegan sin cargar la tabla en memoria
+     * @param consumidor acción a ejecutar con cada persona
+     * @return true si se recorrieron todas las personas
+     */
+    public boolean streamAll(Consumer<? super Persona> consumidor) {
+        String sql = "SELECT " + COLUMNAS + " FROM Persona p ORDER BY cedulaPer";
+        
+        try {
+            ConsultaCursor.recorrer(connector, sql, this::mapResultSetToPersona, consumidor);
+            return true;
+            
+        } catch (SQLException e) {
+            System.err.println("Error al recorrer personas: " + e.getMessage());
+            return false;
+        }
+    }
+    
+    /**
+     * Inserta una persona o, si ya existe, actualiza sus datos,
+     * en una sola sentencia (INSERT ... ON CONFLICT)
+     * @param persona objeto Persona a guardar
+     * @return INSERTADO, ACTUALIZADO o SIN_CAMBIOS; null si hubo un error
+     */
+    public ResultadoUpsert upsert(Persona persona) {
+        List<ResultadoUpsert> resultados = upsertBatch(List.of(persona));
+        return resultados != null ? resultados.get(0) : null;
+    }
+    
+    /**
+     * Guarda muchas personas con upsert, en lotes de 1000 filas por sentencia
+     * y en una sola transacción
+     * @param personas lista de objetos Persona a guardar
+     * @return resultado de cada fila en el orden de la lista, o null si hubo
+     *         un error (en ese caso no se guarda ninguna)
+     */
+    public List<ResultadoUpsert> upsertBatch(List<Persona> personas) {
+        try {
+            return UpsertPorArreglos.ejecutar(
+                    connector, SQL_UPSERT, TIPOS_UPSERT, personas,
+                    p -> new Object[]{p.getCedulaPer(), p.getPrimerNom(), p.getSegundoNom(), p.getPrimerApell(),
+                                       p.getSegundoApell(), p.getCalle(), p.getCarrera(), p.getNumero(), p.getComplemento()},
+                    Persona::getCedulaPer, rs -> rs.getLong(1));
+            
+        } catch (SQLException e) {
+            System.err.println("Error al guardar personas: " + e.getMessage());
+            return null;
+        }
+    }
+    
     /**
      * Mapea un ResultSet a un objeto Persona
-     * @param rs ResultSet con los datos
+     * @param rs ResultSet con las columnas de COLUMNAS
      * @return objeto Persona
      */
     private Persona mapResultSetToPersona(ResultSet rs) throws SQLException {
         Persona persona = new Persona();
-        persona.setCedulaPer(rs.getLong("cedulaPer"));
-        persona.setPrimerNom(rs.getString("primerNom"));
-        persona.setSegundoNom(rs.getString("segundoNom"));
-        persona.setPrimerApell(rs.getString("primerApell"));
-        persona.setSegundoApell(rs.getString("segundoApell"));
-        persona.setCalle(rs.getString("calle"));
-        persona.setCarrera(rs.getString("carrera"));
-        persona.setNumero(rs.getString("numero"));
-        persona.setComplemento(rs.getString("complemento"));
+        cargarPersona(rs, persona);
         return persona;
     }
+    
+    /**
+     * Mapea una fila de SQL_RESUMEN
+     */
+    private static PersonaResumen mapResultSetToResumen(ResultSet rs) throws SQLException {
+        return new PersonaResumen(rs.getLong(1), rs.getString(2), rs.getString(3),
+                                  rs.getString(4), rs.getString(5), rs.getString(6));
+    }
+    
+    /**
+     * Copia a una persona (o subclase) las columnas de COLUMNAS, que deben
+     * ser las primeras de la consulta
+     * @param rs ResultSet posicionado en la fila
+     * @param persona objeto a completar
+     */
+    static void cargarPersona(ResultSet rs, Persona persona) throws SQLException {
+        persona.setCedulaPer(rs.getLong(1));
+        persona.setPrimerNom(rs.getString(2));
+        persona.setSegundoNom(rs.getString(3));
+        persona.setPrimerApell(rs.getString(4));
+        persona.setSegundoApell(rs.getString(5));
+        persona.setCalle(rs.getString(6));
+        persona.setCarrera(rs.getString(7));
+        persona.setNumero(rs.getString(8));
+        persona.setComplemento(rs.getString(9));
+    }
 }
\ No newline at end of file
@@ -3,23 +3,50 @@ package dao;
 import modelo.Cliente;
 import modelo.Habitacion;
 import modelo.Reserva;
+import modelo.ReservaResumen;
 import java.sql.*;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
+import db.DBConnection;
 import db.PostgreSQLConnection;
 
 /**
  * DAO para la tabla Reserva
  * Implementa las operaciones CRUD
+ *
+ * Las consultas leen solo las reservas vigentes; las que ArchivoHistoricoDAO
+ * movió a ReservaHistorico se incluyen con las variantes includeHistory.
  */
 public class ReservaDAO {
     
-    private Connection connection;
+    private static final String SQL_INSERT = "INSERT INTO Reserva (cedulaPer, numeroHab, fechaLlegada, " +
+                     "fechaSalida, tiempoMaxCancel) VALUES (?, ?, ?, ?, ?)";
+    
+    // Columnas en el orden en que las lee mapResultSetToReserva
+    static final String COLUMNAS = "r.cedulaPer, r.numeroHab, r.fechaLlegada, r.fechaSalida, r.tiempoMaxCancel";
+    
+    private static final String SQL_DETAILS = "SELECT " + COLUMNAS + ", " +
+                     "p.primerNom, p.segundoNom, p.primerApell, p.segundoApell, " +
+                     "h.categoria, h.estadoHab, h.precioNoche " +
+                     "FROM Reserva r " +
+                     "INNER JOIN Cliente c ON r.cedulaPer = c.cedulaPer " +
+                     "INNER JOIN Persona p ON c.cedulaPer = p.cedulaPer " +
+                     "INNER JOIN Habitacion h ON r.numeroHab = h.numeroHab ";
+    
+    private static final String SQL_ALL_WITH_DETAILS = SQL_DETAILS + "ORDER BY r.fechaLlegada DESC";
+    
+    // Paginación por clave: el orden de findAll completado con la llave primaria
+    private static final String PAGE_AFTER = "WHERE (r.fechaLlegada, r.cedulaPer, r.numeroHab) < (?, ?, ?) ";
+    private static final String PAGE_ORDER = "ORDER BY r.fechaLlegada DESC, r.cedulaPer DESC, r.numeroHab DESC LIMIT ?";
+    
+    private final DBConnection connector;
+    private final IndiceOcupacion indice = IndiceOcupacion.getInstance();
     
     public ReservaDAO() throws SQLException {
-        this.connection = PostgreSQLConnection.getConnector().getConn();
+        this.connector = PostgreSQLConnection.getConnector();
     }
     
     /**
@@ -28,17 +55,14 @@ public class ReservaDAO {
      * @return true si se insertó correctamente
      */
     public boolean insert(Reserva reserva) {
-        String sql = "INSERT INTO Reserva (cedulaPer, numeroHab, fechaLlegada, " +
-                     "fechaSalida, tiempoMaxCancel) VALUES (?, ?, ?, ?, ?)";
-        
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setLong(1, reserva.getCedulaPer());
-            stmt.setInt(2, reserva.getNumeroHab());
-            stmt.setDate(3, Date.valueOf(reserva.getFechaLlegada()));
-            stmt.setDate(4, Date.valueOf(reserva.getFechaSalida()));
-            stmt.setInt(5, reserva.getTiempoMaxCancel());
+        try (Connection connection = connector.getConn();
+             PreparedStatement stmt = connection.prepareStatement(SQL_INSERT)) {
+            vincularInsert(stmt, reserva);
             
             int rowsAffected = stmt.executeUpdate();
+            if (rowsAffected > 0) {
+                indice.registrar(reserva);
+            }
             return rowsAffected > 0;
             
         } catch (SQLException e) {
@@ -47,6 +71,18 @@ public class ReservaDAO {
         }
     }
     
+    /**
+     * Inserta muchas reservas (p. ej. una reserva de grupo) en lotes de
+     * 1000 filas por transacción. Las filas con error se informan en el
+     * resultado sin impedir que se guarden las demás.
+     * @param reservas reservas a insertar
+     * @return reservas guardadas y fallidas (por posición en la lista)
+     */
+    public ResultadoLote insertBatch(List<Reserva> reservas) {
+        return InsercionPorLotes.insertar(connector, SQL_INSERT, reservas,
+                                          ReservaDAO::vincularInsert, indice::registrar);
+    }
+    
     /**
      * Actualiza una reserva existente
      * @param reserva objeto Reserva con los datos actualizados
@@ -58,7 +94,8 @@ public class ReservaDAO {
                      "fechaLlegada = ?, fechaSalida = ?, tiempoMaxCancel = ? " +
                      "WHERE cedulaPer = ? AND numeroHab = ? AND fechaLlegada = ?";
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = connector.getConn();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setLong(1, reserva.getCedulaPer());
             stmt.setInt(2, reserva.getNumeroHab());
             stmt.setDate(3, Date.valueOf(reserva.getFechaLlegada()));
@@ -69,6 +106,10 @@ public class ReservaDAO {
             stmt.setDate(8, Date.valueOf(oldFechaLlegada));
             
             int rowsAffected = stmt.executeUpdate();
+            if (rowsAffected > 0) {
+                indice.eliminar(oldCedulaPer, oldNumeroHab, oldFechaLlegada);
+                indice.registrar(reserva);
+            }
             return rowsAffected > 0;
             
         } catch (SQLException e) {
@@ -91,7 +132,8 @@ public class ReservaDAO {
         String sql = "UPDATE Reserva SET fechaSalida = ?, tiempoMaxCancel = ? " +
                      "WHERE cedulaPer = ? AND numeroHab = ? AND fechaLlegada = ?";
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = connector.getConn();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setDate(1, Date.valueOf(nuevaFechaSalida));
             stmt.setInt(2, nuevoTiempoCancel);
             stmt.setLong(3, cedulaPer);
@@ -99,6 +141,10 @@ public class ReservaDAO {
             stmt.setDate(5, Date.valueOf(fechaLlegada));
             
             int rowsAffected = stmt.executeUpdate();
+            if (rowsAffected > 0) {
+                indice.registrar(new Reserva(cedulaPer, numeroHab, fechaLlegada,
+                                             nuevaFechaSalida, nuevoTiempoCancel));
+            }
             return rowsAffected > 0;
             
         } catch (SQLException e) {
@@ -118,12 +164,16 @@ public class ReservaDAO {
         String sql = "DELETE FROM Reserva WHERE cedulaPer = ? AND numeroHab = ? " +
                      "AND fechaLlegada = ?";
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = connector.getConn();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setLong(1, cedulaPer);
             stmt.setInt(2, numeroHab);
             stmt.setDate(3, Date.valueOf(fechaLlegada));
             
             int rowsAffected = stmt.executeUpdate();
+            if (rowsAffected > 0) {
+                indice.eliminar(cedulaPer, numeroHab, fechaLlegada);
+            }
             return rowsAffected > 0;
             
         } catch (SQLException e) {
@@ -132,6 +182,18 @@ public class ReservaDAO {
         }
     }
     
+    /**
+     * Verifica si una habitación tiene reservas que se crucen con un rango
+     * de fechas, usando el índice de ocupación en memoria
+     * @param numeroHab número de habitación
+     * @param llegada fecha de llegada
+     * @param salida fecha de salida
+     * @return true si hay conflicto (o si no se pudo cargar el índice)
+     */
+    public boolean hayConflicto(Integer numeroHab, LocalDate llegada, LocalDate salida) {
+        return !indice.estaDisponible(numeroHab, llegada, salida);
+    }
+    
     /**
      * Busca una reserva específica
      * @param cedulaPer cédula del cliente
@@ -140,13 +202,28 @@ public class ReservaDAO {
      * @return objeto Reserva o null si no se encuentra
      */
     public Reserva findById(Long cedulaPer, Integer numeroHab, LocalDate fechaLlegada) {
-        String sql = "SELECT * FROM Reserva WHERE cedulaPer = ? AND numeroHab = ? " +
-                     "AND fechaLlegada = ?";
+        return findById(cedulaPer, numeroHab, fechaLlegada, false);
+    }
+    
+    /**
+     * Busca una reserva específica, opcionalmente también entre las archivadas
+     * @param cedulaPer cédula del cliente
+     * @param numeroHab número de habitación
+     * @param fechaLlegada fecha de llegada
+     * @param includeHistory true para buscar también en ReservaHistorico
+     * @return objeto Reserva o null si no se encuentra
+     */
+    public Reserva findById(Long cedulaPer, Integer numeroHab, LocalDate fechaLlegada,
+                            boolean includeHistory) {
+        String sql = consulta("WHERE cedulaPer = ? AND numeroHab = ? AND fechaLlegada = ? ", includeHistory);
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setLong(1, cedulaPer);
-            stmt.setInt(2, numeroHab);
-            stmt.setDate(3, Date.valueOf(fechaLlegada));
+        try (Connection connection = connector.getConn();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
+            for (int i = 0; i < (includeHistory ? 2 : 1); i++) {
+                stmt.setLong(3 * i + 1, cedulaPer);
+                stmt.setInt(3 * i + 2, numeroHab);
+                stmt.setDate(3 * i + 3, Date.valueOf(fechaLlegada));
+            }
             
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
@@ -165,9 +242,10 @@ public class ReservaDAO {
      */
     public List<Reserva> findAll() {
         List<Reserva> reservas = new ArrayList<>();
-        String sql = "SELECT * FROM Reserva ORDER BY fechaLlegada DESC";
+        String sql = "SELECT " + COLUMNAS + " FROM Reserva r ORDER BY fechaLlegada DESC";
         
-        try (Statement stmt = connection.createStatement();
+        try (Connection connection = connector.getConn();
+             Statement stmt = connection.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
             
             while (rs.next()) {
@@ -180,17 +258,73 @@ public class ReservaDAO {
         return reservas;
     }
     
+    /**
+     * Obtiene el listado resumido de reservas, sin crear los objetos Cliente
+     * y Habitacion del modelo completo
+     * @return lista de filas resumidas, en el mismo orden que findAll
+     */
+    public List<ReservaResumen> findAllResumen() {
+        List<ReservaResumen> reservas = new ArrayList<>();
+        String sql = "SELECT " + COLUMNAS + " FROM Reserva r ORDER BY fechaLlegada DESC";
+        
+        try (Connection connection = connector.getConn();
+             Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            
+            while (rs.next()) {
+                reservas.add(mapResultSetToResumen(rs));
+            }
+            
+        } catch (SQLException e) {
+            System.err.println("Error al obtener resumen de reservas: " + e.getMessage());
+        }
+        return reservas;
+    }
+    
+    /**
+     * Recorre el listado resumido de reservas con un cursor del servidor,
+     * entregando las filas a medida que llegan
+     * @param consumidor acción a ejecutar con cada fila, en el orden de findAllResumen
+     * @return true si se recorrieron todas las filas
+     */
+    public boolean streamAllResumen(Consumer<? super ReservaResumen> consumidor) {
+        String sql = "SELECT " + COLUMNAS + " FROM Reserva r ORDER BY fechaLlegada DESC";
+        
+        try {
+            ConsultaCursor.recorrer(connector, sql, ReservaDAO::mapResultSetToResumen, consumidor);
+            return true;
+            
+        } catch (SQLException e) {
+            System.err.println("Error al recorrer resumen de reservas: " + e.getMessage());
+            return false;
+        }
+    }
+    
     /**
      * Busca reservas por cliente
      * @param cedulaPer cédula del cliente
      * @return lista de reservas del cliente
      */
     public List<Reserva> findByCliente(Long cedulaPer) {
+        return findByCliente(cedulaPer, false);
+    }
+    
+    /**
+     * Busca reservas por cliente, opcionalmente incluyendo las archivadas
+     * @param cedulaPer cédula del cliente
+     * @param includeHistory true para incluir las reservas de ReservaHistorico
+     * @return lista de reservas del cliente
+     */
+    public List<Reserva> findByCliente(Long cedulaPer, boolean includeHistory) {
         List<Reserva> reservas = new ArrayList<>();
-        String sql = "SELECT * FROM Reserva WHERE cedulaPer = ? ORDER BY fechaLlegada DESC";
+        String sql = consulta("WHERE cedulaPer = ? ", includeHistory) + "ORDER BY fechaLlegada DESC";
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = connector.getConn();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setLong(1, cedulaPer);
+            if (includeHistory) {
+                stmt.setLong(2, cedulaPer);
+            }
             
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
@@ -209,11 +343,25 @@ public class ReservaDAO {
      * @return lista de reservas de la habitación
      */
     public List<Reserva> findByHabitacion(Integer numeroHab) {
+        return findByHabitacion(numeroHab, false);
+    }
+    
+    /**
+     * Busca reservas por habitación, opcionalmente incluyendo las archivadas
+     * @param numeroHab número de habitación
+     * @param includeHistory true para incluir las reservas de ReservaHistorico
+     * @return lista de reservas de la habitación
+     */
+    public List<Reserva> findByHabitacion(Integer numeroHab, boolean includeHistory) {
         List<Reserva> reservas = new ArrayList<>();
-        String sql = "SELECT * FROM Reserva WHERE numeroHab = ? ORDER BY fechaLlegada DESC";
+        String sql = consulta("WHERE numeroHab = ? ", includeHistory) + "ORDER BY fechaLlegada DESC";
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = connector.getConn();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setInt(1, numeroHab);
+            if (includeHistory) {
+                stmt.setInt(2, numeroHab);
+            }
             
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
@@ -227,15 +375,17 @@ public class ReservaDAO {
     }
     
     /**
-     * Busca reservas activas (fecha de salida >= hoy)
+     * Busca reservas activas (fecha de salida >= hoy). Las reservas activas
+     * nunca están archivadas, por eso no hay variante con historial.
      * @return lista de reservas activas
      */
     public List<Reserva> findReservasActivas() {
         List<Reserva> reservas = new ArrayList<>();
-        String sql = "SELECT * FROM Reserva WHERE fechaSalida >= CURRENT_DATE " +
+        String sql = "SELECT " + COLUMNAS + " FROM Reserva r WHERE fechaSalida >= CURRENT_DATE " +
                      "ORDER BY fechaLlegada";
         
-        try (Statement stmt = connection.createStatement();
+        try (Connection connection = connector.getConn();
+             Statement stmt = connection.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
             
             while (rs.next()) {
@@ -254,38 +404,14 @@ public class ReservaDAO {
      */
     public List<Reserva> findAllWithDetails() {
         List<Reserva> reservas = new ArrayList<>();
-        String sql = "SELECT r.*, " +
-                     "p.primerNom, p.segundoNom, p.primerApell, p.segundoApell, " +
-                     "h.categoria, h.estadoHab, h.precioNoche " +
-                     "FROM Reserva r " +
-                     "INNER JOIN Cliente c ON r.cedulaPer = c.cedulaPer " +
-                     "INNER JOIN Persona p ON c.cedulaPer = p.cedulaPer " +
-                     "INNER JOIN Habitacion h ON r.numeroHab = h.numeroHab " +
-                     "ORDER BY r.fechaLlegada DESC";
+        String sql = SQL_ALL_WITH_DETAILS;
         
-        try (Statement stmt = connection.createStatement();
+        try (Connection connection = connector.getConn();
+             Statement stmt = connection.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
             
             while (rs.next()) {
-                Reserva reserva = mapResultSetToReserva(rs);
-                
-                // Crear objetos relacionados
-                Cliente cliente = new Cliente();
-                cliente.setCedulaPer(rs.getLong("cedulaPer"));
-                cliente.setPrimerNom(rs.getString("primerNom"));
-                cliente.setSegundoNom(rs.getString("segundoNom"));
-                cliente.setPrimerApell(rs.getString("primerApell"));
-                cliente.setSegundoApell(rs.getString("segundoApell"));
-                
-                Habitacion habitacion = new Habitacion();
-                habitacion.setNumeroHab(rs.getInt("numeroHab"));
-                habitacion.setCategoria(rs.getString("categoria"));
-                habitacion.setEstadoHab(rs.getString("estadoHab"));
-                habitacion.setPrecioNoche(rs.getBigDecimal("precioNoche"));
-                
-                reserva.setCliente(cliente);
-                reserva.setHabitacion(habitacion);
-                reservas.add(reserva);
+                reservas.add(mapResultSetToReservaConDetalles(rs));
             }
             
         } catch (SQLException e) {
@@ -294,18 +420,234 @@ public class ReservaDAO {
         return reservas;
     }
     
+    /**
+     * Obtiene una página de reservas en el orden de findAll (fecha de llegada
+     * descendente), continuando después de la última reserva de la página
+     * anterior. Si afterFechaLlegada es null se obtiene la primera página.
+     * @param afterFechaLlegada fecha de llegada de la última reserva de la página anterior
+     * @param afterCedulaPer cédula de la última reserva de la página anterior
+     * @param afterNumeroHab habitación de la última reserva de la página anterior
+     * @param limit número máximo de reservas a devolver
+     * @return lista de reservas de la página
+     */
+    public List<Reserva> findPage(LocalDate afterFechaLlegada, Long afterCedulaPer,
+                                  Integer afterNumeroHab, int limit) {
+        return findPage("SELECT " + COLUMNAS + " FROM Reserva r ", afterFechaLlegada, afterCedulaPer,
+                        afterNumeroHab, limit, this::mapResultSetToReserva);
+    }
+    
+    /**
+     * Obtiene una página de reservas con información de cliente y habitación,
+     * con el mismo orden y claves que findPage
+     * @param afterFechaLlegada fecha de llegada de la última reserva de la página anterior
+     * @param afterCedulaPer cédula de la última reserva de la página anterior
+     * @param afterNumeroHab habitación de la última reserva de la página anterior
+     * @param limit número máximo de reservas a devolver
+     * @return lista de reservas con objetos relacionados
+     */
+    public List<Reserva> findPageWithDetails(LocalDate afterFechaLlegada, Long afterCedulaPer,
+                                             Integer afterNumeroHab, int limit) {
+        return findPage(SQL_DETAILS, afterFechaLlegada, afterCedulaPer, afterNumeroHab, limit,
+                        this::mapResultSetToReservaConDetalles);
+    }
+    
+    /**
+     * Obtiene una página del listado resumido, con el mismo orden y claves que findPage
+     * @param afterFechaLlegada fecha de llegada de la última reserva de la página anterior
+     * @param afterCedulaPer cédula de la última reserva de la página anterior
+     * @param afterNumeroHab habitación de la última reserva de la página anterior
+     * @param limit número máximo de reservas a devolver
+     * @return filas resumidas de la página
+     */
+    public List<ReservaResumen> findPageResumen(LocalDate afterFechaLlegada, Long afterCedulaPer,
+                                                Integer afterNumeroHab, int limit) {
+        return findPage("SELECT " + COLUMNAS + " FROM Reserva r ", afterFechaLlegada, afterCedulaPer,
+                        afterNumeroHab, limit, ReservaDAO::mapResultSetToResumen);
+    }
+    
+    /**
+     * Obtiene una página del listado resumido por posición, en el orden de
+     * findPage. En posiciones altas es más lenta que findPageResumen, que
+     * conviene usar cuando se conoce la última reserva de la página anterior.
+     * @param offset número de reservas que se saltan
+     * @param limit número máximo de reservas a devolver
+     * @return filas resumidas de la página
+     */
+    public List<ReservaResumen> findPageResumenAt(long offset, int limit) {
+        List<ReservaResumen> reservas = new ArrayList<>();
+        String sql = "SELECT " + COLUMNAS + " FROM Reserva r " + PAGE_ORDER + " OFFSET ?";
+        
+        try (Connection connection = connector.getConn();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setInt(1, limit);
+            stmt.setLong(2, offset);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    reservas.add(mapResultSetToResumen(rs));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error al obtener página de reservas: " + e.getMessage());
+        }
+        return reservas;
+    }
+    
+    /**
+     * Cuenta las reservas vigentes (sin las archivadas)
+     * @return número de reservas, o -1 si hubo un error
+     */
+    public long count() {
+        try (Connection connection = connector.getConn();
+             Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT count(*) FROM Reserva")) {
+            
+            rs.next();
+            return rs.getLong(1);
+            
+        } catch (SQLException e) {
+            System.err.println("Error al contar reservas: " + e.getMessage());
+            return -1;
+        }
+    }
+    
+    private <T> List<T> findPage(String select, LocalDate afterFechaLlegada, Long afterCedulaPer,
+                                 Integer afterNumeroHab, int limit, RowMapper<T> mapper) {
+        List<T> reservas = new ArrayList<>();
+        String sql = afterFechaLlegada == null
+                ? select + PAGE_ORDER
+                : select + PAGE_AFTER + PAGE_ORDER;
+        
+        try (Connection connection = connector.getConn();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
+            int i = 1;
+            if (afterFechaLlegada != null) {
+                stmt.setDate(i++, Date.valueOf(afterFechaLlegada));
+                stmt.setLong(i++, afterCedulaPer);
+                stmt.setInt(i++, afterNumeroHab);
+            }
+            stmt.setInt(i, limit);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    reservas.add(mapper.map(rs));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error al obtener página de reservas: " + e.getMessage());
+        }
+        return reservas;
+    }
+    
+    /**
+     * Recorre todas las reservas con un cursor del servidor, entregándolas
+     * al consumidor a medida que llegan sin cargar la tabla en memoria
+     * @param consumidor acción a ejecutar con cada reserva
+     * @return true si se recorrieron todas las reservas
+     */
+    public boolean streamAll(Consumer<? super Reserva> consumidor) {
+        String sql = "SELECT " + COLUMNAS + " FROM Reserva r ORDER BY fechaLlegada DESC";
+        
+        try {
+            ConsultaCursor.recorrer(connector, sql, this::mapResultSetToReserva, consumidor);
+            return true;
+            
+        } catch (SQLException e) {
+            System.err.println("Error al recorrer reservas: " + e.getMessage());
+            return false;
+        }
+    }
+    
+    /**
+     * Recorre las reservas con información de cliente y habitación usando
+     * un cursor del servidor
+     * @param consumidor acción a ejecutar con cada reserva
+     * @return true si se recorrieron todas las reservas
+     */
+    public boolean streamAllWithDetails(Consumer<? super Reserva> consumidor) {
+        try {
+            ConsultaCursor.recorrer(connector, SQL_ALL_WITH_DETAILS,
+                                    this::mapResultSetToReservaConDetalles, consumidor);
+            return true;
+            
+        } catch (SQLException e) {
+            System.err.println("Error al recorrer reservas con detalles: " + e.getMessage());
+            return false;
+        }
+    }
+    
+    /**
+     * Consulta de COLUMNAS sobre Reserva con el filtro indicado; con
+     * includeHistory se le une la misma consulta sobre ReservaHistorico,
+     * así que los parámetros del filtro se asignan dos veces
+     */
+    private static String consulta(String filtro, boolean includeHistory) {
+        String sql = "SELECT " + COLUMNAS + " FROM Reserva r " + filtro;
+        if (includeHistory) {
+            sql += "UNION ALL SELECT " + COLUMNAS + " FROM ReservaHistorico r " + filtro;
+        }
+        return sql;
+    }
+    
+    /**
+     * Asigna los parámetros de SQL_INSERT
+     */
+    private static void vincularInsert(PreparedStatement stmt, Reserva reserva) throws SQLException {
+        stmt.setLong(1, reserva.getCedulaPer());
+        stmt.setInt(2, reserva.getNumeroHab());
+        stmt.setDate(3, Date.valueOf(reserva.getFechaLlegada()));
+        stmt.setDate(4, Date.valueOf(reserva.getFechaSalida()));
+        stmt.setInt(5, reserva.getTiempoMaxCancel());
+    }
+    
     /**
      * Mapea un ResultSet a un objeto Reserva
-     * @param rs ResultSet con los datos
+     * @param rs ResultSet con las columnas de COLUMNAS
      * @return objeto Reserva
      */
     private Reserva mapResultSetToReserva(ResultSet rs) throws SQLException {
         Reserva reserva = new Reserva();
-        reserva.setCedulaPer(rs.getLong("cedulaPer"));
-        reserva.setNumeroHab(rs.getInt("numeroHab"));
-        reserva.setFechaLlegada(rs.getDate("fechaLlegada").toLocalDate());
-        reserva.setFechaSalida(rs.getDate("fechaSalida").toLocalDate());
-        reserva.setTiempoMaxCancel(rs.getInt("tiempoMaxCancel"));
+        reserva.setCedulaPer(rs.getLong(1));
+        reserva.setNumeroHab(rs.getInt(2));
+        reserva.setFechaLlegada(rs.getDate(3).toLocalDate());
+        reserva.setFechaSalida(rs.getDate(4).toLocalDate());
+        reserva.setTiempoMaxCancel(rs.getInt(5));
+        return reserva;
+    }
+    
+    /**
+     * Mapea un ResultSet con las columnas de COLUMNAS a una fila resumida
+     */
+    private static ReservaResumen mapResultSetToResumen(ResultSet rs) throws SQLException {
+        return new ReservaResumen(rs.getLong(1), rs.getInt(2), rs.getDate(3).toLocalDate(),
+                                  rs.getDate(4).toLocalDate(), rs.getInt(5));
+    }
+    
+    /**
+     * Mapea un ResultSet de la consulta con detalles a una Reserva con
+     * sus objetos Cliente y Habitacion
+     * @param rs ResultSet con los datos
+     * @return objeto Reserva con objetos relacionados
+     */
+    private Reserva mapResultSetToReservaConDetalles(ResultSet rs) throws SQLException {
+        Reserva reserva = mapResultSetToReserva(rs);
+        
+        // Crear objetos relacionados
+        Cliente cliente = new Cliente();
+        cliente.setCedulaPer(reserva.getCedulaPer());
+        cliente.setPrimerNom(rs.getString(6));
+        cliente.setSegundoNom(rs.getString(7));
+        cliente.setPrimerApell(rs.getString(8));
+        cliente.setSegundoApell(rs.getString(9));
+        
+        Habitacion habitacion = new Habitacion();
+        habitacion.setNumeroHab(reserva.getNumeroHab());
+        habitacion.setCategoria(rs.getString(10));
+        habitacion.setEstadoHab(rs.getString(11));
+        habitacion.setPrecioNoche(rs.getBigDecimal(12));
+        
+        reserva.setCliente(cliente);
+        reserva.setHabitacion(habitacion);
         return reserva;
     }
 }
\ No newline at end of file
@@ -0,0 +1,50 @@
+package dao;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Resultado de una operación por lotes: cuántas filas se guardaron y qué
+ * filas fallaron, identificadas por su posición en la entrada
+ */
+public class ResultadoLote {
+    
+    private int exitosos;
+    private final Map<Integer, String> fallos = new TreeMap<>();
+    
+    void registrarExitos(int cantidad) {
+        exitosos += cantidad;
+    }
+    
+    void registrarFallo(int posicion, String mensaje) {
+        fallos.put(posicion, mensaje);
+    }
+    
+    /**
+     * Número de filas guardadas
+     */
+    public int getExitosos() {
+        return exitosos;
+    }
+    
+    /**
+     * Filas que no se pudieron guardar
+     * @return mapa posición en la entrada -> mensaje de error, en orden
+     */
+    public Map<Integer, String> getFallos() {
+        return Collections.unmodifiableMap(fallos);
+    }
+    
+    /**
+     * Indica si todas las filas se guardaron
+     */
+    public boolean isCompleto() {
+        return fallos.isEmpty();
+    }
+    
+    @Override
+    public String toString() {
+        return "ResultadoLote{exitosos=" + exitosos + ", fallos=" + fallos.size() + "}";
+    }
+}
@@ -0,0 +1,16 @@
+package dao;
+
+/**
+ * Resultado de guardar una fila con upsert (INSERT ... ON CONFLICT)
+ */
+public enum ResultadoUpsert {
+    
+    /** La fila no existía y se insertó */
+    INSERTADO,
+    
+    /** La fila existía con otros datos y se actualizó */
+    ACTUALIZADO,
+    
+    /** La fila ya existía con los mismos datos; no se escribió nada */
+    SIN_CAMBIOS
+}
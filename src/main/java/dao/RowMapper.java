@@ -0,0 +1,20 @@
+package dao;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Convierte la fila actual de un ResultSet en un objeto del modelo
+ * @param <T> tipo del objeto resultante
+ */
+@FunctionalInterface
+public interface RowMapper<T> {
+    
+    /**
+     * Mapea la fila actual del ResultSet
+     * @param rs ResultSet posicionado en la fila a convertir
+     * @return objeto construido a partir de la fila
+     * @throws SQLException si hay un error al leer las columnas
+     */
+    T map(ResultSet rs) throws SQLException;
+}
@@ -3,8 +3,13 @@ package dao;
 import modelo.Servicio;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
+import db.DBConnection;
 import db.PostgreSQLConnection;
 
 /**
@@ -13,10 +18,36 @@ import db.PostgreSQLConnection;
  */
 public class ServicioDAO {
     
-    private Connection connection;
+    // Columnas en el orden en que las lee mapResultSetToServicio
+    static final String COLUMNAS = "s.idServicio, s.nomServicio, s.contenidoServicio, s.costoServicio";
+    
+    private static final String SQL_UPSERT = "INSERT INTO Servicio (idServicio, nomServicio, contenidoServicio, costoServicio) " +
+                     "SELECT * FROM unnest(?::bigint[], ?::text[], ?::text[], ?::numeric[]) " +
+                     "ON CONFLICT (idServicio) DO UPDATE SET nomServicio = EXCLUDED.nomServicio, " +
+                     "contenidoServicio = EXCLUDED.contenidoServicio, costoServicio = EXCLUDED.costoServicio " +
+                     // Solo se escribe si algún dato cambió
+                     "WHERE (Servicio.nomServicio, Servicio.contenidoServicio, Servicio.costoServicio) " +
+                     "IS DISTINCT FROM (EXCLUDED.nomServicio, EXCLUDED.contenidoServicio, EXCLUDED.costoServicio) " +
+                     "RETURNING idServicio, (xmax = 0) AS insertado";
+    
+    private static final String[] TIPOS_UPSERT = {"bigint", "text", "text", "numeric"};
+    
+    // Cache de los servicios, compartida por todas las instancias del DAO
+    private static final CacheReferencia<Long, Servicio> CACHE =
+            new CacheReferencia<>(1000, ServicioDAO::copiar);
+    
+    private final DBConnection connector;
     
     public ServicioDAO() throws SQLException {
-        this.connection = PostgreSQLConnection.getConnector().getConn();
+        this.connector = PostgreSQLConnection.getConnector();
+    }
+    
+    /**
+     * Cache en memoria de los servicios (estadísticas y limpieza)
+     * @return cache compartida del DAO
+     */
+    public static CacheReferencia<Long, Servicio> getCache() {
+        return CACHE;
     }
     
     /**
@@ -28,13 +59,17 @@ public class ServicioDAO {
         String sql = "INSERT INTO Servicio (idServicio, nomServicio, contenidoServicio, " +
                      "costoServicio) VALUES (?, ?, ?, ?)";
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = connector.getConn();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setLong(1, servicio.getIdServicio());
             stmt.setString(2, servicio.getNomServicio());
             stmt.setString(3, servicio.getContenidoServicio());
             stmt.setBigDecimal(4, servicio.getCostoServicio());
             
             int rowsAffected = stmt.executeUpdate();
+            if (rowsAffected > 0) {
+                CACHE.guardar(connector, servicio.getIdServicio(), servicio);
+            }
             return rowsAffected > 0;
             
         } catch (SQLException e) {
@@ -52,13 +87,17 @@ public class ServicioDAO {
         String sql = "UPDATE Servicio SET nomServicio = ?, contenidoServicio = ?, " +
                      "costoServicio = ? WHERE idServicio = ?";
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = connector.getConn();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setString(1, servicio.getNomServicio());
             stmt.setString(2, servicio.getContenidoServicio());
             stmt.setBigDecimal(3, servicio.getCostoServicio());
             stmt.setLong(4, servicio.getIdServicio());
             
             int rowsAffected = stmt.executeUpdate();
+            if (rowsAffected > 0) {
+                CACHE.guardar(connector, servicio.getIdServicio(), servicio);
+            }
             return rowsAffected > 0;
             
         } catch (SQLException e) {
@@ -75,10 +114,14 @@ public class ServicioDAO {
     public boolean delete(Long idServicio) {
         String sql = "DELETE FROM Servicio WHERE idServicio = ?";
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = connector.getConn();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setLong(1, idServicio);
             
             int rowsAffected = stmt.executeUpdate();
+            if (rowsAffected > 0) {
+                CACHE.remove(connector, idServicio);
+            }
             return rowsAffected > 0;
             
         } catch (SQLException e) {
@@ -93,14 +136,23 @@ public class ServicioDAO {
      * @return objeto Servicio o null si no se encuentra
      */
     public Servicio findById(Long idServicio) {
-        String sql = "SELECT * FROM Servicio WHERE idServicio = ?";
+        Servicio cacheado = CACHE.get(idServicio);
+        if (cacheado != null) {
+            return cacheado;
+        }
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        String sql = "SELECT " + COLUMNAS + " FROM Servicio s WHERE idServicio = ?";
+        
+        long generacion = CACHE.getGeneracion();
+        try (Connection connection = connector.getConn();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setLong(1, idServicio);
             
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
-                    return mapResultSetToServicio(rs);
+                    Servicio servicio = mapResultSetToServicio(rs);
+                    CACHE.put(connector, generacion, idServicio, servicio);
+                    return servicio;
                 }
             }
         } catch (SQLException e) {
@@ -109,20 +161,71 @@ public class ServicioDAO {
         return null;
     }
     
+    /**
+     * Busca varios servicios en una sola consulta
+     * @param ids IDs de los servicios a buscar
+     * @return mapa ID -> Servicio, solo con los que existen
+     */
+    public Map<Long, Servicio> findByIds(Collection<Long> ids) {
+        Map<Long, Servicio> resultado = new TreeMap<>();
+        List<Long> faltantes = new ArrayList<>();
+        for (Long id : new LinkedHashSet<>(ids)) {
+            Servicio cacheado = CACHE.get(id);
+            if (cacheado != null) {
+                resultado.put(id, cacheado);
+            } else {
+                faltantes.add(id);
+            }
+        }
+        if (faltantes.isEmpty()) {
+            return resultado;
+        }
+        String sql = "SELECT " + COLUMNAS + " FROM Servicio s " +
+                     "WHERE idServicio = ANY(?) ORDER BY idServicio";
+        
+        long generacion = CACHE.getGeneracion();
+        try (Connection connection = connector.getConn();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
+            Array idsArray = connection.createArrayOf("bigint", faltantes.toArray());
+            stmt.setArray(1, idsArray);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Servicio servicio = mapResultSetToServicio(rs);
+                    resultado.put(servicio.getIdServicio(), servicio);
+                    CACHE.put(connector, generacion, servicio.getIdServicio(), servicio);
+                }
+            } finally {
+                idsArray.free();
+            }
+        } catch (SQLException e) {
+            System.err.println("Error al buscar servicios: " + e.getMessage());
+        }
+        return resultado;
+    }
+    
     /**
      * Obtiene todos los servicios
      * @return lista de servicios
      */
     public List<Servicio> findAll() {
+        List<Servicio> cacheados = CACHE.getTodos();
+        if (cacheados != null) {
+            return cacheados;
+        }
+        
         List<Servicio> servicios = new ArrayList<>();
-        String sql = "SELECT * FROM Servicio ORDER BY idServicio";
+        String sql = "SELECT " + COLUMNAS + " FROM Servicio s ORDER BY idServicio";
         
-        try (Statement stmt = connection.createStatement();
+        long generacion = CACHE.getGeneracion();
+        try (Connection connection = connector.getConn();
+             Statement stmt = connection.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
             
             while (rs.next()) {
                 servicios.add(mapResultSetToServicio(rs));
             }
+            CACHE.putTodos(connector, generacion, servicios, Servicio::getIdServicio);
             
         } catch (SQLException e) {
             System.err.println("Error al obtener servicios: " + e.getMessage());
@@ -130,6 +233,39 @@ public class ServicioDAO {
         return servicios;
     }
     
+    /**
+     * Obtiene una página de servicios ordenada por ID, continuando
+     * después de la última fila de la página anterior (paginación por clave)
+     * @param afterIdServicio último ID de servicio de la página anterior, o null para la primera página
+     * @param limit número máximo de servicios a devolver
+     * @return lista de servicios de la página
+     */
+    public List<Servicio> findPage(Long afterIdServicio, int limit) {
+        List<Servicio> servicios = new ArrayList<>();
+        String sql = afterIdServicio == null
+                ? "SELECT " + COLUMNAS + " FROM Servicio s ORDER BY idServicio LIMIT ?"
+                : "SELECT " + COLUMNAS + " FROM Servicio s " +
+                  "WHERE idServicio > ? ORDER BY idServicio LIMIT ?";
+        
+        try (Connection connection = connector.getConn();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
+            int i = 1;
+            if (afterIdServicio != null) {
+                stmt.setLong(i++, afterIdServicio);
+            }
+            stmt.setInt(i, limit);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    servicios.add(mapResultSetToServicio(rs));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error al obtener página de servicios: " + e.getMessage());
+        }
+        return servicios;
+    }
+    
     /**
      * Busca servicios por nombre (búsqueda parcial)
      * @param nombre nombre a buscar
@@ -137,9 +273,11 @@ public class ServicioDAO {
      */
     public List<Servicio> findByNombre(String nombre) {
         List<Servicio> servicios = new ArrayList<>();
-        String sql = "SELECT * FROM Servicio WHERE nomServicio LIKE ? ORDER BY nomServicio";
+        String sql = "SELECT " + COLUMNAS + " FROM Servicio s " +
+                     "WHERE nomServicio LIKE ? ORDER BY nomServicio";
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = connector.getConn();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setString(1, "%" + nombre + "%");
             
             try (ResultSet rs = stmt.executeQuery()) {
@@ -153,17 +291,59 @@ public class ServicioDAO {
         return servicios;
     }
     
+    /**
+     * Inserta un servicio o, si ya existe, actualiza sus datos,
+     * en una sola sentencia (INSERT ... ON CONFLICT)
+     * @param servicio objeto Servicio a guardar
+     * @return INSERTADO, ACTUALIZADO o SIN_CAMBIOS; null si hubo un error
+     */
+    public ResultadoUpsert upsert(Servicio servicio) {
+        List<ResultadoUpsert> resultados = upsertBatch(List.of(servicio));
+        return resultados != null ? resultados.get(0) : null;
+    }
+    
+    /**
+     * Guarda muchos servicios con upsert, en lotes de 1000 filas por sentencia
+     * y en una sola transacción
+     * @param servicios lista de objetos Servicio a guardar
+     * @return resultado de cada fila en el orden de la lista, o null si hubo
+     *         un error (en ese caso no se guarda ninguna)
+     */
+    public List<ResultadoUpsert> upsertBatch(List<Servicio> servicios) {
+        try {
+            List<ResultadoUpsert> resultados = UpsertPorArreglos.ejecutar(
+                    connector, SQL_UPSERT, TIPOS_UPSERT, servicios,
+                    s -> new Object[]{s.getIdServicio(), s.getNomServicio(), s.getContenidoServicio(), s.getCostoServicio()},
+                    Servicio::getIdServicio, rs -> rs.getLong(1));
+            for (Servicio servicio : servicios) {
+                CACHE.guardar(connector, servicio.getIdServicio(), servicio);
+            }
+            return resultados;
+            
+        } catch (SQLException e) {
+            System.err.println("Error al guardar servicios: " + e.getMessage());
+            return null;
+        }
+    }
+    
     /**
      * Mapea un ResultSet a un objeto Servicio
-     * @param rs ResultSet con los datos
+     * @param rs ResultSet con las columnas de COLUMNAS
      * @return objeto Servicio
      */
     private Servicio mapResultSetToServicio(ResultSet rs) throws SQLException {
         Servicio servicio = new Servicio();
-        servicio.setIdServicio(rs.getLong("idServicio"));
-        servicio.setNomServicio(rs.getString("nomServicio"));
-        servicio.setContenidoServicio(rs.getString("contenidoServicio"));
-        servicio.setCostoServicio(rs.getBigDecimal("costoServicio"));
+        servicio.setIdServicio(rs.getLong(1));
+        servicio.setNomServicio(rs.getString(2));
+        servicio.setContenidoServicio(rs.getString(3));
+        servicio.setCostoServicio(rs.getBigDecimal(4));
         return servicio;
     }
+    
+    /**
+     * Copia un servicio para que la cache no comparta objetos con quien la usa
+     */
+    private static Servicio copiar(Servicio s) {
+        return new Servicio(s.getIdServicio(), s.getNomServicio(), s.getContenidoServicio(), s.getCostoServicio());
+    }
 }
\ No newline at end of file
@@ -3,9 +3,15 @@ package dao;
 import modelo.TelefonoPer;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
+import db.DBConnection;
 import db.PostgreSQLConnection;
+import db.TransactionManager;
+import db.TransactionManager.Propagacion;
 
 /**
  * DAO para la tabla TelefonoPer
@@ -13,10 +19,32 @@ import db.PostgreSQLConnection;
  */
 public class TelefonoPerDAO {
     
-    private Connection connection;
+    // Cédulas consultadas por viaje en la carga por lotes
+    static final int TAMANO_LOTE = 1000;
+    
+    // Columnas en el orden en que las lee mapResultSetToTelefonoPer
+    static final String COLUMNAS = "cedulaPer, telefonoPer";
+    
+    private static final String SQL_UPSERT = "INSERT INTO TelefonoPer (cedulaPer, telefonoPer) " +
+                     "SELECT * FROM unnest(?::bigint[], ?::bigint[]) " +
+                     "ON CONFLICT DO NOTHING RETURNING cedulaPer, telefonoPer, true AS insertado";
+    
+    private static final String[] TIPOS_UPSERT = {"bigint", "bigint"};
+    
+    // Sincroniza la lista completa en una sola sentencia: borra lo que ya no
+    // está, inserta lo nuevo y no toca las filas que se mantienen
+    private static final String SQL_SINCRONIZAR =
+            "WITH nuevos AS (SELECT DISTINCT x AS telefonoPer FROM unnest(?::bigint[]) AS x WHERE x IS NOT NULL), " +
+            "borrados AS (DELETE FROM TelefonoPer t WHERE t.cedulaPer = ? " +
+            "             AND NOT EXISTS (SELECT 1 FROM nuevos n WHERE n.telefonoPer = t.telefonoPer) RETURNING 1), " +
+            "insertados AS (INSERT INTO TelefonoPer (cedulaPer, telefonoPer) SELECT ?, telefonoPer FROM nuevos " +
+            "               ON CONFLICT DO NOTHING RETURNING 1) " +
+            "SELECT (SELECT count(*) FROM borrados) AS borrados, (SELECT count(*) FROM insertados) AS insertados";
+    
+    private final DBConnection connector;
     
     public TelefonoPerDAO() throws SQLException {
-        this.connection = PostgreSQLConnection.getConnector().getConn();
+        this.connector = PostgreSQLConnection.getConnector();
     }
     
     /**
@@ -27,7 +55,8 @@ public class TelefonoPerDAO {
     public boolean insert(TelefonoPer telefono) {
         String sql = "INSERT INTO TelefonoPer (cedulaPer, telefonoPer) VALUES (?, ?)";
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = connector.getConn();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setLong(1, telefono.getCedulaPer());
             stmt.setLong(2, telefono.getTelefonoPer());
             
@@ -49,33 +78,24 @@ public class TelefonoPerDAO {
     public boolean insertMultiple(Long cedulaPer, List<Long> telefonos) {
         String sql = "INSERT INTO TelefonoPer (cedulaPer, telefonoPer) VALUES (?, ?)";
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            connection.setAutoCommit(false);
-            
-            for (Long telefono : telefonos) {
-                stmt.setLong(1, cedulaPer);
-                stmt.setLong(2, telefono);
-                stmt.addBatch();
-            }
-            
-            stmt.executeBatch();
-            connection.commit();
-            return true;
+        try {
+            return TransactionManager.ejecutar(connector, Propagacion.REQUIRED, () -> {
+                try (Connection connection = connector.getConn();
+                     PreparedStatement stmt = connection.prepareStatement(sql)) {
+                    for (Long telefono : telefonos) {
+                        stmt.setLong(1, cedulaPer);
+                        stmt.setLong(2, telefono);
+                        stmt.addBatch();
+                    }
+                    
+                    stmt.executeBatch();
+                    return true;
+                }
+            });
             
         } catch (SQLException e) {
-            try {
-                connection.rollback();
-            } catch (SQLException ex) {
-                System.err.println("Error en rollback: " + ex.getMessage());
-            }
             System.err.println("Error al insertar múltiples teléfonos: " + e.getMessage());
             return false;
-        } finally {
-            try {
-                connection.setAutoCommit(true);
-            } catch (SQLException e) {
-                System.err.println("Error al restaurar autocommit: " + e.getMessage());
-            }
         }
     }
     
@@ -88,7 +108,8 @@ public class TelefonoPerDAO {
     public boolean delete(Long cedulaPer, Long telefonoPer) {
         String sql = "DELETE FROM TelefonoPer WHERE cedulaPer = ? AND telefonoPer = ?";
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = connector.getConn();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setLong(1, cedulaPer);
             stmt.setLong(2, telefonoPer);
             
@@ -109,7 +130,8 @@ public class TelefonoPerDAO {
     public boolean deleteAllByPersona(Long cedulaPer) {
         String sql = "DELETE FROM TelefonoPer WHERE cedulaPer = ?";
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = connector.getConn();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setLong(1, cedulaPer);
             
             int rowsAffected = stmt.executeUpdate();
@@ -130,12 +152,13 @@ public class TelefonoPerDAO {
         List<Long> telefonos = new ArrayList<>();
         String sql = "SELECT telefonoPer FROM TelefonoPer WHERE cedulaPer = ? ORDER BY telefonoPer";
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = connector.getConn();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setLong(1, cedulaPer);
             
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
-                    telefonos.add(rs.getLong("telefonoPer"));
+                    telefonos.add(rs.getLong(1));
                 }
             }
         } catch (SQLException e) {
@@ -144,6 +167,60 @@ public class TelefonoPerDAO {
         return telefonos;
     }
     
+    /**
+     * Obtiene los teléfonos de varias personas con una consulta por cada lote de
+     * cédulas, en lugar de una consulta por persona
+     * @param cedulas cédulas de las personas
+     * @return mapa cédula -> teléfonos (lista vacía si no tiene)
+     */
+    public Map<Long, List<Long>> findByPersonas(Collection<Long> cedulas) {
+        try (Connection connection = connector.getConn()) {
+            return findByPersonas(connection, cedulas);
+            
+        } catch (SQLException e) {
+            System.err.println("Error al buscar teléfonos de personas: " + e.getMessage());
+            return new LinkedHashMap<>();
+        }
+    }
+    
+    /**
+     * Carga por lotes de teléfonos usando la conexión recibida
+     * @param connection conexión sobre la que se ejecutan las consultas
+     * @param cedulas cédulas de las personas
+     * @return mapa cédula -> teléfonos, en el orden de las cédulas recibidas
+     */
+    static Map<Long, List<Long>> findByPersonas(Connection connection, Collection<Long> cedulas)
+            throws SQLException {
+        Map<Long, List<Long>> resultado = new LinkedHashMap<>();
+        for (Long cedula : cedulas) {
+            resultado.putIfAbsent(cedula, new ArrayList<>());
+        }
+        if (resultado.isEmpty()) {
+            return resultado;
+        }
+        
+        String sql = "SELECT " + COLUMNAS + " FROM TelefonoPer " +
+                     "WHERE cedulaPer = ANY(?) ORDER BY cedulaPer, telefonoPer";
+        List<Long> pendientes = new ArrayList<>(resultado.keySet());
+        
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            for (int desde = 0; desde < pendientes.size(); desde += TAMANO_LOTE) {
+                List<Long> lote = pendientes.subList(desde, Math.min(desde + TAMANO_LOTE, pendientes.size()));
+                Array cedulasArray = connection.createArrayOf("bigint", lote.toArray());
+                stmt.setArray(1, cedulasArray);
+                
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        resultado.get(rs.getLong(1)).add(rs.getLong(2));
+                    }
+                } finally {
+                    cedulasArray.free();
+                }
+            }
+        }
+        return resultado;
+    }
+    
     /**
      * Busca todos los registros de teléfonos de una persona
      * @param cedulaPer cédula de la persona
@@ -151,9 +228,10 @@ public class TelefonoPerDAO {
      */
     public List<TelefonoPer> findTelefonosCompletos(Long cedulaPer) {
         List<TelefonoPer> telefonos = new ArrayList<>();
-        String sql = "SELECT * FROM TelefonoPer WHERE cedulaPer = ? ORDER BY telefonoPer";
+        String sql = "SELECT " + COLUMNAS + " FROM TelefonoPer WHERE cedulaPer = ? ORDER BY telefonoPer";
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = connector.getConn();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setLong(1, cedulaPer);
             
             try (ResultSet rs = stmt.executeQuery()) {
@@ -173,9 +251,10 @@ public class TelefonoPerDAO {
      */
     public List<TelefonoPer> findAll() {
         List<TelefonoPer> telefonos = new ArrayList<>();
-        String sql = "SELECT * FROM TelefonoPer ORDER BY cedulaPer, telefonoPer";
+        String sql = "SELECT " + COLUMNAS + " FROM TelefonoPer ORDER BY cedulaPer, telefonoPer";
         
-        try (Statement stmt = connection.createStatement();
+        try (Connection connection = connector.getConn();
+             Statement stmt = connection.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
             
             while (rs.next()) {
@@ -188,6 +267,41 @@ public class TelefonoPerDAO {
         return telefonos;
     }
     
+    /**
+     * Obtiene una página de teléfonos ordenada por cédula y teléfono,
+     * continuando después del último registro de la página anterior
+     * @param afterCedula cédula del último registro de la página anterior, o null para la primera página
+     * @param afterTelefono teléfono del último registro de la página anterior
+     * @param limit número máximo de registros a devolver
+     * @return lista de teléfonos de la página
+     */
+    public List<TelefonoPer> findPage(Long afterCedula, Long afterTelefono, int limit) {
+        List<TelefonoPer> telefonos = new ArrayList<>();
+        String sql = afterCedula == null
+                ? "SELECT " + COLUMNAS + " FROM TelefonoPer ORDER BY cedulaPer, telefonoPer LIMIT ?"
+                : "SELECT " + COLUMNAS + " FROM TelefonoPer " +
+                  "WHERE (cedulaPer, telefonoPer) > (?, ?) ORDER BY cedulaPer, telefonoPer LIMIT ?";
+        
+        try (Connection connection = connector.getConn();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
+            int i = 1;
+            if (afterCedula != null) {
+                stmt.setLong(i++, afterCedula);
+                stmt.setLong(i++, afterTelefono);
+            }
+            stmt.setInt(i, limit);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    telefonos.add(mapResultSetToTelefonoPer(rs));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error al obtener página de teléfonos: " + e.getMessage());
+        }
+        return telefonos;
+    }
+    
     /**
      * Verifica si un teléfono existe para una persona
      * @param cedulaPer cédula de la persona
@@ -197,7 +311,8 @@ public class TelefonoPerDAO {
     public boolean exists(Long cedulaPer, Long telefonoPer) {
         String sql = "SELECT COUNT(*) FROM TelefonoPer WHERE cedulaPer = ? AND telefonoPer = ?";
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = connector.getConn();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setLong(1, cedulaPer);
             stmt.setLong(2, telefonoPer);
             
@@ -213,52 +328,75 @@ public class TelefonoPerDAO {
     }
     
     /**
-     * Actualiza los teléfonos de una persona (elimina los existentes e inserta los nuevos)
+     * Actualiza los teléfonos de una persona para que queden exactamente los de la lista.
+     * Solo se borran los que ya no están y se insertan los nuevos, en una
+     * sola sentencia (atómica aunque no haya transacción abierta).
      * @param cedulaPer cédula de la persona
-     * @param nuevosTelefonos lista de nuevos teléfonos
+     * @param nuevosTelefonos lista completa de teléfonos
      * @return true si se actualizó correctamente
      */
     public boolean updateTelefonos(Long cedulaPer, List<Long> nuevosTelefonos) {
-        try {
-            connection.setAutoCommit(false);
-            
-            // Eliminar teléfonos existentes
-            deleteAllByPersona(cedulaPer);
+        try (Connection connection = connector.getConn();
+             PreparedStatement stmt = connection.prepareStatement(SQL_SINCRONIZAR)) {
+            Array telefonosArray = connection.createArrayOf("bigint", nuevosTelefonos.toArray());
+            stmt.setArray(1, telefonosArray);
+            stmt.setLong(2, cedulaPer);
+            stmt.setLong(3, cedulaPer);
             
-            // Insertar nuevos teléfonos
-            if (!nuevosTelefonos.isEmpty()) {
-                insertMultiple(cedulaPer, nuevosTelefonos);
+            try (ResultSet rs = stmt.executeQuery()) {
+                rs.next();
+            } finally {
+                telefonosArray.free();
             }
-            
-            connection.commit();
             return true;
             
         } catch (SQLException e) {
-            try {
-                connection.rollback();
-            } catch (SQLException ex) {
-                System.err.println("Error en rollback: " + ex.getMessage());
-            }
             System.err.println("Error al actualizar teléfonos: " + e.getMessage());
             return false;
-        } finally {
-            try {
-                connection.setAutoCommit(true);
-            } catch (SQLException e) {
-                System.err.println("Error al restaurar autocommit: " + e.getMessage());
-            }
+        }
+    }
+    
+    /**
+     * Inserta un teléfono o, si ya existe, lo deja como está,
+     * en una sola sentencia (INSERT ... ON CONFLICT)
+     * @param telefono objeto TelefonoPer a guardar
+     * @return INSERTADO, o SIN_CAMBIOS si ya existía; null si hubo un error
+     */
+    public ResultadoUpsert upsert(TelefonoPer telefono) {
+        List<ResultadoUpsert> resultados = upsertBatch(List.of(telefono));
+        return resultados != null ? resultados.get(0) : null;
+    }
+    
+    /**
+     * Guarda muchos teléfonos con upsert, en lotes de 1000 filas por sentencia
+     * y en una sola transacción
+     * @param telefonos lista de objetos TelefonoPer a guardar
+     * @return resultado de cada fila en el orden de la lista, o null si hubo
+     *         un error (en ese caso no se guarda ninguna)
+     */
+    public List<ResultadoUpsert> upsertBatch(List<TelefonoPer> telefonos) {
+        try {
+            return UpsertPorArreglos.ejecutar(
+                    connector, SQL_UPSERT, TIPOS_UPSERT, telefonos,
+                    t -> new Object[]{t.getCedulaPer(), t.getTelefonoPer()},
+                    t -> List.of(t.getCedulaPer(), t.getTelefonoPer()),
+                    rs -> List.of(rs.getLong(1), rs.getLong(2)));
+            
+        } catch (SQLException e) {
+            System.err.println("Error al guardar telefonos: " + e.getMessage());
+            return null;
         }
     }
     
     /**
      * Mapea un ResultSet a un objeto TelefonoPer
-     * @param rs ResultSet con los datos
+     * @param rs ResultSet con las columnas de COLUMNAS
      * @return objeto TelefonoPer
      */
     private TelefonoPer mapResultSetToTelefonoPer(ResultSet rs) throws SQLException {
         TelefonoPer telefono = new TelefonoPer();
-        telefono.setCedulaPer(rs.getLong("cedulaPer"));
-        telefono.setTelefonoPer(rs.getLong("telefonoPer"));
+        telefono.setCedulaPer(rs.getLong(1));
+        telefono.setTelefonoPer(rs.getLong(2));
         return telefono;
     }
 }
\ No newline at end of file
@@ -0,0 +1,102 @@
+package dao;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import db.DBConnection;
+import db.TransactionManager;
+import db.TransactionManager.Propagacion;
+
+/**
+ * Upsert de muchas filas en una sentencia por lote
+ * Cada columna viaja como un arreglo y la sentencia las recorre con
+ * unnest(), así que el lote completo es un solo INSERT ... ON CONFLICT.
+ * La sentencia debe devolver con RETURNING la llave de cada fila escrita
+ * y una columna booleana "insertado" (xmax = 0 para filas nuevas); las
+ * filas que no devuelve se consideran SIN_CAMBIOS.
+ */
+final class UpsertPorArreglos {
+    
+    // Filas por sentencia
+    static final int TAMANO_LOTE = 1000;
+    
+    private UpsertPorArreglos() {
+    }
+    
+    /**
+     * Ejecuta el upsert de todas las filas en una sola transacción
+     * @param connector origen de las conexiones
+     * @param sql sentencia con un parámetro de arreglo por columna
+     * @param tipos tipo PostgreSQL de los elementos de cada arreglo
+     * @param filas filas a guardar
+     * @param valores valores de las columnas de cada fila, en el orden de tipos
+     * @param clave llave de cada fila
+     * @param claveDevuelta lectura de la llave desde el RETURNING
+     * @return resultado de cada fila, en el orden de la lista
+     * @throws SQLException si falla la sentencia; no se guarda ninguna fila
+     */
+    static <T, K> List<ResultadoUpsert> ejecutar(DBConnection connector, String sql, String[] tipos,
+                                                 List<T> filas, Function<T, Object[]> valores,
+                                                 Function<T, K> clave, RowMapper<K> claveDevuelta)
+            throws SQLException {
+        // Una misma llave no puede actualizarse dos veces en una sentencia: gana la última
+        Map<K, T> unicas = new LinkedHashMap<>();
+        for (T fila : filas) {
+            unicas.put(clave.apply(fila), fila);
+        }
+        List<T> pendientes = new ArrayList<>(unicas.values());
+        Map<K, ResultadoUpsert> escritas = new HashMap<>();
+        
+        TransactionManager.ejecutar(connector, Propagacion.REQUIRED, () -> {
+            try (Connection connection = connector.getConn();
+                 PreparedStatement stmt = connection.prepareStatement(sql)) {
+                for (int desde = 0; desde < pendientes.size(); desde += TAMANO_LOTE) {
+                    List<T> lote = pendientes.subList(desde, Math.min(desde + TAMANO_LOTE, pendientes.size()));
+                    Object[][] columnas = new Object[tipos.length][lote.size()];
+                    for (int i = 0; i < lote.size(); i++) {
+                        Object[] fila = valores.apply(lote.get(i));
+                        for (int c = 0; c < tipos.length; c++) {
+                            columnas[c][i] = fila[c];
+                        }
+                    }
+                    
+                    Array[] arreglos = new Array[tipos.length];
+                    try {
+                        for (int c = 0; c < tipos.length; c++) {
+                            arreglos[c] = connection.createArrayOf(tipos[c], columnas[c]);
+                            stmt.setArray(c + 1, arreglos[c]);
+                        }
+                        try (ResultSet rs = stmt.executeQuery()) {
+                            while (rs.next()) {
+                                escritas.put(claveDevuelta.map(rs), rs.getBoolean("insertado")
+                                        ? ResultadoUpsert.INSERTADO : ResultadoUpsert.ACTUALIZADO);
+                            }
+                        }
+                    } finally {
+                        for (Array arreglo : arreglos) {
+                            if (arreglo != null) {
+                                arreglo.free();
+                            }
+                        }
+                    }
+                }
+            }
+            return null;
+        });
+        
+        List<ResultadoUpsert> resultados = new ArrayList<>(filas.size());
+        for (T fila : filas) {
+            resultados.add(escritas.getOrDefault(clave.apply(fila), ResultadoUpsert.SIN_CAMBIOS));
+        }
+        return resultados;
+    }
+}
@@ -0,0 +1,137 @@
+package db;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Vector;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import javax.swing.SwingWorker;
+import javax.swing.table.DefaultTableModel;
+
+/**
+ * Carga las filas de una tabla de HotelApp en segundo plano
+ * La consulta corre fuera del hilo de eventos de Swing y las filas se
+ * agregan al modelo por bloques a medida que llegan: el primer bloque es
+ * del tamaño de una pantalla, para mostrar algo de inmediato, y los
+ * siguientes son más grandes para no repintar la tabla en cada fila.
+ * Al cancelarla se cierra la consulta y no se agregan más filas.
+ */
+final class CargadorTabla<T> extends SwingWorker<Boolean, Object[][]> {
+    
+    // Filas del primer bloque (una pantalla) y de los siguientes
+    static final int PRIMER_BLOQUE = 40;
+    static final int TAMANO_BLOQUE = 500;
+    
+    /**
+     * Origen de las filas: recorre los datos entregándolos al consumidor,
+     * como los métodos streamAll de los DAOs
+     */
+    @FunctionalInterface
+    interface Fuente<T> {
+        boolean recorrer(Consumer<T> consumidor);
+    }
+    
+    /**
+     * Fuente para consultas que devuelven la lista completa, como las de
+     * las tablas de referencia que se leen desde la cache
+     */
+    static <T> Fuente<T> lista(Supplier<? extends Collection<T>> consulta) {
+        return consumidor -> {
+            consulta.get().forEach(consumidor);
+            return true;
+        };
+    }
+    
+    private final DefaultTableModel modelo;
+    private final Fuente<T> fuente;
+    private final Function<? super T, Object[]> fila;
+    
+    // Filas aún no publicadas y tamaño del bloque actual; solo los usa el hilo de la carga
+    private List<Object[]> pendientes = new ArrayList<>(PRIMER_BLOQUE);
+    private int limite = PRIMER_BLOQUE;
+    
+    /**
+     * @param modelo modelo de la tabla a llenar; se vacía al ejecutar la carga
+     * @param fuente origen de los datos
+     * @param fila conversión de cada dato a una fila del modelo
+     */
+    CargadorTabla(DefaultTableModel modelo, Fuente<T> fuente, Function<? super T, Object[]> fila) {
+        this.modelo = modelo;
+        this.fuente = fuente;
+        this.fila = fila;
+    }
+    
+    /**
+     * Vacía el modelo y empieza la carga. Debe llamarse desde el hilo de eventos.
+     */
+    void iniciar() {
+        modelo.setRowCount(0);
+        execute();
+    }
+    
+    @Override
+    protected Boolean doInBackground() {
+        boolean completa = fuente.recorrer(this::agregar);
+        if (!pendientes.isEmpty()) {
+            publish(pendientes.toArray(new Object[0][]));
+        }
+        return completa;
+    }
+    
+    @Override
+    protected void process(List<Object[][]> bloques) {
+        if (isCancelled()) {
+            return;
+        }
+        // Se agregan todas las filas de una vez y se avisa a la tabla con un
+        // solo evento, en lugar de uno por fila como haría addRow
+        int primera = modelo.getRowCount();
+        @SuppressWarnings("unchecked")
+        Vector<Vector<Object>> datos = (Vector<Vector<Object>>) (Vector<?>) modelo.getDataVector();
+        for (Object[][] bloque : bloques) {
+            for (Object[] filaModelo : bloque) {
+                Vector<Object> filaVector = new Vector<>(Arrays.asList(filaModelo));
+                filaVector.setSize(modelo.getColumnCount());
+                datos.add(filaVector);
+            }
+        }
+        if (datos.size() > primera) {
+            modelo.fireTableRowsInserted(primera, datos.size() - 1);
+        }
+    }
+    
+    /**
+     * Agrega un dato al bloque pendiente y lo publica cuando se completa
+     */
+    private void agregar(T dato) {
+        // Una excepción no verificada interrumpe el recorrido y cierra la consulta
+        if (isCancelled()) {
+            throw new CancellationException();
+        }
+        pendientes.add(fila.apply(dato));
+        if (pendientes.size() >= limite) {
+            publish(pendientes.toArray(new Object[0][]));
+            pendientes = new ArrayList<>(TAMANO_BLOQUE);
+            limite = TAMANO_BLOQUE;
+        }
+    }
+    
+    @Override
+    protected void done() {
+        if (isCancelled()) {
+            return;
+        }
+        try {
+            get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            System.err.println("Error al cargar tabla: " + e.getCause());
+        }
+    }
+}
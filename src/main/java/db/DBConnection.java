@@ -3,18 +3,51 @@ package db;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Clase abstracta base para gestionar conexiones a bases de datos
  * Implementa el patrón Template Method
+ *
+ * Mantiene un pool acotado de conexiones: cada operación de los DAOs
+ * toma una conexión con getConn() y la devuelve al pool al cerrarla.
  */
 public abstract class DBConnection {
     
     protected String url;
-    private Connection conn;
     protected final Properties props = new Properties();
     
+    // Configuración del pool (las subclases pueden ajustarla en su constructor)
+    protected int minPoolSize = 2;
+    protected int maxPoolSize = 10;
+    protected long acquireTimeoutMillis = 30_000;
+    protected long idleTimeoutMillis = 600_000;
+    
+    // Sentencias preparadas que conserva cada conexión del pool
+    protected int statementCacheSize = 64;
+    private final LongAdder statementCacheHits = new LongAdder();
+    private final LongAdder statementCacheMisses = new LongAdder();
+    
+    // Conexiones libres, la más recientemente devuelta al inicio
+    private final Deque<PooledConnection> idle = new ArrayDeque<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    private int totalConnections;
+    private boolean cerrado;
+    private ScheduledExecutorService mantenimiento;
+    
     // Static block to load the driver once
     static {
         try {
@@ -27,30 +60,267 @@ public abstract class DBConnection {
     }
     
     /**
-     * Obtiene una conexión a la base de datos
+     * Obtiene una conexión del pool. La conexión debe cerrarse al terminar
+     * la operación (idealmente con try-with-resources) para devolverla al pool.
+     * Si el hilo tiene una transacción abierta con TransactionManager se
+     * entrega la conexión de esa transacción.
      * @return Connection objeto de conexión
-     * @throws SQLException si hay un error en la conexión
+     * @throws SQLException si hay un error en la conexión o se agota el
+     *         tiempo de espera sin conexiones libres
      */
     public Connection getConn() throws SQLException {
-        if (conn == null || conn.isClosed()) {
-            conn = DriverManager.getConnection(url, props);
-            System.out.println("Conexión establecida exitosamente");
+        Connection enTransaccion = TransactionManager.conexionActual(this);
+        if (enTransaccion != null) {
+            return enTransaccion;
+        }
+        return prestar();
+    }
+    
+    /**
+     * Presta una conexión libre del pool o abre una nueva, esperando si se
+     * alcanzó el máximo
+     */
+    Connection prestar() throws SQLException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(acquireTimeoutMillis);
+        
+        lock.lock();
+        try {
+            iniciarMantenimiento();
+            while (true) {
+                if (cerrado) {
+                    throw new SQLException("El pool de conexiones está cerrado");
+                }
+                
+                PooledConnection pooled = idle.pollFirst();
+                if (pooled != null) {
+                    if (pooled.isUsable()) {
+                        return pooled.lease();
+                    }
+                    totalConnections--;
+                    pooled.closePhysical();
+                    continue;
+                }
+                
+                if (totalConnections < maxPoolSize) {
+                    // Se reserva el cupo y la conexión se abre fuera del lock
+                    totalConnections++;
+                    break;
+                }
+                
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    throw new SQLTimeoutException("Tiempo de espera agotado al obtener una conexión del pool (" +
+                                                  maxPoolSize + " conexiones en uso)");
+                }
+                try {
+                    available.awaitNanos(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new SQLException("Interrumpido esperando una conexión del pool", e);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        
+        try {
+            return openPhysical().lease();
+        } catch (SQLException e) {
+            lock.lock();
+            try {
+                totalConnections--;
+                available.signal();
+            } finally {
+                lock.unlock();
+            }
+            throw e;
+        }
+    }
+    
+    /**
+     * Devuelve una conexión al pool. Lo invoca la conexión prestada al cerrarse.
+     * @param pooled conexión física que vuelve a estar libre
+     */
+    void release(PooledConnection pooled) {
+        boolean reutilizable = pooled.reset();
+        
+        lock.lock();
+        try {
+            if (reutilizable && !cerrado) {
+                pooled.touch();
+                idle.addFirst(pooled);
+            } else {
+                totalConnections--;
+            }
+            available.signal();
+        } finally {
+            lock.unlock();
+        }
+        
+        if (!reutilizable || cerrado) {
+            pooled.closePhysical();
+        }
+    }
+    
+    /**
+     * Número de conexiones físicas abiertas (prestadas + libres)
+     * @return total de conexiones del pool
+     */
+    public int getTotalConnections() {
+        lock.lock();
+        try {
+            return totalConnections;
+        } finally {
+            lock.unlock();
         }
-        return conn;
     }
     
     /**
-     * Cierra la conexión si está abierta
+     * Número de conexiones libres en el pool
+     * @return conexiones disponibles para préstamo inmediato
+     */
+    public int getIdleConnections() {
+        lock.lock();
+        try {
+            return idle.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Número de sentencias preparadas reutilizadas desde la cache de las conexiones
+     * @return aciertos acumulados de la cache de sentencias
+     */
+    public long getStatementCacheHits() {
+        return statementCacheHits.sum();
+    }
+    
+    /**
+     * Número de sentencias que tuvieron que prepararse de nuevo
+     * @return fallos acumulados de la cache de sentencias
+     */
+    public long getStatementCacheMisses() {
+        return statementCacheMisses.sum();
+    }
+    
+    /**
+     * Crea la cache de sentencias de una nueva conexión física
+     */
+    StatementCache newStatementCache() {
+        return new StatementCache(statementCacheSize, statementCacheHits, statementCacheMisses);
+    }
+    
+    /**
+     * Cierra todas las conexiones del pool. Las conexiones prestadas se
+     * cierran cuando sean devueltas.
      */
     public void closeConnection() {
-        if (conn != null) {
+        List<PooledConnection> porCerrar;
+        
+        lock.lock();
+        try {
+            cerrado = true;
+            porCerrar = new ArrayList<>(idle);
+            totalConnections -= idle.size();
+            idle.clear();
+            if (mantenimiento != null) {
+                mantenimiento.shutdownNow();
+                mantenimiento = null;
+            }
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        
+        for (PooledConnection pooled : porCerrar) {
+            pooled.closePhysical();
+        }
+        System.out.println("Pool de conexiones cerrado exitosamente");
+    }
+    
+    /**
+     * Abre una nueva conexión física contra la base de datos
+     */
+    private PooledConnection openPhysical() throws SQLException {
+        Connection physical = DriverManager.getConnection(url, props);
+        System.out.println("Conexión establecida exitosamente");
+        return new PooledConnection(this, physical);
+    }
+    
+    /**
+     * Arranca la tarea periódica que expulsa conexiones ociosas y mantiene
+     * el mínimo configurado. Debe llamarse con el lock tomado.
+     */
+    private void iniciarMantenimiento() {
+        if (mantenimiento != null) {
+            return;
+        }
+        mantenimiento = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread hilo = new Thread(r, "pool-mantenimiento");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        long periodo = Math.max(1_000, idleTimeoutMillis / 2);
+        mantenimiento.scheduleWithFixedDelay(this::mantenerPool, 0, periodo, TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Cierra las conexiones libres que superaron el tiempo de inactividad
+     * (sin bajar del mínimo) y abre las que falten para llegar al mínimo.
+     */
+    private void mantenerPool() {
+        List<PooledConnection> expulsadas = new ArrayList<>();
+        int faltantes;
+        
+        lock.lock();
+        try {
+            if (cerrado) {
+                return;
+            }
+            long limite = System.currentTimeMillis() - idleTimeoutMillis;
+            Iterator<PooledConnection> it = idle.descendingIterator();
+            while (it.hasNext() && totalConnections > minPoolSize) {
+                PooledConnection pooled = it.next();
+                if (pooled.getLastUsed() >= limite) {
+                    break;
+                }
+                it.remove();
+                totalConnections--;
+                expulsadas.add(pooled);
+            }
+            faltantes = Math.max(0, minPoolSize - totalConnections);
+            totalConnections += faltantes;
+        } finally {
+            lock.unlock();
+        }
+        
+        for (PooledConnection pooled : expulsadas) {
+            pooled.closePhysical();
+        }
+        
+        for (int i = 0; i < faltantes; i++) {
+            PooledConnection nueva = null;
             try {
-                conn.close();
-                conn = null;
-                System.out.println("Conexión cerrada exitosamente");
+                nueva = openPhysical();
             } catch (SQLException e) {
-                System.err.println("Error al cerrar la conexión: " + e.getMessage());
+                System.err.println("Error al abrir conexión mínima del pool: " + e.getMessage());
+            }
+            lock.lock();
+            try {
+                if (nueva != null && !cerrado) {
+                    idle.addLast(nueva);
+                    available.signal();
+                    nueva = null;
+                } else {
+                    totalConnections--;
+                }
+            } finally {
+                lock.unlock();
+            }
+            if (nueva != null) {
+                nueva.closePhysical();
             }
         }
     }
-}
\ No newline at end of file
+}
@@ -5,8 +5,18 @@ import java.awt.GridLayout;
 import java.math.BigDecimal;
 import java.sql.SQLException;
 import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
+import javax.swing.table.TableModel;
 
 import dao.*;
 import modelo.*;
@@ -29,9 +39,16 @@ public class HotelApp {
     // Frame principal
     private final JFrame frame;
 
+    // Carga en segundo plano de cada tabla y pestaña seleccionada
+    private final Map<TableModel, CargadorTabla<?>> cargas = new HashMap<>();
+    private int pestanaActual;
+
+    // Momento de inicio, para informar la duración de cada fase del arranque
+    private final long inicio = System.nanoTime();
+
     // ==================== PERSONA ====================
     private final JTable personaTable;
-    private final DefaultTableModel personaModel;
+    private final ModeloTablaPaginado<PersonaResumen> personaModel;
     private final JTextField personaCedulaField = new JTextField();
     private final JTextField personaPrimerNomField = new JTextField();
     private final JTextField personaSegundoNomField = new JTextField();
@@ -44,7 +61,7 @@ public class HotelApp {
 
     // ==================== CLIENTE ====================
     private final JTable clienteTable;
-    private final DefaultTableModel clienteModel;
+    private final ModeloTablaPaginado<ClienteResumen> clienteModel;
     private final JTextField clienteCedulaField = new JTextField();
     private final JTextField clientePrimerNomField = new JTextField();
     private final JTextField clienteSegundoNomField = new JTextField();
@@ -62,7 +79,7 @@ public class HotelApp {
 
     // ==================== RESERVA ====================
     private final JTable reservaTable;
-    private final DefaultTableModel reservaModel;
+    private final ModeloTablaPaginado<ReservaResumen> reservaModel;
     private final JTextField reservaCedulaField = new JTextField();
     private final JTextField reservaHabitacionField = new JTextField();
     private final JTextField reservaFechaLlegadaField = new JTextField();
@@ -95,7 +112,8 @@ public class HotelApp {
     private final JTextField empleadoAreaField = new JTextField();
 
     public HotelApp() {
-        // Inicializar DAOs
+        // Inicializar DAOs (no abren conexiones: el pool las abre al usarlas)
+        long fase = System.nanoTime();
         try {
             personaDAO = new PersonaDAO();
             clienteDAO = new ClienteDAO();
@@ -108,18 +126,35 @@ public class HotelApp {
             JOptionPane.showMessageDialog(null, "Error al conectar con la base de datos: " + e.getMessage());
             System.exit(1);
         }
+        registrarFase("DAOs", fase);
 
+        fase = System.nanoTime();
         frame = new JFrame("🏨 Sistema de Gestión Hotelera");
 
-        // Inicializar modelos de tablas
-        personaModel = new DefaultTableModel(new Object[]{
+        // Inicializar modelos de tablas (las tablas grandes se leen por páginas)
+        personaModel = new ModeloTablaPaginado<>("tabla-personas", new String[]{
                 "Cédula", "Primer Nom", "Segundo Nom", "Primer Apell", "Segundo Apell", "Dirección"
-        }, 0);
+        }, p -> new Object[]{
+                p.cedulaPer(),
+                p.primerNom(),
+                p.segundoNom(),
+                p.primerApell(),
+                p.segundoApell(),
+                p.direccion()
+        }, Comparator.comparingLong(PersonaResumen::cedulaPer), personaDAO::count,
+                (ultima, n) -> personaDAO.findPageResumen(ultima.cedulaPer(), n),
+                personaDAO::findPageResumenAt);
         personaTable = new JTable(personaModel);
 
-        clienteModel = new DefaultTableModel(new Object[]{
+        clienteModel = new ModeloTablaPaginado<>("tabla-clientes", new String[]{
                 "Cédula", "Nombre Completo", "Correos"
-        }, 0);
+        }, c -> new Object[]{
+                c.cedulaPer(),
+                c.nombre(),
+                c.correos()
+        }, Comparator.comparingLong(ClienteResumen::cedulaPer), clienteDAO::count,
+                (ultimo, n) -> clienteDAO.findPageResumen(ultimo.cedulaPer(), n),
+                clienteDAO::findPageResumenAt);
         clienteTable = new JTable(clienteModel);
 
         habitacionModel = new DefaultTableModel(new Object[]{
@@ -127,9 +162,21 @@ public class HotelApp {
         }, 0);
         habitacionTable = new JTable(habitacionModel);
 
-        reservaModel = new DefaultTableModel(new Object[]{
+        reservaModel = new ModeloTablaPaginado<>("tabla-reservas", new String[]{
                 "Cédula Cliente", "Habitación", "Fecha Llegada", "Fecha Salida", "Cancelación (hrs)"
-        }, 0);
+        }, r -> new Object[]{
+                r.cedulaPer(),
+                r.numeroHab(),
+                r.fechaLlegada(),
+                r.fechaSalida(),
+                r.tiempoMaxCancel()
+        }, Comparator.comparing(ReservaResumen::fechaLlegada)
+                .thenComparingLong(ReservaResumen::cedulaPer)
+                .thenComparingInt(ReservaResumen::numeroHab)
+                .reversed(), reservaDAO::count,
+                (ultima, n) -> reservaDAO.findPageResumen(ultima.fechaLlegada(), ultima.cedulaPer(),
+                                                          ultima.numeroHab(), n),
+                reservaDAO::findPageResumenAt);
         reservaTable = new JTable(reservaModel);
 
         servicioModel = new DefaultTableModel(new Object[]{
@@ -147,30 +194,128 @@ public class HotelApp {
         }, 0);
         empleadoTable = new JTable(empleadoModel);
 
-        // Crear pestañas
+        // Crear pestañas: cada panel se construye la primera vez que se selecciona
+        String[] titulos = {
+                "👤 Personas", "🧑‍💼 Clientes", "🛏️ Habitaciones", "📅 Reservas", "🛎️ Servicios", "🏢 Áreas",
+                "👷 Empleados"
+        };
+        List<Supplier<JPanel>> panelesPestana = List.of(
+                this::crearPanelPersona, this::crearPanelCliente, this::crearPanelHabitacion,
+                this::crearPanelReserva, this::crearPanelServicio, this::crearPanelArea, this::crearPanelEmpleado
+        );
+        boolean[] construidas = new boolean[titulos.length];
         JTabbedPane tabs = new JTabbedPane();
-        tabs.addTab("👤 Personas", crearPanelPersona());
-        tabs.addTab("🧑‍💼 Clientes", crearPanelCliente());
-        tabs.addTab("🛏️ Habitaciones", crearPanelHabitacion());
-        tabs.addTab("📅 Reservas", crearPanelReserva());
-        tabs.addTab("🛎️ Servicios", crearPanelServicio());
-        tabs.addTab("🏢 Áreas", crearPanelArea());
-        tabs.addTab("👷 Empleados", crearPanelEmpleado());
+        for (String titulo : titulos) {
+            tabs.addTab(titulo, new JPanel());
+        }
+        Runnable construirPestana = () -> {
+            int pestana = tabs.getSelectedIndex();
+            if (!construidas[pestana]) {
+                construidas[pestana] = true;
+                tabs.setComponentAt(pestana, panelesPestana.get(pestana).get());
+            }
+        };
+        construirPestana.run();
+
+        // Al salir de una pestaña se cancela su carga; al volver se reinicia
+        // (las tablas paginadas solo consultan las páginas visibles)
+        TableModel[] modelosPestana = {
+                personaModel, clienteModel, habitacionModel, reservaModel, servicioModel, areaModel, empleadoModel
+        };
+        Runnable[] refrescosPestana = {
+                this::refrescarPersonas, this::refrescarClientes, this::refrescarHabitaciones,
+                this::refrescarReservas, this::refrescarServicios, this::refrescarAreas, this::refrescarEmpleados
+        };
+        tabs.addChangeListener(e -> {
+            construirPestana.run();
+            cancelarCarga(modelosPestana[pestanaActual]);
+            pestanaActual = tabs.getSelectedIndex();
+            CargadorTabla<?> carga = cargas.get(modelosPestana[pestanaActual]);
+            if (carga != null && carga.isCancelled()) {
+                refrescosPestana[pestanaActual].run();
+            }
+        });
 
         frame.setLayout(new BorderLayout());
         frame.add(tabs, BorderLayout.CENTER);
         frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         frame.setSize(1000, 600);
         frame.setLocationRelativeTo(null);
+        registrarFase("interfaz", fase);
+
+        // El esquema y los datos se preparan en segundo plano: la ventana se muestra sin esperarlos
+        Thread arranque = new Thread(this::prepararDatos, "inicio-hotel");
+        arranque.setDaemon(true);
+        arranque.start();
+    }
+
+    // ==================== ARRANQUE ====================
+    /**
+     * Crea o actualiza el esquema y luego lanza a la vez la carga del índice
+     * de ocupación y la de todas las tablas, cada una con su propia conexión
+     * del pool. Corre en un hilo propio, fuera del hilo de eventos.
+     */
+    private void prepararDatos() {
+        long fase = System.nanoTime();
+        if (MigradorEsquema.migrar()) {
+            ParticionesConsumo.crearProximas();
+            // Los meses siguientes se crean mientras la aplicación sigue abierta
+            ParticionesConsumo.programarCreacion(ParticionesConsumo.HORAS_CREACION);
+        }
+        registrarFase("esquema", fase);
+
+        // Cargar el índice de ocupación de habitaciones en segundo plano
+        Thread cargaIndice = new Thread(() -> {
+            long desde = System.nanoTime();
+            IndiceOcupacion.getInstance().recargar();
+            registrarFase("índice de ocupación", desde);
+            // Las reservas de otras terminales solo llegan al índice al recargarlo
+            IndiceOcupacion.getInstance().programarRecarga(IndiceOcupacion.MINUTOS_RECARGA);
+        }, "carga-indice-ocupacion");
+        cargaIndice.setDaemon(true);
+        cargaIndice.start();
+
+        SwingUtilities.invokeLater(this::cargarTablas);
+    }
+
+    /**
+     * Lanza la carga inicial de todas las tablas: las paginadas cuentan sus
+     * filas en su hilo de consultas y las demás se llenan con CargadorTabla,
+     * así que las consultas corren en paralelo
+     */
+    private void cargarTablas() {
+        long desde = System.nanoTime();
+        personaModel.refrescar(() -> registrarFase("tabla personas", desde));
+        clienteModel.refrescar(() -> registrarFase("tabla clientes", desde));
+        reservaModel.refrescar(() -> registrarFase("tabla reservas", desde));
 
-        // Cargar datos iniciales
-        refrescarPersonas();
-        refrescarClientes();
         refrescarHabitaciones();
-        refrescarReservas();
+        medirCarga("tabla habitaciones", habitacionModel, desde);
         refrescarServicios();
+        medirCarga("tabla servicios", servicioModel, desde);
         refrescarAreas();
+        medirCarga("tabla áreas", areaModel, desde);
         refrescarEmpleados();
+        medirCarga("tabla empleados", empleadoModel, desde);
+    }
+
+    private void medirCarga(String tabla, TableModel modelo, long desde) {
+        CargadorTabla<?> carga = cargas.get(modelo);
+        carga.addPropertyChangeListener(e -> {
+            if ("state".equals(e.getPropertyName()) && e.getNewValue() == SwingWorker.StateValue.DONE
+                    && !carga.isCancelled()) {
+                registrarFase(tabla, desde);
+            }
+        });
+    }
+
+    /**
+     * Imprime la duración de una fase del arranque y el tiempo transcurrido desde el inicio
+     */
+    private void registrarFase(String fase, long desde) {
+        long ahora = System.nanoTime();
+        System.out.println("Arranque - " + fase + ": " + TimeUnit.NANOSECONDS.toMillis(ahora - desde) +
+                           " ms (total " + TimeUnit.NANOSECONDS.toMillis(ahora - inicio) + " ms)");
     }
 
     // ==================== PANEL PERSONA ====================
@@ -202,20 +347,36 @@ public class HotelApp {
         JButton eliminarBtn = new JButton("Eliminar");
         JButton refrescarBtn = new JButton("Refrescar");
 
-        crearBtn.addActionListener(e -> { crearPersona(); refrescarPersonas(); });
-        actualizarBtn.addActionListener(e -> { actualizarPersona(); refrescarPersonas(); });
-        eliminarBtn.addActionListener(e -> { eliminarPersona(); refrescarPersonas(); });
+        crearBtn.addActionListener(e -> {
+            Persona persona = crearPersona();
+            if (persona != null) {
+                personaModel.insertar(resumenPersona(persona));
+            }
+        });
+        actualizarBtn.addActionListener(e -> {
+            Persona persona = actualizarPersona();
+            if (persona != null) {
+                mostrarPersonaActualizada(persona);
+            }
+        });
+        eliminarBtn.addActionListener(e -> {
+            Long cedula = eliminarPersona();
+            if (cedula != null) {
+                quitarPersona(cedula);
+            }
+        });
         refrescarBtn.addActionListener(e -> refrescarPersonas());
 
         // Llenar campos al seleccionar fila
         personaTable.getSelectionModel().addListSelectionListener(e -> {
             int row = personaTable.getSelectedRow();
-            if (row >= 0) {
-                personaCedulaField.setText(personaModel.getValueAt(row, 0).toString());
-                personaPrimerNomField.setText(personaModel.getValueAt(row, 1).toString());
-                personaSegundoNomField.setText(personaModel.getValueAt(row, 2).toString());
-                personaPrimerApellField.setText(personaModel.getValueAt(row, 3).toString());
-                personaSegundoApellField.setText(personaModel.getValueAt(row, 4).toString());
+            // Una fila cuya página aún no se cargó no tiene datos que mostrar
+            if (row >= 0 && personaModel.getValueAt(row, 0) != null) {
+                personaCedulaField.setText(Objects.toString(personaModel.getValueAt(row, 0), ""));
+                personaPrimerNomField.setText(Objects.toString(personaModel.getValueAt(row, 1), ""));
+                personaSegundoNomField.setText(Objects.toString(personaModel.getValueAt(row, 2), ""));
+                personaPrimerApellField.setText(Objects.toString(personaModel.getValueAt(row, 3), ""));
+                personaSegundoApellField.setText(Objects.toString(personaModel.getValueAt(row, 4), ""));
             }
         });
 
@@ -247,28 +408,34 @@ public class HotelApp {
         );
     }
 
-    private void crearPersona() {
+    private Persona crearPersona() {
         try {
-            if (personaDAO.insert(personaFromFields())) {
+            Persona persona = personaFromFields();
+            if (personaDAO.insert(persona)) {
                 JOptionPane.showMessageDialog(frame, "Persona creada exitosamente");
                 limpiarCamposPersona();
+                return persona;
             }
         } catch (Exception e) {
             JOptionPane.showMessageDialog(frame, "Error: " + e.getMessage());
         }
+        return null;
     }
 
-    private void actualizarPersona() {
+    private Persona actualizarPersona() {
         try {
-            if (personaDAO.update(personaFromFields())) {
+            Persona persona = personaFromFields();
+            if (personaDAO.update(persona)) {
                 JOptionPane.showMessageDialog(frame, "Persona actualizada exitosamente");
+                return persona;
             }
         } catch (Exception e) {
             JOptionPane.showMessageDialog(frame, "Error: " + e.getMessage());
         }
+        return null;
     }
 
-    private void eliminarPersona() {
+    private Long eliminarPersona() {
         try {
             Long cedula = Long.parseLong(personaCedulaField.getText().trim());
             int confirm = JOptionPane.showConfirmDialog(frame,
@@ -278,25 +445,43 @@ public class HotelApp {
                 if (personaDAO.delete(cedula)) {
                     JOptionPane.showMessageDialog(frame, "Persona eliminada exitosamente");
                     limpiarCamposPersona();
+                    return cedula;
                 }
             }
         } catch (Exception e) {
             JOptionPane.showMessageDialog(frame, "Error: " + e.getMessage());
         }
+        return null;
     }
 
     private void refrescarPersonas() {
-        personaModel.setRowCount(0);
-        for (Persona p : personaDAO.findAll()) {
-            personaModel.addRow(new Object[]{
-                    p.getCedulaPer(),
-                    p.getPrimerNom(),
-                    p.getSegundoNom(),
-                    p.getPrimerApell(),
-                    p.getSegundoApell(),
-                    p.getCalle() + " " + p.getCarrera() + " " + p.getNumero()
-            });
-        }
+        personaModel.refrescar();
+    }
+
+    // Fila de la tabla de personas, con la dirección armada como en la consulta
+    private static PersonaResumen resumenPersona(Persona p) {
+        return new PersonaResumen(p.getCedulaPer(), p.getPrimerNom(), p.getSegundoNom(),
+                                  p.getPrimerApell(), p.getSegundoApell(),
+                                  String.join(" ", p.getCalle(), p.getCarrera(), p.getNumero()));
+    }
+
+    // El nombre de la persona también se muestra en las tablas de clientes y empleados
+    private void mostrarPersonaActualizada(Persona persona) {
+        PersonaResumen resumen = resumenPersona(persona);
+        String nombre = persona.getPrimerNom() + " " + persona.getPrimerApell();
+        personaModel.actualizar(resumen, anterior -> resumen);
+        clienteModel.actualizar(new ClienteResumen(persona.getCedulaPer(), null, null),
+                c -> new ClienteResumen(c.cedulaPer(), nombre, c.correos()));
+        cambiarFila(empleadoModel, this::refrescarEmpleados, persona.getCedulaPer(),
+                fila -> fila == null ? null : new Object[]{fila[0], nombre, fila[2], fila[3]});
+    }
+
+    // Al eliminar la persona se eliminan en cascada su cliente y su empleado
+    private void quitarPersona(Long cedula) {
+        personaModel.eliminar(new PersonaResumen(cedula, null, null, null, null, null));
+        cambiarFila(empleadoModel, this::refrescarEmpleados, cedula, fila -> null);
+        // No se sabe si era cliente: la tabla paginada solo vuelve a contar y leer la página visible
+        refrescarClientes();
     }
 
     private void limpiarCamposPersona() {
@@ -333,14 +518,28 @@ public class HotelApp {
         JButton eliminarBtn = new JButton("Eliminar");
         JButton refrescarBtn = new JButton("Refrescar");
 
-        crearBtn.addActionListener(e -> { crearCliente(); refrescarClientes(); });
-        eliminarBtn.addActionListener(e -> { eliminarCliente(); refrescarClientes(); });
+        crearBtn.addActionListener(e -> {
+            Cliente cliente = crearCliente();
+            if (cliente != null) {
+                clienteModel.insertar(new ClienteResumen(cliente.getCedulaPer(),
+                        cliente.getPrimerNom() + " " + cliente.getPrimerApell(),
+                        String.join(", ", cliente.getCorreos().stream().sorted().toList())));
+                personaModel.insertar(resumenPersona(cliente));
+            }
+        });
+        eliminarBtn.addActionListener(e -> {
+            Long cedula = eliminarCliente();
+            if (cedula != null) {
+                clienteModel.eliminar(new ClienteResumen(cedula, null, null));
+            }
+        });
         refrescarBtn.addActionListener(e -> refrescarClientes());
 
         clienteTable.getSelectionModel().addListSelectionListener(e -> {
             int row = clienteTable.getSelectedRow();
-            if (row >= 0) {
-                clienteCedulaField.setText(clienteModel.getValueAt(row, 0).toString());
+            // Una fila cuya página aún no se cargó no tiene datos que mostrar
+            if (row >= 0 && clienteModel.getValueAt(row, 0) != null) {
+                clienteCedulaField.setText(Objects.toString(clienteModel.getValueAt(row, 0), ""));
             }
         });
 
@@ -357,7 +556,7 @@ public class HotelApp {
         return panel;
     }
 
-    private void crearCliente() {
+    private Cliente crearCliente() {
         try {
             String[] correosArr = clienteCorreosField.getText().trim().split(",");
             java.util.List<String> correos = new java.util.ArrayList<>();
@@ -378,13 +577,15 @@ public class HotelApp {
             if (clienteDAO.insertCompleto(cliente)) {
                 JOptionPane.showMessageDialog(frame, "Cliente creado exitosamente");
                 limpiarCamposCliente();
+                return cliente;
             }
         } catch (Exception e) {
             JOptionPane.showMessageDialog(frame, "Error: " + e.getMessage());
         }
+        return null;
     }
 
-    private void eliminarCliente() {
+    private Long eliminarCliente() {
         try {
             Long cedula = Long.parseLong(clienteCedulaField.getText().trim());
             int confirm = JOptionPane.showConfirmDialog(frame,
@@ -394,22 +595,17 @@ public class HotelApp {
                 if (clienteDAO.delete(cedula)) {
                     JOptionPane.showMessageDialog(frame, "Cliente eliminado exitosamente");
                     limpiarCamposCliente();
+                    return cedula;
                 }
             }
         } catch (Exception e) {
             JOptionPane.showMessageDialog(frame, "Error: " + e.getMessage());
         }
+        return null;
     }
 
     private void refrescarClientes() {
-        clienteModel.setRowCount(0);
-        for (Cliente c : clienteDAO.findAll()) {
-            clienteModel.addRow(new Object[]{
-                    c.getCedulaPer(),
-                    c.getPrimerNom() + " " + c.getPrimerApell(),
-                    c.getCorreos() != null ? String.join(", ", c.getCorreos()) : ""
-            });
-        }
+        clienteModel.refrescar();
     }
 
     private void limpiarCamposCliente() {
@@ -440,9 +636,14 @@ public class HotelApp {
         JButton eliminarBtn = new JButton("Eliminar");
         JButton refrescarBtn = new JButton("Refrescar");
 
-        crearBtn.addActionListener(e -> { crearHabitacion(); refrescarHabitaciones(); });
-        actualizarBtn.addActionListener(e -> { actualizarHabitacion(); refrescarHabitaciones(); });
-        eliminarBtn.addActionListener(e -> { eliminarHabitacion(); refrescarHabitaciones(); });
+        crearBtn.addActionListener(e -> mostrarHabitacion(crearHabitacion()));
+        actualizarBtn.addActionListener(e -> mostrarHabitacion(actualizarHabitacion()));
+        eliminarBtn.addActionListener(e -> {
+            Integer numero = eliminarHabitacion();
+            if (numero != null) {
+                cambiarFila(habitacionModel, this::refrescarHabitaciones, numero, fila -> null);
+            }
+        });
         refrescarBtn.addActionListener(e -> refrescarHabitaciones());
 
         habitacionTable.getSelectionModel().addListSelectionListener(e -> {
@@ -469,7 +670,7 @@ public class HotelApp {
         return panel;
     }
 
-    private void crearHabitacion() {
+    private Habitacion crearHabitacion() {
         try {
             Habitacion hab = new Habitacion(
                     Integer.parseInt(habitacionNumeroField.getText().trim()),
@@ -480,13 +681,15 @@ public class HotelApp {
             if (habitacionDAO.insert(hab)) {
                 JOptionPane.showMessageDialog(frame, "Habitación creada exitosamente");
                 limpiarCamposHabitacion();
+                return hab;
             }
         } catch (Exception e) {
             JOptionPane.showMessageDialog(frame, "Error: " + e.getMessage());
         }
+        return null;
     }
 
-    private void actualizarHabitacion() {
+    private Habitacion actualizarHabitacion() {
         try {
             Habitacion hab = new Habitacion(
                     Integer.parseInt(habitacionNumeroField.getText().trim()),
@@ -496,15 +699,17 @@ public class HotelApp {
             );
             if (habitacionDAO.update(hab)) {
                 JOptionPane.showMessageDialog(frame, "Habitación actualizada exitosamente");
+                return hab;
             }
         } catch (Exception e) {
             JOptionPane.showMessageDialog(frame, "Error: " + e.getMessage());
         }
+        return null;
     }
 
-    private void eliminarHabitacion() {
+    private Integer eliminarHabitacion() {
         try {
-            int numero = Integer.parseInt(habitacionNumeroField.getText().trim());
+            Integer numero = Integer.parseInt(habitacionNumeroField.getText().trim());
             int confirm = JOptionPane.showConfirmDialog(frame,
                     "¿Está seguro de eliminar la habitación " + numero + "?",
                     "Confirmar eliminación", JOptionPane.YES_NO_OPTION);
@@ -512,22 +717,32 @@ public class HotelApp {
                 if (habitacionDAO.delete(numero)) {
                     JOptionPane.showMessageDialog(frame, "Habitación eliminada exitosamente");
                     limpiarCamposHabitacion();
+                    return numero;
                 }
             }
         } catch (Exception e) {
             JOptionPane.showMessageDialog(frame, "Error: " + e.getMessage());
         }
+        return null;
     }
 
     private void refrescarHabitaciones() {
-        habitacionModel.setRowCount(0);
-        for (Habitacion h : habitacionDAO.findAll()) {
-            habitacionModel.addRow(new Object[]{
-                    h.getNumeroHab(),
-                    h.getCategoria(),
-                    h.getEstadoHab(),
-                    h.getPrecioNoche()
-            });
+        cargar(habitacionModel, CargadorTabla.lista(habitacionDAO::findAll), HotelApp::filaHabitacion);
+    }
+
+    private static Object[] filaHabitacion(Habitacion h) {
+        return new Object[]{
+                h.getNumeroHab(),
+                h.getCategoria(),
+                h.getEstadoHab(),
+                h.getPrecioNoche()
+        };
+    }
+
+    private void mostrarHabitacion(Habitacion hab) {
+        if (hab != null) {
+            cambiarFila(habitacionModel, this::refrescarHabitaciones, hab.getNumeroHab(),
+                    fila -> filaHabitacion(hab));
         }
     }
 
@@ -558,18 +773,29 @@ public class HotelApp {
         JButton eliminarBtn = new JButton("Eliminar");
         JButton refrescarBtn = new JButton("Refrescar");
 
-        crearBtn.addActionListener(e -> { crearReserva(); refrescarReservas(); });
-        eliminarBtn.addActionListener(e -> { eliminarReserva(); refrescarReservas(); });
+        crearBtn.addActionListener(e -> {
+            Reserva reserva = crearReserva();
+            if (reserva != null) {
+                reservaModel.insertar(resumenReserva(reserva));
+            }
+        });
+        eliminarBtn.addActionListener(e -> {
+            Reserva reserva = eliminarReserva();
+            if (reserva != null) {
+                reservaModel.eliminar(resumenReserva(reserva));
+            }
+        });
         refrescarBtn.addActionListener(e -> refrescarReservas());
 
         reservaTable.getSelectionModel().addListSelectionListener(e -> {
             int row = reservaTable.getSelectedRow();
-            if (row >= 0) {
-                reservaCedulaField.setText(reservaModel.getValueAt(row, 0).toString());
-                reservaHabitacionField.setText(reservaModel.getValueAt(row, 1).toString());
-                reservaFechaLlegadaField.setText(reservaModel.getValueAt(row, 2).toString());
-                reservaFechaSalidaField.setText(reservaModel.getValueAt(row, 3).toString());
-                reservaTiempoCancelField.setText(reservaModel.getValueAt(row, 4).toString());
+            // Una fila cuya página aún no se cargó no tiene datos que mostrar
+            if (row >= 0 && reservaModel.getValueAt(row, 0) != null) {
+                reservaCedulaField.setText(Objects.toString(reservaModel.getValueAt(row, 0), ""));
+                reservaHabitacionField.setText(Objects.toString(reservaModel.getValueAt(row, 1), ""));
+                reservaFechaLlegadaField.setText(Objects.toString(reservaModel.getValueAt(row, 2), ""));
+                reservaFechaSalidaField.setText(Objects.toString(reservaModel.getValueAt(row, 3), ""));
+                reservaTiempoCancelField.setText(Objects.toString(reservaModel.getValueAt(row, 4), ""));
             }
         });
 
@@ -586,7 +812,7 @@ public class HotelApp {
         return panel;
     }
 
-    private void crearReserva() {
+    private Reserva crearReserva() {
         try {
             Reserva reserva = new Reserva(
                     Long.parseLong(reservaCedulaField.getText().trim()),
@@ -598,13 +824,15 @@ public class HotelApp {
             if (reservaDAO.insert(reserva)) {
                 JOptionPane.showMessageDialog(frame, "Reserva creada exitosamente");
                 limpiarCamposReserva();
+                return reserva;
             }
         } catch (Exception e) {
             JOptionPane.showMessageDialog(frame, "Error: " + e.getMessage());
         }
+        return null;
     }
 
-    private void eliminarReserva() {
+    private Reserva eliminarReserva() {
         try {
             Long cedula = Long.parseLong(reservaCedulaField.getText().trim());
             int habitacion = Integer.parseInt(reservaHabitacionField.getText().trim());
@@ -617,24 +845,22 @@ public class HotelApp {
                 if (reservaDAO.delete(cedula, habitacion, fecha)) {
                     JOptionPane.showMessageDialog(frame, "Reserva eliminada exitosamente");
                     limpiarCamposReserva();
+                    return new Reserva(cedula, habitacion, fecha, null, null);
                 }
             }
         } catch (Exception e) {
             JOptionPane.showMessageDialog(frame, "Error: " + e.getMessage());
         }
+        return null;
     }
 
     private void refrescarReservas() {
-        reservaModel.setRowCount(0);
-        for (Reserva r : reservaDAO.findAll()) {
-            reservaModel.addRow(new Object[]{
-                    r.getCedulaPer(),
-                    r.getNumeroHab(),
-                    r.getFechaLlegada(),
-                    r.getFechaSalida(),
-                    r.getTiempoMaxCancel()
-            });
-        }
+        reservaModel.refrescar();
+    }
+
+    private static ReservaResumen resumenReserva(Reserva r) {
+        return new ReservaResumen(r.getCedulaPer(), r.getNumeroHab(), r.getFechaLlegada(),
+                                  r.getFechaSalida(), r.getTiempoMaxCancel());
     }
 
     private void limpiarCamposReserva() {
@@ -664,9 +890,14 @@ public class HotelApp {
         JButton eliminarBtn = new JButton("Eliminar");
         JButton refrescarBtn = new JButton("Refrescar");
 
-        crearBtn.addActionListener(e -> { crearServicio(); refrescarServicios(); });
-        actualizarBtn.addActionListener(e -> { actualizarServicio(); refrescarServicios(); });
-        eliminarBtn.addActionListener(e -> { eliminarServicio(); refrescarServicios(); });
+        crearBtn.addActionListener(e -> mostrarServicio(crearServicio()));
+        actualizarBtn.addActionListener(e -> mostrarServicio(actualizarServicio()));
+        eliminarBtn.addActionListener(e -> {
+            Long id = eliminarServicio();
+            if (id != null) {
+                cambiarFila(servicioModel, this::refrescarServicios, id, fila -> null);
+            }
+        });
         refrescarBtn.addActionListener(e -> refrescarServicios());
 
         servicioTable.getSelectionModel().addListSelectionListener(e -> {
@@ -693,7 +924,7 @@ public class HotelApp {
         return panel;
     }
 
-    private void crearServicio() {
+    private Servicio crearServicio() {
         try {
             Servicio servicio = new Servicio(
                     Long.parseLong(servicioIdField.getText().trim()),
@@ -704,13 +935,15 @@ public class HotelApp {
             if (servicioDAO.insert(servicio)) {
                 JOptionPane.showMessageDialog(frame, "Servicio creado exitosamente");
                 limpiarCamposServicio();
+                return servicio;
             }
         } catch (Exception e) {
             JOptionPane.showMessageDialog(frame, "Error: " + e.getMessage());
         }
+        return null;
     }
 
-    private void actualizarServicio() {
+    private Servicio actualizarServicio() {
         try {
             Servicio servicio = new Servicio(
                     Long.parseLong(servicioIdField.getText().trim()),
@@ -720,13 +953,15 @@ public class HotelApp {
             );
             if (servicioDAO.update(servicio)) {
                 JOptionPane.showMessageDialog(frame, "Servicio actualizado exitosamente");
+                return servicio;
             }
         } catch (Exception e) {
             JOptionPane.showMessageDialog(frame, "Error: " + e.getMessage());
         }
+        return null;
     }
 
-    private void eliminarServicio() {
+    private Long eliminarServicio() {
         try {
             Long id = Long.parseLong(servicioIdField.getText().trim());
             int confirm = JOptionPane.showConfirmDialog(frame,
@@ -736,22 +971,32 @@ public class HotelApp {
                 if (servicioDAO.delete(id)) {
                     JOptionPane.showMessageDialog(frame, "Servicio eliminado exitosamente");
                     limpiarCamposServicio();
+                    return id;
                 }
             }
         } catch (Exception e) {
             JOptionPane.showMessageDialog(frame, "Error: " + e.getMessage());
         }
+        return null;
     }
 
     private void refrescarServicios() {
-        servicioModel.setRowCount(0);
-        for (Servicio s : servicioDAO.findAll()) {
-            servicioModel.addRow(new Object[]{
-                    s.getIdServicio(),
-                    s.getNomServicio(),
-                    s.getContenidoServicio(),
-                    s.getCostoServicio()
-            });
+        cargar(servicioModel, CargadorTabla.lista(servicioDAO::findAll), HotelApp::filaServicio);
+    }
+
+    private static Object[] filaServicio(Servicio s) {
+        return new Object[]{
+                s.getIdServicio(),
+                s.getNomServicio(),
+                s.getContenidoServicio(),
+                s.getCostoServicio()
+        };
+    }
+
+    private void mostrarServicio(Servicio servicio) {
+        if (servicio != null) {
+            cambiarFila(servicioModel, this::refrescarServicios, servicio.getIdServicio(),
+                    fila -> filaServicio(servicio));
         }
     }
 
@@ -777,9 +1022,14 @@ public class HotelApp {
         JButton eliminarBtn = new JButton("Eliminar");
         JButton refrescarBtn = new JButton("Refrescar");
 
-        crearBtn.addActionListener(e -> { crearArea(); refrescarAreas(); });
-        actualizarBtn.addActionListener(e -> { actualizarArea(); refrescarAreas(); });
-        eliminarBtn.addActionListener(e -> { eliminarArea(); refrescarAreas(); });
+        crearBtn.addActionListener(e -> mostrarArea(crearArea()));
+        actualizarBtn.addActionListener(e -> mostrarArea(actualizarArea()));
+        eliminarBtn.addActionListener(e -> {
+            Long id = eliminarArea();
+            if (id != null) {
+                cambiarFila(areaModel, this::refrescarAreas, id, fila -> null);
+            }
+        });
         refrescarBtn.addActionListener(e -> refrescarAreas());
 
         areaTable.getSelectionModel().addListSelectionListener(e -> {
@@ -804,7 +1054,7 @@ public class HotelApp {
         return panel;
     }
 
-    private void crearArea() {
+    private Area crearArea() {
         try {
             Area area = new Area(
                     Long.parseLong(areaIdField.getText().trim()),
@@ -813,13 +1063,15 @@ public class HotelApp {
             if (areaDAO.insert(area)) {
                 JOptionPane.showMessageDialog(frame, "Área creada exitosamente");
                 limpiarCamposArea();
+                return area;
             }
         } catch (Exception e) {
             JOptionPane.showMessageDialog(frame, "Error: " + e.getMessage());
         }
+        return null;
     }
 
-    private void actualizarArea() {
+    private Area actualizarArea() {
         try {
             Area area = new Area(
                     Long.parseLong(areaIdField.getText().trim()),
@@ -827,13 +1079,15 @@ public class HotelApp {
             );
             if (areaDAO.update(area)) {
                 JOptionPane.showMessageDialog(frame, "Área actualizada exitosamente");
+                return area;
             }
         } catch (Exception e) {
             JOptionPane.showMessageDialog(frame, "Error: " + e.getMessage());
         }
+        return null;
     }
 
-    private void eliminarArea() {
+    private Long eliminarArea() {
         try {
             Long id = Long.parseLong(areaIdField.getText().trim());
             int confirm = JOptionPane.showConfirmDialog(frame,
@@ -843,20 +1097,29 @@ public class HotelApp {
                 if (areaDAO.delete(id)) {
                     JOptionPane.showMessageDialog(frame, "Área eliminada exitosamente");
                     limpiarCamposArea();
+                    return id;
                 }
             }
         } catch (Exception e) {
             JOptionPane.showMessageDialog(frame, "Error: " + e.getMessage());
         }
+        return null;
     }
 
     private void refrescarAreas() {
-        areaModel.setRowCount(0);
-        for (Area a : areaDAO.findAll()) {
-            areaModel.addRow(new Object[]{
-                    a.getIdArea(),
-                    a.getNombreArea()
-            });
+        cargar(areaModel, CargadorTabla.lista(areaDAO::findAll), HotelApp::filaArea);
+    }
+
+    private static Object[] filaArea(Area a) {
+        return new Object[]{
+                a.getIdArea(),
+                a.getNombreArea()
+        };
+    }
+
+    private void mostrarArea(Area area) {
+        if (area != null) {
+            cambiarFila(areaModel, this::refrescarAreas, area.getIdArea(), fila -> filaArea(area));
         }
     }
 
@@ -890,9 +1153,33 @@ public class HotelApp {
         JButton eliminarBtn = new JButton("Eliminar");
         JButton refrescarBtn = new JButton("Refrescar");
 
-        crearBtn.addActionListener(e -> { crearEmpleado(); refrescarEmpleados(); });
-        actualizarBtn.addActionListener(e -> { actualizarEmpleado(); refrescarEmpleados(); });
-        eliminarBtn.addActionListener(e -> { eliminarEmpleado(); refrescarEmpleados(); });
+        crearBtn.addActionListener(e -> {
+            Empleado empleado = crearEmpleado();
+            if (empleado != null) {
+                Object[] nueva = {
+                        empleado.getCedulaPer(),
+                        empleado.getPrimerNom() + " " + empleado.getPrimerApell(),
+                        empleado.getCargo(),
+                        empleado.getIdArea()
+                };
+                cambiarFila(empleadoModel, this::refrescarEmpleados, empleado.getCedulaPer(), fila -> nueva);
+                personaModel.insertar(resumenPersona(empleado));
+            }
+        });
+        actualizarBtn.addActionListener(e -> {
+            // Solo cambian el cargo y el área; el nombre se conserva
+            Empleado empleado = actualizarEmpleado();
+            if (empleado != null) {
+                cambiarFila(empleadoModel, this::refrescarEmpleados, empleado.getCedulaPer(), fila -> fila == null
+                        ? null : new Object[]{fila[0], fila[1], empleado.getCargo(), empleado.getIdArea()});
+            }
+        });
+        eliminarBtn.addActionListener(e -> {
+            Long cedula = eliminarEmpleado();
+            if (cedula != null) {
+                cambiarFila(empleadoModel, this::refrescarEmpleados, cedula, fila -> null);
+            }
+        });
         refrescarBtn.addActionListener(e -> refrescarEmpleados());
 
         empleadoTable.getSelectionModel().addListSelectionListener(e -> {
@@ -916,7 +1203,7 @@ public class HotelApp {
         return panel;
     }
 
-    private void crearEmpleado() {
+    private Empleado crearEmpleado() {
         try {
             Empleado empleado = new Empleado(
                     Long.parseLong(empleadoCedulaField.getText().trim()),
@@ -931,13 +1218,15 @@ public class HotelApp {
             if (empleadoDAO.insertCompleto(empleado)) {
                 JOptionPane.showMessageDialog(frame, "Empleado creado exitosamente");
                 limpiarCamposEmpleado();
+                return empleado;
             }
         } catch (Exception e) {
             JOptionPane.showMessageDialog(frame, "Error: " + e.getMessage());
         }
+        return null;
     }
 
-    private void actualizarEmpleado() {
+    private Empleado actualizarEmpleado() {
         try {
             Empleado empleado = new Empleado(
                     Long.parseLong(empleadoCedulaField.getText().trim()),
@@ -951,13 +1240,15 @@ public class HotelApp {
             );
             if (empleadoDAO.update(empleado)) {
                 JOptionPane.showMessageDialog(frame, "Empleado actualizado exitosamente");
+                return empleado;
             }
         } catch (Exception e) {
             JOptionPane.showMessageDialog(frame, "Error: " + e.getMessage());
         }
+        return null;
     }
 
-    private void eliminarEmpleado() {
+    private Long eliminarEmpleado() {
         try {
             Long cedula = Long.parseLong(empleadoCedulaField.getText().trim());
             int confirm = JOptionPane.showConfirmDialog(frame,
@@ -967,23 +1258,22 @@ public class HotelApp {
                 if (empleadoDAO.delete(cedula)) {
                     JOptionPane.showMessageDialog(frame, "Empleado eliminado exitosamente");
                     limpiarCamposEmpleado();
+                    return cedula;
                 }
             }
         } catch (Exception e) {
             JOptionPane.showMessageDialog(frame, "Error: " + e.getMessage());
         }
+        return null;
     }
 
     private void refrescarEmpleados() {
-        empleadoModel.setRowCount(0);
-        for (Empleado e : empleadoDAO.findAll()) {
-            empleadoModel.addRow(new Object[]{
-                    e.getCedulaPer(),
-                    e.getPrimerNom() + " " + e.getPrimerApell(),
-                    e.getCargo(),
-                    e.getIdArea()
-            });
-        }
+        cargar(empleadoModel, empleadoDAO::streamAllResumen, e -> new Object[]{
+                e.cedulaPer(),
+                e.nombre(),
+                e.cargo(),
+                e.idArea()
+        });
     }
 
     private void limpiarCamposEmpleado() {
@@ -996,9 +1286,81 @@ public class HotelApp {
         empleadoAreaField.setText("");
     }
 
+    // ==================== CARGA DE TABLAS ====================
+    private <T> void cargar(DefaultTableModel modelo, CargadorTabla.Fuente<T> fuente,
+                            Function<? super T, Object[]> fila) {
+        cancelarCarga(modelo);
+        CargadorTabla<T> carga = new CargadorTabla<>(modelo, fuente, fila);
+        cargas.put(modelo, carga);
+        carga.iniciar();
+    }
+
+    private void cancelarCarga(TableModel modelo) {
+        CargadorTabla<?> carga = cargas.get(modelo);
+        if (carga != null && !carga.isDone()) {
+            carga.cancel(false);
+        }
+    }
+
+    // ==================== CAMBIO DE FILAS ====================
+    /**
+     * Corrige solo la fila de una clave después de crear, actualizar o eliminar,
+     * sin volver a consultar la tabla. Las filas están ordenadas por la clave
+     * de la primera columna, como las devuelve la consulta, así que la fila se
+     * ubica por búsqueda binaria. El cambio recibe la fila actual (null si no
+     * está) y devuelve la nueva (null para quitarla). Si la tabla se está
+     * cargando se vuelve a cargar, para no mezclar el cambio con las filas en camino.
+     */
+    private <K extends Comparable<? super K>> void cambiarFila(DefaultTableModel modelo, Runnable refresco,
+                                                               K clave, UnaryOperator<Object[]> cambio) {
+        CargadorTabla<?> carga = cargas.get(modelo);
+        if (carga != null && !carga.isDone()) {
+            refresco.run();
+            return;
+        }
+
+        int desde = 0;
+        int hasta = modelo.getRowCount();
+        while (desde < hasta) {
+            int medio = (desde + hasta) >>> 1;
+            @SuppressWarnings("unchecked")
+            K actual = (K) modelo.getValueAt(medio, 0);
+            if (actual.compareTo(clave) < 0) {
+                desde = medio + 1;
+            } else {
+                hasta = medio;
+            }
+        }
+
+        boolean existe = desde < modelo.getRowCount() && clave.equals(modelo.getValueAt(desde, 0));
+        Object[] anterior = null;
+        if (existe) {
+            anterior = new Object[modelo.getColumnCount()];
+            for (int columna = 0; columna < anterior.length; columna++) {
+                anterior[columna] = modelo.getValueAt(desde, columna);
+            }
+        }
+
+        Object[] fila = cambio.apply(anterior);
+        if (fila == null) {
+            if (existe) {
+                modelo.removeRow(desde);
+            }
+        } else if (existe) {
+            for (int columna = 0; columna < fila.length; columna++) {
+                modelo.setValueAt(fila[columna], desde, columna);
+            }
+        } else {
+            modelo.insertRow(desde, fila);
+        }
+    }
+
     // ==================== MOSTRAR APLICACIÓN ====================
     public void mostrar() {
-        SwingUtilities.invokeLater(() -> frame.setVisible(true));
+        SwingUtilities.invokeLater(() -> {
+            frame.setVisible(true);
+            registrarFase("ventana visible", inicio);
+        });
     }
 
     public static void main(String[] args) {
@@ -18,6 +18,12 @@ public class Main {
         try {
             System.out.println("=== SISTEMA DE GESTIÓN HOTELERA ===\n");
             
+            // Crear o actualizar el esquema antes de las pruebas
+            if (MigradorEsquema.migrar()) {
+                ParticionesConsumo.crearProximas();
+                ParticionesConsumo.programarCreacion(ParticionesConsumo.HORAS_CREACION);
+            }
+            
             // Probar operaciones con Persona
             testPersonaDAO();
             
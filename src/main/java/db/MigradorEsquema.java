@@ -0,0 +1,133 @@
+package db;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Crea y actualiza el esquema de la base de datos al iniciar la aplicación
+ * Las migraciones son scripts en db/migracion del classpath y se aplican
+ * en el orden de MIGRACIONES; la tabla esquema_version guarda las que ya se
+ * aplicaron. Todo ocurre en una transacción protegida por un advisory lock,
+ * así dos instancias que arrancan a la vez no aplican la misma migración.
+ *
+ * Para agregar una migración se crea el script VN__descripcion.sql y se
+ * añade al final de MIGRACIONES; un script ya aplicado no se debe modificar.
+ */
+public final class MigradorEsquema {
+    
+    private static final String RUTA = "/db/migracion/";
+    
+    // Scripts en orden de aplicación; la versión es el número después de la V
+    private static final String[] MIGRACIONES = {
+        "V1__esquema.sql",
+        "V2__indices.sql",
+        "V3__particiones_consumo.sql",
+        "V4__historico.sql"
+    };
+    
+    // Clave del advisory lock, compartida por todas las instancias de la aplicación
+    private static final long LOCK_MIGRACION = 0x486F74656CL;
+    
+    private static final String SQL_TABLA_VERSION =
+            "CREATE TABLE IF NOT EXISTS esquema_version (" +
+            "version integer PRIMARY KEY, " +
+            "script text NOT NULL, " +
+            "aplicada timestamptz NOT NULL DEFAULT now())";
+    
+    private static final String SQL_REGISTRAR =
+            "INSERT INTO esquema_version (version, script) VALUES (?, ?)";
+    
+    private MigradorEsquema() {
+    }
+    
+    /**
+     * Aplica las migraciones pendientes sobre el pool de PostgreSQL
+     * @return true si el esquema quedó al día
+     */
+    public static boolean migrar() {
+        return migrar(PostgreSQLConnection.getConnector());
+    }
+    
+    /**
+     * Aplica las migraciones pendientes sobre el pool indicado. Si una
+     * migración falla no queda aplicada ninguna de las de esta ejecución.
+     * @param pool pool del que se toma la conexión
+     * @return true si el esquema quedó al día
+     */
+    public static boolean migrar(DBConnection pool) {
+        try (Connection connection = pool.getConn()) {
+            connection.setAutoCommit(false);
+            
+            try (Statement stmt = connection.createStatement()) {
+                // Se libera sola al terminar la transacción
+                stmt.execute("SELECT pg_advisory_xact_lock(" + LOCK_MIGRACION + ")");
+                stmt.execute(SQL_TABLA_VERSION);
+                
+                Set<Integer> aplicadas = new HashSet<>();
+                try (ResultSet rs = stmt.executeQuery("SELECT version FROM esquema_version")) {
+                    while (rs.next()) {
+                        aplicadas.add(rs.getInt(1));
+                    }
+                }
+                
+                int nuevas = 0;
+                for (String script : MIGRACIONES) {
+                    int version = version(script);
+                    if (aplicadas.contains(version)) {
+                        continue;
+                    }
+                    stmt.execute(leer(script));
+                    try (PreparedStatement registro = connection.prepareStatement(SQL_REGISTRAR)) {
+                        registro.setInt(1, version);
+                        registro.setString(2, script);
+                        registro.executeUpdate();
+                    }
+                    System.out.println("Migración aplicada: " + script);
+                    nuevas++;
+                }
+                
+                connection.commit();
+                if (nuevas == 0) {
+                    String ultima = MIGRACIONES[MIGRACIONES.length - 1];
+                    System.out.println("Esquema al día (versión " + version(ultima) + ")");
+                }
+                return true;
+                
+            } catch (SQLException | IOException e) {
+                connection.rollback();
+                System.err.println("Error al migrar esquema: " + e.getMessage());
+                return false;
+            }
+        } catch (SQLException e) {
+            System.err.println("Error al migrar esquema: " + e.getMessage());
+            return false;
+        }
+    }
+    
+    /**
+     * Obtiene la versión de un script a partir de su nombre (V<n>__...)
+     */
+    private static int version(String script) {
+        return Integer.parseInt(script.substring(1, script.indexOf("__")));
+    }
+    
+    /**
+     * Lee el contenido de un script de migración del classpath
+     */
+    private static String leer(String script) throws IOException {
+        try (InputStream in = MigradorEsquema.class.getResourceAsStream(RUTA + script)) {
+            if (in == null) {
+                throw new IOException("No se encontró el script " + RUTA + script);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
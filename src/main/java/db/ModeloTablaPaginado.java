@@ -0,0 +1,399 @@
+package db;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.UnaryOperator;
+import javax.swing.SwingUtilities;
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * Modelo de tabla que lee de la base de datos solo las páginas visibles
+ * La tabla conoce el total de filas (una consulta count) pero guarda en
+ * memoria como máximo MAX_PAGINAS páginas, descartando las menos usadas.
+ * Cuando la tabla pide una fila de una página que no está cargada, la
+ * celda queda vacía mientras la página se consulta en segundo plano, y
+ * se pide también la página vecina en la dirección del desplazamiento.
+ *
+ * Una página se consulta por clave (después de la última fila de la
+ * anterior) si la anterior está cargada, como al desplazarse hacia abajo;
+ * si no, por posición (LIMIT/OFFSET), como al saltar con la barra.
+ *
+ * Después de insertar, actualizar o eliminar un dato se corrige solo su
+ * fila en las páginas cargadas (ver insertar, actualizar y eliminar), sin
+ * volver a contar ni consultar. Las páginas que quedan desplazadas y no
+ * se pueden corregir se descartan y se consultan de nuevo al mostrarse.
+ * Todo el estado se maneja desde el hilo de eventos de Swing.
+ */
+final class ModeloTablaPaginado<T> extends AbstractTableModel {
+    
+    private static final long serialVersionUID = 1L;
+    
+    static final int TAMANO_PAGINA = 100;
+    static final int MAX_PAGINAS = 20;
+    
+    private final String[] columnas;
+    private final Function<? super T, Object[]> fila;
+    private final Comparator<? super T> orden;
+    private final LongSupplier contar;
+    private final BiFunction<T, Integer, List<T>> siguientes;
+    private final BiFunction<Long, Integer, List<T>> desde;
+    
+    // Páginas cargadas en orden de acceso: la primera es la menos usada
+    private final Map<Integer, Pagina<T>> paginas = new LinkedHashMap<>(MAX_PAGINAS, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Pagina<T>> eldest) {
+            return size() > MAX_PAGINAS;
+        }
+    };
+    private final Set<Integer> pendientes = new HashSet<>();
+    private int filas;
+    
+    // Cambian en cada refrescar() para descartar las respuestas de consultas anteriores;
+    // generacion también cambia al corregir filas, porque las páginas en curso pueden estar desfasadas
+    private int generacion;
+    private int conteo;
+    
+    // Última página pedida; las consultas en cola que quedaron lejos de ella se descartan
+    private volatile int paginaActual;
+    
+    // Las consultas se ejecutan de a una, en un hilo propio del modelo
+    private final ExecutorService consultas;
+    
+    /**
+     * @param nombre nombre del hilo de consultas
+     * @param columnas títulos de las columnas
+     * @param fila conversión de cada dato a los valores de sus columnas
+     * @param orden orden de las consultas; dos datos con la misma clave son iguales
+     * @param contar consulta del total de filas (negativo si falla)
+     * @param siguientes consulta por clave: las filas después de un dato
+     * @param desde consulta por posición: las filas desde un desplazamiento
+     */
+    ModeloTablaPaginado(String nombre, String[] columnas, Function<? super T, Object[]> fila,
+                        Comparator<? super T> orden, LongSupplier contar,
+                        BiFunction<T, Integer, List<T>> siguientes,
+                        BiFunction<Long, Integer, List<T>> desde) {
+        this.columnas = columnas;
+        this.fila = fila;
+        this.orden = orden;
+        this.contar = contar;
+        this.siguientes = siguientes;
+        this.desde = desde;
+        this.consultas = Executors.newSingleThreadExecutor(r -> {
+            Thread hilo = new Thread(r, nombre);
+            hilo.setDaemon(true);
+            return hilo;
+        });
+    }
+    
+    /**
+     * Descarta las páginas cargadas y vuelve a contar las filas
+     */
+    void refrescar() {
+        refrescar(null);
+    }
+    
+    /**
+     * Descarta las páginas cargadas y vuelve a contar las filas
+     * @param alContar acción que se ejecuta en el hilo de eventos al llegar el total, o null
+     */
+    void refrescar(Runnable alContar) {
+        descartarPendientes();
+        paginas.clear();
+        conteo++;
+        
+        int consulta = conteo;
+        consultas.execute(() -> {
+            long total = contar.getAsLong();
+            SwingUtilities.invokeLater(() -> {
+                if (consulta == conteo && total >= 0) {
+                    filas = (int) Math.min(total, Integer.MAX_VALUE);
+                    fireTableDataChanged();
+                    if (alContar != null) {
+                        alContar.run();
+                    }
+                }
+            });
+        });
+    }
+    
+    @Override
+    public int getRowCount() {
+        return filas;
+    }
+    
+    @Override
+    public int getColumnCount() {
+        return columnas.length;
+    }
+    
+    @Override
+    public String getColumnName(int column) {
+        return columnas[column];
+    }
+    
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+        int numero = rowIndex / TAMANO_PAGINA;
+        int posicion = rowIndex % TAMANO_PAGINA;
+        Pagina<T> pagina = paginas.get(numero);
+        if (pagina == null) {
+            pedir(numero);
+            return null;
+        }
+        
+        // Precarga de la página vecina hacia la que se acerca la vista
+        pedir(posicion < TAMANO_PAGINA / 2 ? numero - 1 : numero + 1);
+        
+        return posicion < pagina.filas.size() ? pagina.filas.get(posicion)[columnIndex] : null;
+    }
+    
+    /**
+     * Consulta una página en segundo plano si no está cargada ni pedida
+     */
+    private void pedir(int numero) {
+        if (numero < 0 || (long) numero * TAMANO_PAGINA >= filas
+                || paginas.containsKey(numero) || !pendientes.add(numero)) {
+            return;
+        }
+        paginaActual = numero;
+        
+        Pagina<T> anterior = paginas.get(numero - 1);
+        T ultimo = anterior != null && anterior.datos.size() == TAMANO_PAGINA ? anterior.ultimo() : null;
+        int consulta = generacion;
+        
+        consultas.execute(() -> {
+            Pagina<T> pagina = null;
+            if (Math.abs(numero - paginaActual) <= MAX_PAGINAS / 2) {
+                List<T> datos = ultimo != null
+                        ? siguientes.apply(ultimo, TAMANO_PAGINA)
+                        : desde.apply((long) numero * TAMANO_PAGINA, TAMANO_PAGINA);
+                pagina = new Pagina<>();
+                for (T dato : datos) {
+                    pagina.agregar(pagina.datos.size(), dato, fila.apply(dato));
+                }
+            }
+            
+            Pagina<T> resultado = pagina;
+            SwingUtilities.invokeLater(() -> recibir(consulta, numero, resultado));
+        });
+    }
+    
+    /**
+     * Guarda una página consultada y avisa a la tabla para que la pinte.
+     * Si la consulta se descartó o falló la página queda sin cargar y se
+     * vuelve a pedir la próxima vez que se muestre.
+     */
+    private void recibir(int consulta, int numero, Pagina<T> pagina) {
+        if (consulta != generacion) {
+            return;
+        }
+        pendientes.remove(numero);
+        if (pagina == null || pagina.datos.isEmpty()) {
+            return;
+        }
+        
+        paginas.put(numero, pagina);
+        int primera = numero * TAMANO_PAGINA;
+        int ultimaFila = Math.min(primera + pagina.datos.size(), filas) - 1;
+        if (primera <= ultimaFila) {
+            fireTableRowsUpdated(primera, ultimaFila);
+        }
+    }
+    
+    /**
+     * Agrega una fila para un dato recién insertado. Si su posición cae
+     * dentro de las páginas cargadas se inserta allí y las filas siguientes
+     * se corren una posición; si no, se descartan las páginas cargadas que
+     * quedan después del dato, porque se desplazaron.
+     */
+    void insertar(T dato) {
+        descartarPendientes();
+        int total = filas;
+        filas++;
+        
+        for (int numero : numerosCargados()) {
+            Pagina<T> pagina = paginas.get(numero);
+            int i = -Collections.binarySearch(pagina.datos, dato, orden) - 1;
+            if (i < 0) {
+                // Ya estaba (clave repetida): solo se reemplaza la fila
+                filas--;
+                actualizar(dato, anterior -> dato);
+                return;
+            }
+            
+            Pagina<T> anterior = paginas.get(numero - 1);
+            boolean despuesDeAnterior = numero == 0
+                    || (anterior != null && orden.compare(dato, anterior.ultimo()) > 0);
+            boolean alFinal = (long) numero * TAMANO_PAGINA + pagina.datos.size() >= total;
+            if ((i > 0 || despuesDeAnterior) && (i < pagina.datos.size() || alFinal)) {
+                pagina.agregar(i, dato, fila.apply(dato));
+                correrAdelante(numero);
+                int posicion = numero * TAMANO_PAGINA + i;
+                fireTableRowsInserted(posicion, posicion);
+                return;
+            }
+        }
+        
+        descartarDespuesDe(dato);
+        fireTableDataChanged();
+    }
+    
+    /**
+     * Reemplaza la fila de un dato modificado si está en una página
+     * cargada; si no, se leerá ya modificado al consultar su página.
+     * @param clave dato con la clave de la fila
+     * @param cambio cálculo del dato nuevo a partir del que está en la tabla
+     */
+    void actualizar(T clave, UnaryOperator<T> cambio) {
+        descartarPendientes();
+        for (int numero : numerosCargados()) {
+            Pagina<T> pagina = paginas.get(numero);
+            int i = Collections.binarySearch(pagina.datos, clave, orden);
+            if (i >= 0) {
+                T dato = cambio.apply(pagina.datos.get(i));
+                pagina.datos.set(i, dato);
+                pagina.filas.set(i, fila.apply(dato));
+                int posicion = numero * TAMANO_PAGINA + i;
+                fireTableRowsUpdated(posicion, posicion);
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Quita la fila de un dato eliminado. Si está en una página cargada,
+     * las filas siguientes suben una posición; si no, se descartan las
+     * páginas cargadas que quedan después del dato.
+     * @param clave dato con la clave de la fila
+     */
+    void eliminar(T clave) {
+        descartarPendientes();
+        filas = Math.max(filas - 1, 0);
+        
+        for (int numero : numerosCargados()) {
+            Pagina<T> pagina = paginas.get(numero);
+            int i = Collections.binarySearch(pagina.datos, clave, orden);
+            if (i >= 0) {
+                pagina.quitar(i);
+                correrAtras(numero);
+                int posicion = numero * TAMANO_PAGINA + i;
+                fireTableRowsDeleted(posicion, posicion);
+                return;
+            }
+        }
+        
+        descartarDespuesDe(clave);
+        fireTableDataChanged();
+    }
+    
+    /**
+     * Pasa la última fila de cada página llena a la siguiente, desde una
+     * página que quedó con una fila de más
+     */
+    private void correrAdelante(int numero) {
+        Pagina<T> pagina = paginas.get(numero);
+        while (pagina.datos.size() > TAMANO_PAGINA) {
+            int ultima = pagina.datos.size() - 1;
+            T dato = pagina.datos.get(ultima);
+            Object[] valores = pagina.filas.get(ultima);
+            pagina.quitar(ultima);
+            
+            Pagina<T> siguiente = paginas.get(numero + 1);
+            if (siguiente == null) {
+                break;
+            }
+            siguiente.agregar(0, dato, valores);
+            pagina = siguiente;
+            numero++;
+        }
+        descartarDesde(numero + 1);
+    }
+    
+    /**
+     * Sube la primera fila de cada página siguiente a la anterior, desde
+     * una página que quedó con una fila de menos
+     */
+    private void correrAtras(int numero) {
+        Pagina<T> pagina = paginas.get(numero);
+        Pagina<T> siguiente;
+        while ((siguiente = paginas.get(numero + 1)) != null) {
+            pagina.agregar(pagina.datos.size(), siguiente.datos.get(0), siguiente.filas.get(0));
+            siguiente.quitar(0);
+            pagina = siguiente;
+            numero++;
+        }
+        
+        // Sin la página siguiente cargada, a la última le falta su fila final
+        boolean incompleta = (long) numero * TAMANO_PAGINA + pagina.datos.size() < filas;
+        descartarDesde(pagina.datos.isEmpty() || incompleta ? numero : numero + 1);
+    }
+    
+    /**
+     * Descarta las páginas cargadas cuyos datos van después del indicado
+     */
+    private void descartarDespuesDe(T dato) {
+        paginas.values().removeIf(pagina -> orden.compare(pagina.datos.get(0), dato) > 0);
+    }
+    
+    /**
+     * Descarta las páginas cargadas desde el número indicado
+     */
+    private void descartarDesde(int numero) {
+        paginas.keySet().removeIf(n -> n >= numero);
+    }
+    
+    /**
+     * Descarta las páginas en consulta: sus respuestas se ignoran y se
+     * vuelven a pedir al mostrarse
+     */
+    private void descartarPendientes() {
+        generacion++;
+        pendientes.clear();
+    }
+    
+    /**
+     * Números de las páginas cargadas en orden, copiados porque leer una
+     * página cambia el orden de acceso del mapa
+     */
+    private List<Integer> numerosCargados() {
+        List<Integer> numeros = new ArrayList<>(paginas.keySet());
+        Collections.sort(numeros);
+        return numeros;
+    }
+    
+    /**
+     * Datos de una página, en el orden de la consulta, y los valores de
+     * sus filas
+     */
+    private static final class Pagina<T> {
+        
+        private final List<T> datos = new ArrayList<>(TAMANO_PAGINA + 1);
+        private final List<Object[]> filas = new ArrayList<>(TAMANO_PAGINA + 1);
+        
+        void agregar(int posicion, T dato, Object[] valores) {
+            datos.add(posicion, dato);
+            filas.add(posicion, valores);
+        }
+        
+        void quitar(int posicion) {
+            datos.remove(posicion);
+            filas.remove(posicion);
+        }
+        
+        // Último dato, para pedir la página siguiente por clave
+        T ultimo() {
+            return datos.get(datos.size() - 1);
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package db;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mantenimiento de las particiones mensuales de ConsumoAdicional
+ * Cada mes de fechaConsumo vive en la tabla consumoadicional_AAAAMM (ver
+ * V3__particiones_consumo.sql). Un consumo cuyo mes no tiene partición se
+ * rechaza, así que las de los próximos meses se crean al iniciar la
+ * aplicación y luego periódicamente (programarCreacion), para que un
+ * proceso que queda abierto al cambiar de mes no empiece a rechazar los
+ * consumos de cualquier entrada: la interfaz, la carga masiva o las
+ * fachadas asíncronas. Los meses antiguos se pueden desprender para
+ * archivarlos sin bloquear la tabla.
+ */
+public final class ParticionesConsumo {
+    
+    // Meses hacia adelante que se dejan creados al iniciar
+    public static final int MESES_ADELANTE = 3;
+    
+    // Horas entre dos creaciones programadas
+    public static final long HORAS_CREACION = 24;
+    
+    private static final String PREFIJO = "consumoadicional_";
+    private static final DateTimeFormatter FORMATO_MES = DateTimeFormatter.ofPattern("yyyyMM");
+    
+    private static final String SQL_CREAR =
+            "SELECT crear_particiones_consumo(current_date, " +
+            "(current_date + make_interval(months => ?))::date)";
+    
+    private static final String SQL_PARTICIONES =
+            "SELECT c.relname FROM pg_inherits i " +
+            "INNER JOIN pg_class c ON c.oid = i.inhrelid " +
+            "WHERE i.inhparent = 'consumoadicional'::regclass " +
+            "ORDER BY c.relname";
+    
+    // Sentencias que quitan a una tabla sus claves foráneas hacia Reserva
+    private static final String SQL_FK_RESERVA =
+            "SELECT format('ALTER TABLE %s DROP CONSTRAINT %I', conrelid::regclass, conname) " +
+            "FROM pg_constraint " +
+            "WHERE conrelid = ?::regclass AND contype = 'f' AND confrelid = 'reserva'::regclass";
+    
+    // Creación periódica, iniciada al llamar a programarCreacion()
+    private static ScheduledExecutorService creaciones;
+    private static ScheduledFuture<?> creacionProgramada;
+    
+    private ParticionesConsumo() {
+    }
+    
+    /**
+     * Crea las particiones que falten desde el mes actual hasta MESES_ADELANTE
+     * @return número de particiones creadas, o -1 si hubo un error
+     */
+    public static int crearProximas() {
+        return crearProximas(MESES_ADELANTE);
+    }
+    
+    /**
+     * Crea las particiones que falten desde el mes actual hasta los meses indicados
+     * @param meses meses hacia adelante
+     * @return número de particiones creadas, o -1 si hubo un error
+     */
+    public static int crearProximas(int meses) {
+        try (Connection connection = PostgreSQLConnection.getConnector().getConn();
+             PreparedStatement stmt = connection.prepareStatement(SQL_CREAR)) {
+            stmt.setInt(1, meses);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                rs.next();
+                int creadas = rs.getInt(1);
+                if (creadas > 0) {
+                    System.out.println("Particiones de consumos creadas: " + creadas);
+                }
+                return creadas;
+            }
+        } catch (SQLException e) {
+            System.err.println("Error al crear particiones de consumos: " + e.getMessage());
+            return -1;
+        }
+    }
+    
+    /**
+     * Crea las particiones de los próximos MESES_ADELANTE meses cada cierto
+     * tiempo, en un hilo propio. Llamarlo de nuevo cambia el periodo.
+     * @param horas horas entre el fin de una creación y el inicio de la siguiente
+     */
+    public static synchronized void programarCreacion(long horas) {
+        if (creaciones == null) {
+            creaciones = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread hilo = new Thread(r, "creacion-particiones-consumo");
+                hilo.setDaemon(true);
+                return hilo;
+            });
+        }
+        if (creacionProgramada != null) {
+            creacionProgramada.cancel(false);
+        }
+        creacionProgramada = creaciones.scheduleWithFixedDelay(
+                ParticionesConsumo::crearProximas, horas, horas, TimeUnit.HOURS);
+    }
+    
+    /**
+     * Obtiene los meses que tienen partición adjunta a ConsumoAdicional
+     * @return meses en orden cronológico
+     */
+    public static List<YearMonth> particiones() {
+        List<YearMonth> meses = new ArrayList<>();
+        
+        try (Connection connection = PostgreSQLConnection.getConnector().getConn();
+             Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery(SQL_PARTICIONES)) {
+            
+            while (rs.next()) {
+                String nombre = rs.getString(1);
+                if (nombre.startsWith(PREFIJO)) {
+                    meses.add(YearMonth.parse(nombre.substring(PREFIJO.length()), FORMATO_MES));
+                }
+            }
+            
+        } catch (SQLException e) {
+            System.err.println("Error al listar particiones de consumos: " + e.getMessage());
+        }
+        return meses;
+    }
+    
+    /**
+     * Desprende la partición de un mes con DETACH PARTITION CONCURRENTLY
+     * (PostgreSQL 14 o superior): las consultas e inserciones sobre los
+     * demás meses siguen funcionando mientras tanto. La partición queda
+     * como la tabla independiente consumoadicional_AAAAMM, lista para
+     * archivarla o eliminarla, y ese mes ya no admite consumos.
+     * La tabla desprendida conserva una copia de la clave foránea hacia
+     * Reserva con ON DELETE CASCADE; se quita, porque si no al archivar
+     * después esas reservas (ArchivoHistoricoDAO) sus consumos se borrarían
+     * de la tabla desprendida sin pasar a ConsumoAdicionalHistorico. Así
+     * el mes desprendido se archiva como tabla, con todas sus filas, y
+     * ArchivoHistoricoDAO solo mueve los consumos que siguen en ConsumoAdicional.
+     * No se puede ejecutar dentro de una transacción.
+     * @param mes mes a desprender
+     * @return true si se desprendió correctamente
+     */
+    public static boolean desprender(YearMonth mes) {
+        if (TransactionManager.isActiva()) {
+            System.err.println("Error al desprender partición: no se puede hacer dentro de una transacción");
+            return false;
+        }
+        String sql = "ALTER TABLE ConsumoAdicional DETACH PARTITION " + nombre(mes) + " CONCURRENTLY";
+        
+        try (Connection connection = PostgreSQLConnection.getConnector().getConn();
+             Statement stmt = connection.createStatement()) {
+            stmt.execute(sql);
+            System.out.println("Partición desprendida: " + nombre(mes));
+            return soltarDeReserva(connection, nombre(mes));
+            
+        } catch (SQLException e) {
+            System.err.println("Error al desprender partición: " + e.getMessage());
+            return false;
+        }
+    }
+    
+    /**
+     * Quita las claves foráneas hacia Reserva de una partición desprendida.
+     * Sirve también para las tablas desprendidas sin quitarlas.
+     * @param mes mes cuya partición ya se desprendió
+     * @return true si la tabla quedó sin claves foráneas hacia Reserva
+     */
+    public static boolean soltarDeReserva(YearMonth mes) {
+        try (Connection connection = PostgreSQLConnection.getConnector().getConn()) {
+            return soltarDeReserva(connection, nombre(mes));
+            
+        } catch (SQLException e) {
+            System.err.println("Error al soltar partición de Reserva: " + e.getMessage());
+            return false;
+        }
+    }
+    
+    private static boolean soltarDeReserva(Connection connection, String tabla) {
+        List<String> sentencias = new ArrayList<>();
+        
+        try (PreparedStatement consulta = connection.prepareStatement(SQL_FK_RESERVA)) {
+            consulta.setString(1, tabla);
+            try (ResultSet rs = consulta.executeQuery()) {
+                while (rs.next()) {
+                    sentencias.add(rs.getString(1));
+                }
+            }
+            try (Statement stmt = connection.createStatement()) {
+                for (String sentencia : sentencias) {
+                    stmt.execute(sentencia);
+                }
+            }
+            return true;
+            
+        } catch (SQLException e) {
+            System.err.println("Error al soltar partición de Reserva: " + e.getMessage());
+            return false;
+        }
+    }
+    
+    /**
+     * Nombre de la tabla de la partición de un mes
+     */
+    public static String nombre(YearMonth mes) {
+        return PREFIJO + mes.format(FORMATO_MES);
+    }
+}
@@ -0,0 +1,140 @@
+package db;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Conexión física administrada por el pool de DBConnection
+ * Cada préstamo entrega un proxy cuyo close() devuelve la conexión al pool
+ * y cuyo prepareStatement(sql) usa la cache de sentencias de la conexión
+ */
+final class PooledConnection {
+    
+    private final DBConnection pool;
+    private final Connection physical;
+    private final StatementCache statementCache;
+    private volatile long lastUsed = System.currentTimeMillis();
+    
+    PooledConnection(DBConnection pool, Connection physical) {
+        this.pool = pool;
+        this.physical = physical;
+        this.statementCache = pool.newStatementCache();
+    }
+    
+    /**
+     * Entrega la conexión a un nuevo usuario
+     * @return proxy de Connection válido hasta que se cierre
+     */
+    Connection lease() {
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                new Prestamo());
+    }
+    
+    /**
+     * Indica si la conexión física puede volver a prestarse
+     */
+    boolean isUsable() {
+        try {
+            return !physical.isClosed();
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+    
+    /**
+     * Deja la conexión en su estado por defecto antes de volver al pool.
+     * Una transacción abierta se descarta con rollback.
+     * @return true si la conexión puede reutilizarse
+     */
+    boolean reset() {
+        try {
+            if (physical.isClosed()) {
+                return false;
+            }
+            if (!physical.getAutoCommit()) {
+                physical.rollback();
+                physical.setAutoCommit(true);
+            }
+            if (physical.isReadOnly()) {
+                physical.setReadOnly(false);
+            }
+            physical.clearWarnings();
+            return true;
+        } catch (SQLException e) {
+            System.err.println("Error al restaurar conexión del pool: " + e.getMessage());
+            return false;
+        }
+    }
+    
+    void touch() {
+        lastUsed = System.currentTimeMillis();
+    }
+    
+    long getLastUsed() {
+        return lastUsed;
+    }
+    
+    /**
+     * Cierra la conexión física
+     */
+    void closePhysical() {
+        statementCache.closeAll();
+        try {
+            physical.close();
+        } catch (SQLException e) {
+            System.err.println("Error al cerrar la conexión: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Manejador de un préstamo: close() devuelve la conexión al pool y a
+     * partir de ahí el proxy queda inutilizable
+     */
+    private final class Prestamo implements InvocationHandler {
+        
+        private boolean devuelta;
+        
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!devuelta) {
+                        devuelta = true;
+                        pool.release(PooledConnection.this);
+                    }
+                    return null;
+                case "isClosed":
+                    return devuelta || physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "prepareStatement":
+                    if (!devuelta && args.length == 1) {
+                        return statementCache.prepare(physical, (String) args[0]);
+                    }
+                    break;
+                case "toString":
+                    return "PooledConnection[" + physical + (devuelta ? ", devuelta]" : "]");
+                default:
+                    break;
+            }
+            
+            if (devuelta) {
+                throw new SQLException("La conexión ya fue devuelta al pool");
+            }
+            
+            try {
+                return method.invoke(physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
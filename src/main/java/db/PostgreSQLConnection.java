@@ -19,6 +19,13 @@ public class PostgreSQLConnection extends DBConnection {
     private static final String PASSWORD = "Abby.0309";
     private static final String DATABASE = "hotel";
     
+    // Tamaño y tiempos del pool de conexiones
+    private static final int POOL_MIN = 2;
+    public static final int POOL_MAX = 10;
+    private static final long POOL_ACQUIRE_TIMEOUT_MS = 30_000;
+    private static final long POOL_IDLE_TIMEOUT_MS = 600_000;
+    private static final int STATEMENT_CACHE_SIZE = 64;
+    
     /**
      * Constructor privado para implementar Singleton
      */
@@ -26,13 +33,20 @@ public class PostgreSQLConnection extends DBConnection {
         url = "jdbc:postgresql://" + HOST + ":" + PORT + "/" + DATABASE;
         props.setProperty("user", USER);
         props.setProperty("password", PASSWORD);
+        // Reescribe los lotes de INSERT como INSERT multi-fila
+        props.setProperty("reWriteBatchedInserts", "true");
+        minPoolSize = POOL_MIN;
+        maxPoolSize = POOL_MAX;
+        acquireTimeoutMillis = POOL_ACQUIRE_TIMEOUT_MS;
+        idleTimeoutMillis = POOL_IDLE_TIMEOUT_MS;
+        statementCacheSize = STATEMENT_CACHE_SIZE;
     }
     
     /**
      * Obtiene la instancia única de la conexión (Singleton)
      * @return instancia única de PostgreSQLConnection
      */
-    public static PostgreSQLConnection getConnector() {
+    public static synchronized PostgreSQLConnection getConnector() {
         if (instancia == null) {
             instancia = new PostgreSQLConnection();
         }
@@ -0,0 +1,183 @@
+package db;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache LRU de PreparedStatement por texto SQL, propia de cada conexión del pool
+ * Los DAOs siguen llamando prepareStatement(sql) y close(); el close() solo
+ * devuelve la sentencia a la cache para que la próxima ejecución no la
+ * vuelva a preparar.
+ */
+final class StatementCache {
+    
+    private final int capacidad;
+    private final LongAdder hits;
+    private final LongAdder misses;
+    
+    // Orden de acceso: la entrada más antigua es la menos usada recientemente
+    private final LinkedHashMap<String, Entrada> statements = new LinkedHashMap<>(16, 0.75f, true);
+    
+    StatementCache(int capacidad, LongAdder hits, LongAdder misses) {
+        this.capacidad = capacidad;
+        this.hits = hits;
+        this.misses = misses;
+    }
+    
+    /**
+     * Obtiene la sentencia preparada para el SQL indicado, reutilizándola si
+     * ya está en la cache y libre
+     * @param physical conexión física dueña de la cache
+     * @param sql texto SQL de la sentencia
+     * @return PreparedStatement cuyo close() la devuelve a la cache
+     * @throws SQLException si hay un error al preparar la sentencia
+     */
+    synchronized PreparedStatement prepare(Connection physical, String sql) throws SQLException {
+        Entrada entrada = statements.get(sql);
+        
+        if (entrada != null && !entrada.enUso) {
+            hits.increment();
+            return entrada.prestar();
+        }
+        
+        misses.increment();
+        PreparedStatement stmt = physical.prepareStatement(sql);
+        
+        // La misma sentencia ya está abierta (p. ej. consultas anidadas):
+        // se entrega una sentencia normal que se cierra al terminar
+        if (entrada != null || capacidad <= 0) {
+            return stmt;
+        }
+        
+        entrada = new Entrada(stmt);
+        statements.put(sql, entrada);
+        desalojar();
+        return entrada.prestar();
+    }
+    
+    /**
+     * Cierra todas las sentencias de la cache. Se llama al cerrar la conexión física.
+     */
+    synchronized void closeAll() {
+        for (Entrada entrada : statements.values()) {
+            entrada.cerrar();
+        }
+        statements.clear();
+    }
+    
+    /**
+     * Expulsa las entradas menos usadas que exceden la capacidad
+     */
+    private void desalojar() {
+        Iterator<Map.Entry<String, Entrada>> it = statements.entrySet().iterator();
+        while (statements.size() > capacidad && it.hasNext()) {
+            Entrada entrada = it.next().getValue();
+            it.remove();
+            if (entrada.enUso) {
+                // Se cerrará cuando quien la usa la devuelva
+                entrada.desalojada = true;
+            } else {
+                entrada.cerrar();
+            }
+        }
+    }
+    
+    private synchronized void devolver(Entrada entrada) {
+        entrada.enUso = false;
+        if (entrada.desalojada) {
+            entrada.cerrar();
+            return;
+        }
+        try {
+            entrada.stmt.clearParameters();
+            entrada.stmt.clearBatch();
+            entrada.stmt.setFetchSize(0);
+            entrada.stmt.setMaxRows(0);
+        } catch (SQLException e) {
+            statements.values().remove(entrada);
+            entrada.cerrar();
+        }
+    }
+    
+    /**
+     * Sentencia física guardada en la cache
+     */
+    private final class Entrada {
+        
+        private final PreparedStatement stmt;
+        private boolean enUso;
+        private boolean desalojada;
+        
+        Entrada(PreparedStatement stmt) {
+            this.stmt = stmt;
+        }
+        
+        PreparedStatement prestar() {
+            enUso = true;
+            return (PreparedStatement) Proxy.newProxyInstance(
+                    PreparedStatement.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class},
+                    new Uso(this));
+        }
+        
+        void cerrar() {
+            try {
+                stmt.close();
+            } catch (SQLException e) {
+                System.err.println("Error al cerrar sentencia en cache: " + e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * Manejador de un uso de la sentencia: close() la devuelve a la cache
+     */
+    private final class Uso implements InvocationHandler {
+        
+        private final Entrada entrada;
+        private boolean cerrada;
+        
+        Uso(Entrada entrada) {
+            this.entrada = entrada;
+        }
+        
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!cerrada) {
+                        cerrada = true;
+                        devolver(entrada);
+                    }
+                    return null;
+                case "isClosed":
+                    return cerrada || entrada.stmt.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    break;
+            }
+            
+            if (cerrada) {
+                throw new SQLException("La sentencia ya fue cerrada");
+            }
+            
+            try {
+                return method.invoke(entrada.stmt, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
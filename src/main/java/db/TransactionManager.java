@@ -0,0 +1,435 @@
+package db;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import org.postgresql.core.BaseConnection;
+import org.postgresql.core.TransactionState;
+
+/**
+ * Administra transacciones ligadas al hilo actual
+ * Mientras una unidad de trabajo está abierta, getConn() del pool entrega a
+ * ese hilo siempre la misma conexión, así los DAOs que llame la unidad
+ * participan de la transacción sin recibir la conexión como parámetro.
+ * Otros hilos siguen tomando sus propias conexiones del pool.
+ *
+ * Dentro de la unidad, close(), commit() y setAutoCommit() de la conexión
+ * entregada no tienen efecto; rollback() marca la transacción para que se
+ * deshaga al terminar. Como los DAOs informan errores devolviendo false,
+ * la unidad debe llamar a setRollbackOnly() cuando un resultado la invalide.
+ * Además, una SQLException de la conexión o de sus sentencias deja la
+ * transacción de PostgreSQL abortada aunque el DAO la ignore: la unidad
+ * se deshace al terminar y ejecutar() lanza una SQLException, salvo que
+ * antes se vuelva a un savepoint (rollback con savepoint o una unidad
+ * NESTED que fallara).
+ * El estado en memoria que refleja la base de datos se actualiza con
+ * alConfirmar(), para que un rollback no lo deje con cambios inexistentes.
+ */
+public final class TransactionManager {
+    
+    /**
+     * Cómo se comporta una unidad de trabajo si ya hay una transacción abierta
+     */
+    public enum Propagacion {
+        /** Se une a la transacción abierta o abre una nueva */
+        REQUIRED,
+        /** Abre siempre una transacción nueva con otra conexión del pool */
+        REQUIRES_NEW,
+        /** Dentro de la transacción abierta usa un savepoint; si no hay, abre una nueva */
+        NESTED
+    }
+    
+    /**
+     * Trabajo a ejecutar dentro de una transacción
+     */
+    @FunctionalInterface
+    public interface Unidad<T> {
+        T ejecutar() throws SQLException;
+    }
+    
+    // Transacciones abiertas por cada hilo, la más interna al inicio
+    private static final ThreadLocal<Deque<Transaccion>> ACTIVAS = new ThreadLocal<>();
+    
+    private TransactionManager() {
+    }
+    
+    /**
+     * Ejecuta una unidad de trabajo con propagación REQUIRED sobre el pool de PostgreSQL
+     * @param unidad trabajo a ejecutar
+     * @return resultado de la unidad
+     * @throws SQLException si la unidad falla o no se puede confirmar
+     */
+    public static <T> T ejecutar(Unidad<T> unidad) throws SQLException {
+        return ejecutar(PostgreSQLConnection.getConnector(), Propagacion.REQUIRED, unidad);
+    }
+    
+    /**
+     * Ejecuta una unidad de trabajo en una transacción del pool indicado.
+     * Si la unidad lanza una excepción se deshace lo que hizo y la excepción
+     * se propaga; si termina normalmente se confirma, salvo que se haya
+     * marcado con setRollbackOnly() o que ignorara un error de la base de
+     * datos (en ese caso se deshace y se lanza una SQLException).
+     * Con REQUIRES_NEW el hilo retiene dos conexiones a la vez: no conviene
+     * usarlo con muchos hilos en paralelo si el pool es pequeño.
+     * @param pool pool del que se toma la conexión
+     * @param propagacion comportamiento si ya hay una transacción abierta
+     * @param unidad trabajo a ejecutar
+     * @return resultado de la unidad
+     * @throws SQLException si la unidad falla o no se puede confirmar
+     */
+    public static <T> T ejecutar(DBConnection pool, Propagacion propagacion, Unidad<T> unidad)
+            throws SQLException {
+        Deque<Transaccion> pila = ACTIVAS.get();
+        if (pila == null) {
+            pila = new ArrayDeque<>();
+            ACTIVAS.set(pila);
+        }
+        
+        Transaccion actual = buscar(pila, pool);
+        try {
+            if (actual != null && propagacion == Propagacion.REQUIRED) {
+                return participar(actual, unidad);
+            }
+            if (actual != null && propagacion == Propagacion.NESTED) {
+                return anidar(pila, actual, unidad);
+            }
+            return iniciar(pila, pool, unidad);
+        } finally {
+            if (pila.isEmpty()) {
+                ACTIVAS.remove();
+            }
+        }
+    }
+    
+    /**
+     * Marca la transacción más interna del hilo para que se deshaga al terminar
+     * @throws IllegalStateException si el hilo no tiene una transacción abierta
+     */
+    public static void setRollbackOnly() {
+        Deque<Transaccion> pila = ACTIVAS.get();
+        if (pila == null || pila.isEmpty()) {
+            throw new IllegalStateException("No hay una transacción abierta en este hilo");
+        }
+        pila.peekFirst().rollbackOnly = true;
+    }
+    
+    /**
+     * Ejecuta una acción cuando se confirme la transacción del hilo sobre el
+     * pool; si no hay una abierta, la sentencia ya se confirmó en autocommit
+     * y la acción se ejecuta de inmediato. Si la transacción (o el savepoint
+     * NESTED en que se registró) se deshace, la acción se descarta.
+     * @param pool pool de la conexión con la que se hizo el cambio
+     * @param accion acción a ejecutar tras el commit
+     */
+    public static void alConfirmar(DBConnection pool, Runnable accion) {
+        Deque<Transaccion> pila = ACTIVAS.get();
+        Transaccion actual = pila != null ? buscar(pila, pool) : null;
+        if (actual != null) {
+            actual.alConfirmar.add(accion);
+        } else {
+            accion.run();
+        }
+    }
+    
+    /**
+     * Indica si el hilo actual tiene una transacción abierta
+     */
+    public static boolean isActiva() {
+        Deque<Transaccion> pila = ACTIVAS.get();
+        return pila != null && !pila.isEmpty();
+    }
+    
+    /**
+     * Conexión que debe usar el hilo actual si tiene una transacción abierta
+     * sobre el pool. La invoca DBConnection.getConn().
+     * @return conexión de la transacción, o null si no hay ninguna
+     */
+    static Connection conexionActual(DBConnection pool) {
+        Deque<Transaccion> pila = ACTIVAS.get();
+        if (pila == null) {
+            return null;
+        }
+        Transaccion actual = buscar(pila, pool);
+        return actual != null ? actual.participacion : null;
+    }
+    
+    private static Transaccion buscar(Deque<Transaccion> pila, DBConnection pool) {
+        for (Transaccion transaccion : pila) {
+            if (transaccion.pool == pool) {
+                return transaccion;
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Ejecuta la unidad dentro de la transacción abierta
+     */
+    private static <T> T participar(Transaccion actual, Unidad<T> unidad) throws SQLException {
+        try {
+            return unidad.ejecutar();
+        } catch (SQLException | RuntimeException e) {
+            actual.rollbackOnly = true;
+            throw e;
+        }
+    }
+    
+    /**
+     * Ejecuta la unidad entre un savepoint y su liberación; si falla solo
+     * se deshace lo hecho desde el savepoint
+     */
+    private static <T> T anidar(Deque<Transaccion> pila, Transaccion actual, Unidad<T> unidad)
+            throws SQLException {
+        Connection conexion = actual.conexion;
+        Savepoint savepoint = conexion.setSavepoint();
+        Transaccion anidada = new Transaccion(actual.pool, conexion);
+        
+        T resultado;
+        pila.push(anidada);
+        try {
+            resultado = unidad.ejecutar();
+        } catch (SQLException | RuntimeException e) {
+            deshacer(e, () -> conexion.rollback(savepoint));
+            throw e;
+        } finally {
+            pila.pop();
+        }
+        
+        if (anidada.rollbackOnly || anidada.abortada) {
+            conexion.rollback(savepoint);
+            if (!anidada.rollbackOnly) {
+                throw errorIgnorado();
+            }
+        } else {
+            conexion.releaseSavepoint(savepoint);
+            actual.alConfirmar.addAll(anidada.alConfirmar);
+        }
+        return resultado;
+    }
+    
+    /**
+     * Toma una conexión nueva del pool y ejecuta la unidad en su propia transacción
+     */
+    private static <T> T iniciar(Deque<Transaccion> pila, DBConnection pool, Unidad<T> unidad)
+            throws SQLException {
+        try (Connection conexion = pool.prestar()) {
+            conexion.setAutoCommit(false);
+            Transaccion nueva = new Transaccion(pool, conexion);
+            
+            T resultado;
+            pila.push(nueva);
+            try {
+                resultado = unidad.ejecutar();
+            } catch (SQLException | RuntimeException e) {
+                deshacer(e, conexion::rollback);
+                throw e;
+            } finally {
+                pila.pop();
+            }
+            
+            if (nueva.rollbackOnly || nueva.abortada || abortadaEnServidor(conexion)) {
+                conexion.rollback();
+                if (!nueva.rollbackOnly) {
+                    throw errorIgnorado();
+                }
+            } else {
+                conexion.commit();
+                confirmar(nueva);
+            }
+            return resultado;
+        }
+    }
+    
+    /**
+     * Indica si PostgreSQL tiene la transacción abortada por un error que no
+     * pasó por la conexión de la unidad (por ejemplo, al leer un ResultSet).
+     * Un commit en ese estado la deshace sin avisar, y no debe ejecutar las
+     * acciones de alConfirmar().
+     */
+    private static boolean abortadaEnServidor(Connection conexion) {
+        try {
+            return conexion.isWrapperFor(BaseConnection.class)
+                    && conexion.unwrap(BaseConnection.class).getTransactionState() == TransactionState.FAILED;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+    
+    /**
+     * Error con que termina una unidad que no se pudo confirmar porque
+     * ignoró un error de la base de datos
+     */
+    private static SQLException errorIgnorado() {
+        return new SQLException("La transacción se deshizo por un error anterior de la base de datos", "25P02");
+    }
+    
+    /**
+     * Marca como abortada la unidad más interna del hilo sobre el pool de la
+     * transacción, tras un error de la base de datos
+     */
+    private static void marcarAbortada(Transaccion transaccion, boolean abortada) {
+        Deque<Transaccion> pila = ACTIVAS.get();
+        Transaccion actual = pila != null ? buscar(pila, transaccion.pool) : null;
+        (actual != null ? actual : transaccion).abortada = abortada;
+    }
+    
+    /**
+     * Invoca el método sobre el objeto JDBC real; si falla con una
+     * SQLException la unidad queda abortada
+     */
+    private static Object delegar(Transaccion transaccion, Object destino, Method method, Object[] args)
+            throws Throwable {
+        try {
+            return method.invoke(destino, args);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof SQLException) {
+                marcarAbortada(transaccion, true);
+            }
+            throw e.getCause();
+        }
+    }
+    
+    /**
+     * Ejecuta las acciones registradas con alConfirmar() tras el commit; un
+     * error en una acción no afecta a las demás ni a la transacción ya confirmada
+     */
+    private static void confirmar(Transaccion transaccion) {
+        for (Runnable accion : transaccion.alConfirmar) {
+            try {
+                accion.run();
+            } catch (RuntimeException e) {
+                System.err.println("Error al aplicar cambio confirmado: " + e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * Deshace el trabajo tras un error sin ocultar la excepción original
+     */
+    private static void deshacer(Exception error, Accion rollback) {
+        try {
+            rollback.ejecutar();
+        } catch (SQLException e) {
+            error.addSuppressed(e);
+        }
+    }
+    
+    @FunctionalInterface
+    private interface Accion {
+        void ejecutar() throws SQLException;
+    }
+    
+    /**
+     * Transacción abierta por un hilo sobre un pool
+     */
+    private static final class Transaccion {
+        
+        private final DBConnection pool;
+        private final Connection conexion;
+        private final Connection participacion;
+        private final List<Runnable> alConfirmar = new ArrayList<>();
+        private boolean rollbackOnly;
+        // Hubo un error de la base de datos después del último savepoint
+        private boolean abortada;
+        
+        Transaccion(DBConnection pool, Connection conexion) {
+            this.pool = pool;
+            this.conexion = conexion;
+            this.participacion = (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    new Participacion(this));
+        }
+    }
+    
+    /**
+     * Manejador de la conexión que reciben los DAOs dentro de una transacción:
+     * la transacción solo la terminan ejecutar() y sus savepoints. Las
+     * sentencias que crea también pasan por aquí, para notar sus errores.
+     */
+    private static final class Participacion implements InvocationHandler {
+        
+        private final Transaccion transaccion;
+        
+        Participacion(Transaccion transaccion) {
+            this.transaccion = transaccion;
+        }
+        
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                case "commit":
+                case "setAutoCommit":
+                    return null;
+                case "getAutoCommit":
+                    return false;
+                case "rollback":
+                    if (args == null) {
+                        transaccion.rollbackOnly = true;
+                        return null;
+                    }
+                    break;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Participacion[" + transaccion.conexion + "]";
+                default:
+                    break;
+            }
+            
+            Object resultado = delegar(transaccion, transaccion.conexion, method, args);
+            if (method.getName().equals("rollback")) {
+                // Volver a un savepoint deja la transacción utilizable otra vez
+                marcarAbortada(transaccion, false);
+            }
+            if (resultado instanceof Statement && method.getReturnType().isInterface()) {
+                return Proxy.newProxyInstance(Statement.class.getClassLoader(),
+                        new Class<?>[]{method.getReturnType()},
+                        new Sentencia(transaccion, (Connection) proxy, resultado));
+            }
+            return resultado;
+        }
+    }
+    
+    /**
+     * Manejador de las sentencias creadas dentro de una transacción
+     */
+    private static final class Sentencia implements InvocationHandler {
+        
+        private final Transaccion transaccion;
+        private final Connection participacion;
+        private final Object sentencia;
+        
+        Sentencia(Transaccion transaccion, Connection participacion, Object sentencia) {
+            this.transaccion = transaccion;
+            this.participacion = participacion;
+            this.sentencia = sentencia;
+        }
+        
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "getConnection":
+                    return participacion;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    return delegar(transaccion, sentencia, method, args);
+            }
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package modelo;
+
+/**
+ * Fila resumida de Cliente para listados: nombre y correos ya unidos
+ * por la consulta, sin cargar la lista de correos
+ */
+public record ClienteResumen(long cedulaPer, String nombre, String correos) {
+}
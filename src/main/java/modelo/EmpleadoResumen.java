@@ -0,0 +1,7 @@
+package modelo;
+
+/**
+ * Fila resumida de Empleado para listados
+ */
+public record EmpleadoResumen(long cedulaPer, String nombre, String cargo, long idArea) {
+}
@@ -0,0 +1,9 @@
+package modelo;
+
+/**
+ * Fila resumida de Persona para listados: solo los datos que se muestran,
+ * con la dirección ya armada por la consulta
+ */
+public record PersonaResumen(long cedulaPer, String primerNom, String segundoNom,
+                             String primerApell, String segundoApell, String direccion) {
+}
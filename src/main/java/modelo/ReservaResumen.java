@@ -0,0 +1,11 @@
+package modelo;
+
+import java.time.LocalDate;
+
+/**
+ * Fila resumida de Reserva para listados, sin los objetos Cliente y
+ * Habitacion del modelo completo
+ */
+public record ReservaResumen(long cedulaPer, int numeroHab, LocalDate fechaLlegada,
+                             LocalDate fechaSalida, Integer tiempoMaxCancel) {
+}
@@ -0,0 +1,80 @@
+-- Tablas del sistema hotelero (las que usan las clases de modelo)
+-- Se pueden ejecutar sobre una base que ya las tenga: IF NOT EXISTS no
+-- modifica las tablas existentes.
+
+CREATE TABLE IF NOT EXISTS Persona (
+    cedulaPer     BIGINT       PRIMARY KEY,
+    primerNom     VARCHAR(50)  NOT NULL,
+    segundoNom    VARCHAR(50),
+    primerApell   VARCHAR(50)  NOT NULL,
+    segundoApell  VARCHAR(50),
+    calle         VARCHAR(50),
+    carrera       VARCHAR(50),
+    numero        VARCHAR(20),
+    complemento   VARCHAR(100)
+);
+
+CREATE TABLE IF NOT EXISTS Cliente (
+    cedulaPer  BIGINT  PRIMARY KEY REFERENCES Persona (cedulaPer) ON DELETE CASCADE
+);
+
+CREATE TABLE IF NOT EXISTS Area (
+    idArea      BIGINT        PRIMARY KEY,
+    nombreArea  VARCHAR(100)  NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS Empleado (
+    cedulaPer  BIGINT       PRIMARY KEY REFERENCES Persona (cedulaPer) ON DELETE CASCADE,
+    cargo      VARCHAR(50)  NOT NULL,
+    idArea     BIGINT       NOT NULL REFERENCES Area (idArea)
+);
+
+CREATE TABLE IF NOT EXISTS Correo (
+    cedulaPer  BIGINT        NOT NULL REFERENCES Cliente (cedulaPer) ON DELETE CASCADE,
+    correo     VARCHAR(150)  NOT NULL,
+    PRIMARY KEY (cedulaPer, correo)
+);
+
+CREATE TABLE IF NOT EXISTS TelefonoPer (
+    cedulaPer    BIGINT  NOT NULL REFERENCES Persona (cedulaPer) ON DELETE CASCADE,
+    telefonoPer  BIGINT  NOT NULL,
+    PRIMARY KEY (cedulaPer, telefonoPer)
+);
+
+CREATE TABLE IF NOT EXISTS Habitacion (
+    numeroHab    INTEGER        PRIMARY KEY,
+    categoria    VARCHAR(30)    NOT NULL,
+    estadoHab    VARCHAR(20)    NOT NULL DEFAULT 'Disponible',
+    precioNoche  NUMERIC(12,2)  NOT NULL CHECK (precioNoche >= 0)
+);
+
+CREATE TABLE IF NOT EXISTS Servicio (
+    idServicio         BIGINT         PRIMARY KEY,
+    nomServicio        VARCHAR(100)   NOT NULL,
+    contenidoServicio  TEXT,
+    costoServicio      NUMERIC(12,2)  NOT NULL CHECK (costoServicio >= 0)
+);
+
+CREATE TABLE IF NOT EXISTS Reserva (
+    cedulaPer        BIGINT   NOT NULL REFERENCES Cliente (cedulaPer),
+    numeroHab        INTEGER  NOT NULL REFERENCES Habitacion (numeroHab),
+    fechaLlegada     DATE     NOT NULL,
+    fechaSalida      DATE     NOT NULL,
+    tiempoMaxCancel  INTEGER,
+    PRIMARY KEY (cedulaPer, numeroHab, fechaLlegada),
+    CHECK (fechaSalida > fechaLlegada)
+);
+
+-- ReservaDAO.update puede cambiar la llave de una reserva: sus consumos la siguen
+CREATE TABLE IF NOT EXISTS ConsumoAdicional (
+    fechaConsumo  DATE     NOT NULL,
+    horaConsumo   TIME     NOT NULL,
+    fechaLlegada  DATE     NOT NULL,
+    numeroHab     INTEGER  NOT NULL,
+    cedulaPer     BIGINT   NOT NULL,
+    idServicio    BIGINT   NOT NULL REFERENCES Servicio (idServicio),
+    PRIMARY KEY (fechaConsumo, horaConsumo, fechaLlegada, numeroHab, cedulaPer, idServicio),
+    FOREIGN KEY (cedulaPer, numeroHab, fechaLlegada)
+        REFERENCES Reserva (cedulaPer, numeroHab, fechaLlegada)
+        ON UPDATE CASCADE ON DELETE CASCADE
+);
@@ -0,0 +1,36 @@
+-- Índices que necesitan las consultas de los DAOs
+-- Las búsquedas por cédula de Reserva, Correo y TelefonoPer ya usan la
+-- llave primaria, que empieza por cedulaPer.
+
+-- Disponibilidad y conflictos por habitación y fechas (findDisponiblesEntre, findByHabitacion)
+CREATE INDEX IF NOT EXISTS idx_reserva_habitacion_fechas
+    ON Reserva (numeroHab, fechaLlegada, fechaSalida);
+
+-- Orden de findAll y paginación por clave de reservas
+CREATE INDEX IF NOT EXISTS idx_reserva_llegada_clave
+    ON Reserva (fechaLlegada, cedulaPer, numeroHab);
+
+-- Consumos de una reserva (findByReserva, calcularTotalReserva) y llave foránea a Reserva
+CREATE INDEX IF NOT EXISTS idx_consumo_reserva
+    ON ConsumoAdicional (cedulaPer, numeroHab, fechaLlegada);
+
+-- Consumos por fecha (findByFecha), orden de findAll y paginación por clave
+CREATE INDEX IF NOT EXISTS idx_consumo_fecha
+    ON ConsumoAdicional (fechaConsumo, horaConsumo, fechaLlegada, numeroHab, cedulaPer);
+
+-- Consumos por servicio (findByServicio) y llave foránea a Servicio
+CREATE INDEX IF NOT EXISTS idx_consumo_servicio
+    ON ConsumoAdicional (idServicio);
+
+-- Empleados por área (findByArea) y llave foránea a Area
+CREATE INDEX IF NOT EXISTS idx_empleado_area
+    ON Empleado (idArea);
+
+-- Empleados por cargo (findByCargo)
+CREATE INDEX IF NOT EXISTS idx_empleado_cargo
+    ON Empleado (cargo);
+
+-- Habitaciones libres (findDisponibles): solo se indexan las disponibles
+CREATE INDEX IF NOT EXISTS idx_habitacion_disponible
+    ON Habitacion (numeroHab)
+    WHERE estadoHab = 'Disponible';
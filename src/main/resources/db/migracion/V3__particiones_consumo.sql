@@ -0,0 +1,77 @@
+-- ConsumoAdicional particionada por mes de fechaConsumo
+-- Cada mes vive en la tabla consumoadicional_AAAAMM. No hay partición por
+-- defecto porque impediría desprender particiones con DETACH CONCURRENTLY:
+-- un consumo cuyo mes no tiene partición se rechaza, por eso la aplicación
+-- crea las de los próximos meses al iniciar (ParticionesConsumo).
+
+-- Crea las particiones mensuales que falten entre dos fechas
+-- Devuelve cuántas creó. Un mes desprendido conserva su tabla y no se vuelve a crear.
+CREATE OR REPLACE FUNCTION crear_particiones_consumo(desde date, hasta date)
+RETURNS integer
+LANGUAGE plpgsql AS $$
+DECLARE
+    mes date := date_trunc('month', desde)::date;
+    nombre text;
+    creadas integer := 0;
+BEGIN
+    WHILE mes <= hasta LOOP
+        nombre := 'consumoadicional_' || to_char(mes, 'YYYYMM');
+        IF to_regclass(nombre) IS NULL THEN
+            EXECUTE format('CREATE TABLE %I PARTITION OF ConsumoAdicional FOR VALUES FROM (%L) TO (%L)',
+                           nombre, mes, (mes + interval '1 month')::date);
+            creadas := creadas + 1;
+        END IF;
+        mes := (mes + interval '1 month')::date;
+    END LOOP;
+    RETURN creadas;
+END
+$$;
+
+-- Convierte la tabla creada en V1 conservando sus filas
+DO $$
+DECLARE
+    primera date;
+    ultima date;
+BEGIN
+    IF (SELECT relkind FROM pg_class WHERE oid = 'consumoadicional'::regclass) = 'p' THEN
+        RETURN;
+    END IF;
+
+    ALTER TABLE ConsumoAdicional RENAME TO consumoadicional_previa;
+    DROP INDEX IF EXISTS idx_consumo_reserva, idx_consumo_fecha, idx_consumo_servicio;
+
+    CREATE TABLE ConsumoAdicional (
+        fechaConsumo  DATE     NOT NULL,
+        horaConsumo   TIME     NOT NULL,
+        fechaLlegada  DATE     NOT NULL,
+        numeroHab     INTEGER  NOT NULL,
+        cedulaPer     BIGINT   NOT NULL,
+        idServicio    BIGINT   NOT NULL REFERENCES Servicio (idServicio),
+        CONSTRAINT pk_consumoadicional
+            PRIMARY KEY (fechaConsumo, horaConsumo, fechaLlegada, numeroHab, cedulaPer, idServicio),
+        FOREIGN KEY (cedulaPer, numeroHab, fechaLlegada)
+            REFERENCES Reserva (cedulaPer, numeroHab, fechaLlegada)
+            ON UPDATE CASCADE ON DELETE CASCADE
+    ) PARTITION BY RANGE (fechaConsumo);
+
+    SELECT min(fechaConsumo), max(fechaConsumo) INTO primera, ultima FROM consumoadicional_previa;
+    PERFORM crear_particiones_consumo(least(primera, current_date),
+                                      greatest(ultima, (current_date + interval '3 months')::date));
+
+    INSERT INTO ConsumoAdicional (fechaConsumo, horaConsumo, fechaLlegada, numeroHab, cedulaPer, idServicio)
+    SELECT fechaConsumo, horaConsumo, fechaLlegada, numeroHab, cedulaPer, idServicio
+    FROM consumoadicional_previa;
+
+    DROP TABLE consumoadicional_previa;
+END
+$$;
+
+-- Los mismos índices de V2, ahora particionados (cada partición tiene el suyo)
+CREATE INDEX IF NOT EXISTS idx_consumo_reserva
+    ON ConsumoAdicional (cedulaPer, numeroHab, fechaLlegada);
+
+CREATE INDEX IF NOT EXISTS idx_consumo_fecha
+    ON ConsumoAdicional (fechaConsumo, horaConsumo, fechaLlegada, numeroHab, cedulaPer);
+
+CREATE INDEX IF NOT EXISTS idx_consumo_servicio
+    ON ConsumoAdicional (idServicio);
@@ -0,0 +1,38 @@
+-- Tablas históricas de reservas cerradas y sus consumos
+-- ArchivoHistoricoDAO mueve aquí las reservas que salieron hace meses, así
+-- las tablas que consulta la recepción solo guardan las estadías recientes.
+
+CREATE TABLE IF NOT EXISTS ReservaHistorico (
+    cedulaPer        BIGINT       NOT NULL REFERENCES Cliente (cedulaPer),
+    numeroHab        INTEGER      NOT NULL REFERENCES Habitacion (numeroHab),
+    fechaLlegada     DATE         NOT NULL,
+    fechaSalida      DATE         NOT NULL,
+    tiempoMaxCancel  INTEGER,
+    archivada        TIMESTAMPTZ  NOT NULL DEFAULT now(),
+    PRIMARY KEY (cedulaPer, numeroHab, fechaLlegada)
+);
+
+CREATE TABLE IF NOT EXISTS ConsumoAdicionalHistorico (
+    fechaConsumo  DATE     NOT NULL,
+    horaConsumo   TIME     NOT NULL,
+    fechaLlegada  DATE     NOT NULL,
+    numeroHab     INTEGER  NOT NULL,
+    cedulaPer     BIGINT   NOT NULL,
+    idServicio    BIGINT   NOT NULL REFERENCES Servicio (idServicio),
+    PRIMARY KEY (fechaConsumo, horaConsumo, fechaLlegada, numeroHab, cedulaPer, idServicio),
+    FOREIGN KEY (cedulaPer, numeroHab, fechaLlegada)
+        REFERENCES ReservaHistorico (cedulaPer, numeroHab, fechaLlegada)
+        ON DELETE CASCADE
+);
+
+-- Reservas por fecha de salida: selección de lotes a archivar y findReservasActivas
+CREATE INDEX IF NOT EXISTS idx_reserva_salida
+    ON Reserva (fechaSalida);
+
+-- Historial por habitación (findByHabitacion con includeHistory)
+CREATE INDEX IF NOT EXISTS idx_reserva_historico_habitacion
+    ON ReservaHistorico (numeroHab, fechaLlegada);
+
+-- Consumos históricos de una reserva y llave foránea a ReservaHistorico
+CREATE INDEX IF NOT EXISTS idx_consumo_historico_reserva
+    ON ConsumoAdicionalHistorico (cedulaPer, numeroHab, fechaLlegada);
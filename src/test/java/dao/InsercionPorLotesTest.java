@@ -0,0 +1,83 @@
+package dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import db.PoolDePrueba;
+import db.TransactionManager;
+import db.TransactionManager.Propagacion;
+
+/**
+ * Pruebas de InsercionPorLotes dentro de una transacción de TransactionManager
+ * La base de datos es el driver en memoria de PoolDePrueba: una fila con
+ * valor negativo viola una restricción.
+ */
+class InsercionPorLotesTest {
+    
+    private static final PoolDePrueba pool = new PoolDePrueba();
+    
+    @BeforeEach
+    void limpiarBase() {
+        PoolDePrueba.limpiar();
+    }
+    
+    @Test
+    void loteConErrorDentroDeUnaUnidadGuardaLasFilasValidasAlConfirmar() throws SQLException {
+        List<Integer> filas = List.of(1, 2, -3, 4, 5);
+        List<Integer> aplicadas = new ArrayList<>();
+        
+        ResultadoLote resultado = TransactionManager.ejecutar(pool, Propagacion.REQUIRED, () -> {
+            ResultadoLote lote = insertar(filas, aplicadas);
+            // Nada se confirma ni se aplica antes de terminar la unidad
+            assertTrue(PoolDePrueba.getConfirmadas().isEmpty());
+            assertTrue(aplicadas.isEmpty());
+            return lote;
+        });
+        
+        assertEquals(4, resultado.getExitosos());
+        assertEquals(List.of(2), new ArrayList<>(resultado.getFallos().keySet()));
+        assertEquals(List.of(1, 2, 4, 5), PoolDePrueba.getConfirmadas());
+        assertEquals(List.of(1, 2, 4, 5), aplicadas);
+    }
+    
+    @Test
+    void loteDentroDeUnaUnidadDeshechaNoGuardaNiAplicaNada() throws SQLException {
+        List<Integer> aplicadas = new ArrayList<>();
+        
+        TransactionManager.ejecutar(pool, Propagacion.REQUIRED, () -> {
+            ResultadoLote lote = insertar(List.of(1, -2, 3), aplicadas);
+            TransactionManager.setRollbackOnly();
+            return lote;
+        });
+        
+        assertTrue(PoolDePrueba.getConfirmadas().isEmpty());
+        assertTrue(aplicadas.isEmpty());
+    }
+    
+    @Test
+    void loteFueraDeUnaUnidadConfirmaPorSuCuenta() {
+        List<Integer> aplicadas = new ArrayList<>();
+        
+        ResultadoLote resultado = insertar(List.of(1, -2, 3), aplicadas);
+        
+        assertEquals(2, resultado.getExitosos());
+        assertEquals(List.of(1, 3), PoolDePrueba.getConfirmadas());
+        assertEquals(List.of(1, 3), aplicadas);
+    }
+    
+    /**
+     * Inserta las filas; como el índice de ocupación, cada fila guardada se
+     * aplica en memoria solo cuando se confirma
+     */
+    private static ResultadoLote insertar(List<Integer> filas, List<Integer> aplicadas) {
+        return InsercionPorLotes.insertar(pool, PoolDePrueba.SQL_INSERT, filas, (stmt, valor) -> stmt.setInt(1, valor),
+                valor -> TransactionManager.alConfirmar(pool, () -> aplicadas.add(valor)));
+    }
+}
@@ -0,0 +1,293 @@
+package db;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.logging.Logger;
+
+/**
+ * Pool de pruebas sobre un driver JDBC en memoria que imita lo necesario de
+ * PostgreSQL: la única tabla recibe enteros con SQL_INSERT, un valor
+ * negativo viola una restricción, y tras un error la transacción queda
+ * abortada hasta volver a un savepoint.
+ */
+public final class PoolDePrueba extends DBConnection {
+    
+    public static final String SQL_INSERT = "INSERT INTO Prueba (valor) VALUES (?)";
+    
+    private static final String URL = "jdbc:prueba:memoria";
+    
+    // Filas confirmadas, compartidas por todos los pools de prueba
+    private static final List<Integer> CONFIRMADAS = Collections.synchronizedList(new ArrayList<>());
+    
+    static {
+        try {
+            DriverManager.registerDriver(new DriverDePrueba());
+        } catch (SQLException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+    
+    public PoolDePrueba() {
+        url = URL;
+        minPoolSize = 0;
+        maxPoolSize = 2;
+    }
+    
+    /**
+     * Filas confirmadas hasta ahora, en orden de confirmación
+     */
+    public static List<Integer> getConfirmadas() {
+        return new ArrayList<>(CONFIRMADAS);
+    }
+    
+    /**
+     * Vacía la tabla
+     */
+    public static void limpiar() {
+        CONFIRMADAS.clear();
+    }
+    
+    /**
+     * Valor que devuelven los métodos JDBC que las pruebas no simulan
+     */
+    private static Object porDefecto(Class<?> tipo) {
+        if (tipo == boolean.class) {
+            return false;
+        }
+        if (tipo == int.class) {
+            return 0;
+        }
+        if (tipo == long.class) {
+            return 0L;
+        }
+        return null;
+    }
+    
+    /**
+     * Driver JDBC que entrega conexiones sobre CONFIRMADAS
+     */
+    private static final class DriverDePrueba implements Driver {
+        
+        @Override
+        public Connection connect(String url, Properties info) {
+            return acceptsURL(url) ? new ConexionDePrueba().proxy() : null;
+        }
+        
+        @Override
+        public boolean acceptsURL(String url) {
+            return URL.equals(url);
+        }
+        
+        @Override
+        public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {
+            return new DriverPropertyInfo[0];
+        }
+        
+        @Override
+        public int getMajorVersion() {
+            return 1;
+        }
+        
+        @Override
+        public int getMinorVersion() {
+            return 0;
+        }
+        
+        @Override
+        public boolean jdbcCompliant() {
+            return false;
+        }
+        
+        @Override
+        public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+            throw new SQLFeatureNotSupportedException();
+        }
+    }
+    
+    /**
+     * Conexión con una transacción a la manera de PostgreSQL: las filas
+     * pendientes se confirman con commit, y después de un error toda
+     * sentencia falla hasta hacer rollback (total o a un savepoint)
+     */
+    private static final class ConexionDePrueba {
+        
+        private final List<Integer> pendientes = new ArrayList<>();
+        private boolean autoCommit = true;
+        private boolean abortada;
+        private boolean cerrada;
+        
+        Connection proxy() {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "prepareStatement":
+                        return new SentenciaDePrueba(this).proxy();
+                    case "setAutoCommit":
+                        if ((Boolean) args[0] && !autoCommit) {
+                            confirmar();
+                        }
+                        autoCommit = (Boolean) args[0];
+                        return null;
+                    case "getAutoCommit":
+                        return autoCommit;
+                    case "commit":
+                        confirmar();
+                        return null;
+                    case "rollback":
+                        if (args == null) {
+                            pendientes.clear();
+                            abortada = false;
+                        } else {
+                            ((PuntoDePrueba) args[0]).volver(this);
+                        }
+                        return null;
+                    case "setSavepoint":
+                        verificar();
+                        return new PuntoDePrueba(pendientes.size());
+                    case "releaseSavepoint":
+                        verificar();
+                        return null;
+                    case "close":
+                        cerrada = true;
+                        return null;
+                    case "isClosed":
+                        return cerrada;
+                    case "isValid":
+                        return !cerrada;
+                    case "isReadOnly":
+                        return false;
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "equals":
+                        return proxy == args[0];
+                    default:
+                        return porDefecto(method.getReturnType());
+                }
+            });
+        }
+        
+        void insertar(int valor) throws SQLException {
+            verificar();
+            if (valor < 0) {
+                abortada = true;
+                throw new SQLException("valor negativo: " + valor, "23514");
+            }
+            pendientes.add(valor);
+            if (autoCommit) {
+                confirmar();
+            }
+        }
+        
+        private void verificar() throws SQLException {
+            if (abortada) {
+                throw new SQLException("la transacción está abortada", "25P02");
+            }
+        }
+        
+        // Como en PostgreSQL, el commit de una transacción abortada la deshace
+        private void confirmar() {
+            if (!abortada) {
+                CONFIRMADAS.addAll(pendientes);
+            }
+            pendientes.clear();
+            abortada = false;
+        }
+    }
+    
+    /**
+     * Savepoint: recuerda cuántas filas pendientes había al crearlo
+     */
+    private static final class PuntoDePrueba implements Savepoint {
+        
+        private final int filas;
+        
+        PuntoDePrueba(int filas) {
+            this.filas = filas;
+        }
+        
+        void volver(ConexionDePrueba conexion) {
+            conexion.pendientes.subList(filas, conexion.pendientes.size()).clear();
+            conexion.abortada = false;
+        }
+        
+        @Override
+        public int getSavepointId() {
+            return filas;
+        }
+        
+        @Override
+        public String getSavepointName() {
+            return "sp" + filas;
+        }
+    }
+    
+    /**
+     * Sentencia INSERT de un solo parámetro entero
+     */
+    private static final class SentenciaDePrueba {
+        
+        private final ConexionDePrueba conexion;
+        private final List<Integer> lote = new ArrayList<>();
+        private Integer valor;
+        
+        SentenciaDePrueba(ConexionDePrueba conexion) {
+            this.conexion = conexion;
+        }
+        
+        PreparedStatement proxy() {
+            return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class}, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "setInt":
+                        valor = (Integer) args[1];
+                        return null;
+                    case "clearParameters":
+                        valor = null;
+                        return null;
+                    case "addBatch":
+                        lote.add(valor);
+                        return null;
+                    case "clearBatch":
+                        lote.clear();
+                        return null;
+                    case "executeBatch":
+                        return ejecutarLote();
+                    case "executeUpdate":
+                        conexion.insertar(valor);
+                        return 1;
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "equals":
+                        return proxy == args[0];
+                    default:
+                        return porDefecto(method.getReturnType());
+                }
+            });
+        }
+        
+        private int[] ejecutarLote() throws SQLException {
+            int[] conteos = new int[lote.size()];
+            Arrays.fill(conteos, 1);
+            try {
+                for (int fila : lote) {
+                    conexion.insertar(fila);
+                }
+            } finally {
+                lote.clear();
+            }
+            return conteos;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package db;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import db.TransactionManager.Propagacion;
+
+/**
+ * Pruebas de TransactionManager con errores que los DAOs atrapan e ignoran
+ * La base de datos es el driver en memoria de PoolDePrueba.
+ */
+class TransactionManagerTest {
+    
+    private static final PoolDePrueba pool = new PoolDePrueba();
+    
+    @BeforeEach
+    void limpiarBase() {
+        PoolDePrueba.limpiar();
+    }
+    
+    @Test
+    void errorIgnoradoPorUnDaoDeshaceLaUnidad() {
+        List<Integer> aplicadas = new ArrayList<>();
+        
+        assertThrows(SQLException.class, () -> TransactionManager.ejecutar(pool, Propagacion.REQUIRED, () -> {
+            assertTrue(insertarComoDao(1, aplicadas));
+            assertFalse(insertarComoDao(-2, aplicadas));
+            return true;
+        }));
+        
+        assertTrue(PoolDePrueba.getConfirmadas().isEmpty());
+        assertTrue(aplicadas.isEmpty());
+    }
+    
+    @Test
+    void errorIgnoradoEnUnaUnidadAnidadaSoloDeshaceElSavepoint() throws SQLException {
+        List<Integer> aplicadas = new ArrayList<>();
+        
+        TransactionManager.ejecutar(pool, Propagacion.REQUIRED, () -> {
+            insertarComoDao(1, aplicadas);
+            assertThrows(SQLException.class, () -> TransactionManager.ejecutar(pool, Propagacion.NESTED, () -> {
+                insertarComoDao(2, aplicadas);
+                return insertarComoDao(-3, aplicadas);
+            }));
+            return insertarComoDao(4, aplicadas);
+        });
+        
+        assertEquals(List.of(1, 4), PoolDePrueba.getConfirmadas());
+        assertEquals(List.of(1, 4), aplicadas);
+    }
+    
+    @Test
+    void volverAUnSavepointRecuperaLaUnidad() throws SQLException {
+        TransactionManager.ejecutar(pool, Propagacion.REQUIRED, () -> {
+            try (Connection connection = pool.getConn()) {
+                insertarComoDao(1, new ArrayList<>());
+                Savepoint savepoint = connection.setSavepoint();
+                insertarComoDao(-2, new ArrayList<>());
+                connection.rollback(savepoint);
+                return insertarComoDao(3, new ArrayList<>());
+            }
+        });
+        
+        assertEquals(List.of(1, 3), PoolDePrueba.getConfirmadas());
+    }
+    
+    /**
+     * Inserta un valor como lo hacen los DAOs: el error se informa
+     * devolviendo false y el estado en memoria se actualiza al confirmar
+     */
+    private static boolean insertarComoDao(int valor, List<Integer> aplicadas) {
+        try (Connection connection = pool.getConn();
+             PreparedStatement stmt = connection.prepareStatement(PoolDePrueba.SQL_INSERT)) {
+            stmt.setInt(1, valor);
+            stmt.executeUpdate();
+            TransactionManager.alConfirmar(pool, () -> aplicadas.add(valor));
+            return true;
+            
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+}